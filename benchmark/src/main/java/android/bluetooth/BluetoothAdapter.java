@@ -0,0 +1,40 @@
+package android.bluetooth;
+
+import android.bluetooth.le.BluetoothLeScanner;
+
+/**
+ * JVM version of the android class for benchmarking, there is no bluetooth hardware
+ */
+public class BluetoothAdapter {
+
+    public interface LeScanCallback {
+        void onLeScan(BluetoothDevice device, int rssi, byte[] scanRecord);
+    }
+
+    public static BluetoothAdapter getDefaultAdapter() {
+        return new BluetoothAdapter();
+    }
+
+    public BluetoothLeScanner getBluetoothLeScanner() {
+        return new BluetoothLeScanner();
+    }
+
+    public boolean startLeScan(LeScanCallback callback) {
+        return true;
+    }
+
+    public void stopLeScan(LeScanCallback callback) {
+    }
+
+    public boolean isEnabled() {
+        return true;
+    }
+
+    public boolean enable() {
+        return true;
+    }
+
+    public boolean disable() {
+        return true;
+    }
+}
@@ -0,0 +1,15 @@
+package android.bluetooth;
+
+/**
+ * JVM version of the android class for benchmarking
+ */
+public class BluetoothDevice {
+
+    public String getName() {
+        return null;
+    }
+
+    public String getAddress() {
+        return null;
+    }
+}
@@ -0,0 +1,18 @@
+package android.bluetooth.le;
+
+import java.util.List;
+
+/**
+ * JVM version of the android class for benchmarking, there is no bluetooth hardware
+ */
+public class BluetoothLeScanner {
+
+    public void startScan(List<ScanFilter> filters, ScanSettings settings, ScanCallback callback) {
+    }
+
+    public void stopScan(ScanCallback callback) {
+    }
+
+    public void flushPendingScanResults(ScanCallback callback) {
+    }
+}
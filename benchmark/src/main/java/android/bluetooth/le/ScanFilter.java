@@ -0,0 +1,22 @@
+package android.bluetooth.le;
+
+/**
+ * JVM version of the android class for benchmarking
+ */
+public class ScanFilter {
+
+    public static class Builder {
+
+        public Builder setManufacturerData(int manufacturerId, byte[] manufacturerData) {
+            return this;
+        }
+
+        public Builder setManufacturerData(int manufacturerId, byte[] manufacturerData, byte[] manufacturerDataMask) {
+            return this;
+        }
+
+        public ScanFilter build() {
+            return new ScanFilter();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package android.bluetooth.le;
+
+/**
+ * JVM version of the android class for benchmarking
+ */
+public class ScanRecord {
+    private final byte[] bytes;
+
+    public ScanRecord(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+}
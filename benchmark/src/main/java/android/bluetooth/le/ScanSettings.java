@@ -0,0 +1,25 @@
+package android.bluetooth.le;
+
+/**
+ * JVM version of the android class for benchmarking
+ */
+public class ScanSettings {
+    public static final int SCAN_MODE_LOW_POWER = 0;
+    public static final int SCAN_MODE_BALANCED = 1;
+    public static final int SCAN_MODE_LOW_LATENCY = 2;
+
+    public static class Builder {
+
+        public Builder setScanMode(int scanMode) {
+            return this;
+        }
+
+        public Builder setReportDelay(long reportDelayMillis) {
+            return this;
+        }
+
+        public ScanSettings build() {
+            return new ScanSettings();
+        }
+    }
+}
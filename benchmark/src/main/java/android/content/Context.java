@@ -0,0 +1,19 @@
+package android.content;
+
+import android.location.LocationManager;
+
+/**
+ * JVM version of the android class for benchmarking, only provides the location service
+ */
+public class Context {
+    public static final String LOCATION_SERVICE = "location";
+
+    private final LocationManager locationManager = new LocationManager();
+
+    public Object getSystemService(String name) {
+        if (LOCATION_SERVICE.equals(name)) {
+            return locationManager;
+        }
+        return null;
+    }
+}
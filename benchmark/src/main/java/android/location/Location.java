@@ -0,0 +1,47 @@
+package android.location;
+
+/**
+ * JVM version of the android class for benchmarking, distances are calculated with the haversine formula
+ */
+public class Location {
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    private double latitude;
+    private double longitude;
+    private long time;
+
+    public Location(String provider) {
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public float distanceTo(Location destination) {
+        double deltaLatitude = Math.toRadians(destination.latitude - latitude);
+        double deltaLongitude = Math.toRadians(destination.longitude - longitude);
+        double a = Math.sin(deltaLatitude / 2) * Math.sin(deltaLatitude / 2) + Math.cos(Math.toRadians(latitude))
+                * Math.cos(Math.toRadians(destination.latitude)) * Math.sin(deltaLongitude / 2) * Math.sin(deltaLongitude / 2);
+        return (float) (EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a)));
+    }
+}
@@ -0,0 +1,16 @@
+package android.location;
+
+import android.os.Bundle;
+
+/**
+ * JVM version of the android interface for benchmarking
+ */
+public interface LocationListener {
+    void onLocationChanged(Location location);
+
+    void onStatusChanged(String provider, int status, Bundle extras);
+
+    void onProviderEnabled(String provider);
+
+    void onProviderDisabled(String provider);
+}
@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * JVM version of the android class for benchmarking
+ */
+public class Build {
+
+    public static class VERSION {
+        public static final int SDK_INT = 21;
+    }
+
+    public static class VERSION_CODES {
+        public static final int LOLLIPOP = 21;
+    }
+}
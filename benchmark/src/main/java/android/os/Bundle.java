@@ -0,0 +1,7 @@
+package android.os;
+
+/**
+ * JVM version of the android class for benchmarking
+ */
+public class Bundle {
+}
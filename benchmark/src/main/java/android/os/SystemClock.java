@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * JVM version of the android class for benchmarking, the monotonic clock of the JVM replaces the realtime clock
+ */
+public class SystemClock {
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1000000L;
+    }
+
+    public static long elapsedRealtimeNanos() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,132 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Creates reproducible signal data for the benchmarks
+ */
+final class BenchmarkData {
+    /**
+     * Maximum amount of keys which are received at one position
+     */
+    static final int MAX_VISIBLE_KEYS = 40;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates bssid like signal keys
+     *
+     * @param amount amount of keys
+     * @return signal keys
+     */
+    static String[] createKeys(int amount) {
+        String[] keys = new String[amount];
+        for (int i = 0; i < amount; i++) {
+            keys[i] = String.format("00:1a:2b:%02x:%02x:%02x", (i >> 16) & 0xff, (i >> 8) & 0xff, i & 0xff);
+        }
+        return keys;
+    }
+
+    /**
+     * Creates signal data with a random subset of the keys and rssi values between -100 and -30
+     *
+     * @param random      random generator
+     * @param keys        all signal keys
+     * @param visibleKeys amount of keys in the signal data
+     * @return signal data
+     */
+    static Map<String, SignalInformation> createSignalData(Random random, String[] keys, int visibleKeys) {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        int amount = Math.min(visibleKeys, keys.length);
+        while (signalData.size() < amount) {
+            signalData.put(keys[random.nextInt(keys.length)], new SignalInformation(-30 - random.nextInt(71)));
+        }
+        return signalData;
+    }
+
+    /**
+     * Creates persisted fingerprints
+     *
+     * @param random random generator
+     * @param keys   all signal keys
+     * @param amount amount of fingerprints
+     * @return persisted fingerprints
+     */
+    static List<PositionInformation> createPositions(Random random, String[] keys, int amount) {
+        List<PositionInformation> positions = new ArrayList<PositionInformation>(amount);
+        for (int i = 0; i < amount; i++) {
+            positions.add(new PositionInformation("position" + i, createSignalData(random, keys, MAX_VISIBLE_KEYS)));
+        }
+        return positions;
+    }
+
+    /**
+     * Creates persisted fingerprints of a square venue. The keys are placed randomly in the venue, their strength at a
+     * position falls with the log distance, so neighbouring fingerprints are similar like in real buildings.
+     *
+     * @param random      random generator
+     * @param keys        all signal keys
+     * @param amount      amount of fingerprints
+     * @param venueLength side length of the venue in meters
+     * @return persisted fingerprints
+     */
+    static List<PositionInformation> createVenuePositions(Random random, String[] keys, int amount, double venueLength) {
+        List<PositionInformation> positions = new ArrayList<PositionInformation>(amount);
+        for (int i = 0; i < amount; i++) {
+            positions.add(new PositionInformation("position" + i, createVenueSignalData(random, keys, venueLength * random.nextDouble(), venueLength * random.nextDouble(), venueLength)));
+        }
+        return positions;
+    }
+
+    /**
+     * Creates the signal data which is received at a point of a square venue, only keys stronger than -95 dBm are included
+     *
+     * @param random      random generator
+     * @param keys        all signal keys
+     * @param x           x coordinate in meters
+     * @param y           y coordinate in meters
+     * @param venueLength side length of the venue in meters
+     * @return signal data
+     */
+    static Map<String, SignalInformation> createVenueSignalData(Random random, String[] keys, double x, double y, double venueLength) {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        // the key positions only depend on the amount of keys, so all fingerprints of a venue share them
+        Random keyRandom = new Random(keys.length);
+        for (String key : keys) {
+            double distance = Math.hypot(venueLength * keyRandom.nextDouble() - x, venueLength * keyRandom.nextDouble() - y);
+            double strength = -40 - 25 * Math.log10(1 + distance) + 3 * random.nextGaussian();
+            if (strength > -95) {
+                signalData.put(key, new SignalInformation(Math.round(strength)));
+            }
+        }
+        return signalData;
+    }
+
+    /**
+     * Creates an ibeacon advertisement packet
+     *
+     * @param major   major value
+     * @param minor   minor value
+     * @param txPower tx power
+     * @return advertisement packet
+     */
+    static byte[] createAdvertisement(int major, int minor, int txPower) {
+        byte[] scanRecord = new byte[]{2, 1, 6, 26, -1, 76, 0, 2, 21, 73, 110, 100, 46, 80, 111, 115, 105, 116, 105, 111, 110, 105, 110,
+                103, 32, 0, 0, 0, 0, 0, 11, 9, 112, 66, 101, 97, 99, 111, 110, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                0, 0};
+        scanRecord[25] = (byte) (major >> 8);
+        scanRecord[26] = (byte) major;
+        scanRecord[27] = (byte) (minor >> 8);
+        scanRecord[28] = (byte) minor;
+        scanRecord[29] = (byte) txPower;
+        return scanRecord;
+    }
+}
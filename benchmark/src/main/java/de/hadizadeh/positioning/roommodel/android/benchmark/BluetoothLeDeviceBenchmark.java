@@ -0,0 +1,65 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import de.hadizadeh.positioning.roommodel.android.technologies.BluetoothLeDevice;
+import de.hadizadeh.positioning.roommodel.android.technologies.BluetoothLeDeviceStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing ibeacon advertisement packets, like the scan callbacks do for every received packet, once into a new device
+ * and once into a reused device which is stored in the pooled device store
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BluetoothLeDeviceBenchmark {
+    private static final int ADVERTISEMENT_AMOUNT = 64;
+
+    private byte[][] advertisements;
+    private int nextAdvertisement;
+    private BluetoothLeDevice scannedDevice = new BluetoothLeDevice();
+    private BluetoothLeDeviceStore store = new BluetoothLeDeviceStore();
+
+    @Setup
+    public void setUp() {
+        advertisements = new byte[ADVERTISEMENT_AMOUNT][];
+        for (int i = 0; i < ADVERTISEMENT_AMOUNT; i++) {
+            advertisements[i] = BenchmarkData.createAdvertisement(1, i, -59);
+        }
+    }
+
+    @Benchmark
+    public void parseAdvertisement(Blackhole blackhole) {
+        byte[] advertisement = advertisements[nextAdvertisement];
+        nextAdvertisement = (nextAdvertisement + 1) % ADVERTISEMENT_AMOUNT;
+        BluetoothLeDevice btLeDevice = new BluetoothLeDevice(null, advertisement, -70);
+        // the scan callbacks filter on these values before storing the device
+        blackhole.consume(btLeDevice.getCompanyIdValue());
+        blackhole.consume(btLeDevice.getUuidText());
+        blackhole.consume(btLeDevice.getIdentificator());
+    }
+
+    @Benchmark
+    public void scanCallback() {
+        byte[] advertisement = advertisements[nextAdvertisement];
+        nextAdvertisement = (nextAdvertisement + 1) % ADVERTISEMENT_AMOUNT;
+        scannedDevice.update(null, advertisement, -70);
+        if (scannedDevice.getCompanyIdValue() == BluetoothLeDevice.APPLE_COMPANY_ID && scannedDevice.getRssi() > -80) {
+            store.put(scannedDevice);
+        }
+    }
+}
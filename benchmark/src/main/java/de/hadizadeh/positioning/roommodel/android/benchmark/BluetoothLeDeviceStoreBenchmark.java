@@ -0,0 +1,175 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import de.hadizadeh.positioning.roommodel.android.technologies.BluetoothLeDevice;
+import de.hadizadeh.positioning.roommodel.android.technologies.BluetoothLeDeviceStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the concurrent btle device store with a synchronized map. The positioning thread takes snapshots while a simulated
+ * scan callback stores packets at a fixed rate ({@code snapshot}) or as fast as possible ({@code contended} group).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BluetoothLeDeviceStoreBenchmark {
+
+    /**
+     * Common operations of the compared stores
+     */
+    interface DeviceStore {
+        void put(String identificator, BluetoothLeDevice device);
+
+        int copyDevices(List<BluetoothLeDevice> devices);
+    }
+
+    /**
+     * Baseline: a map which is locked for every access
+     */
+    static class SynchronizedDeviceStore implements DeviceStore {
+        private final Map<String, BluetoothLeDevice> devices = new HashMap<String, BluetoothLeDevice>();
+
+        @Override
+        public synchronized void put(String identificator, BluetoothLeDevice device) {
+            devices.put(identificator, device);
+        }
+
+        @Override
+        public synchronized int copyDevices(List<BluetoothLeDevice> copiedDevices) {
+            copiedDevices.clear();
+            copiedDevices.addAll(devices.values());
+            return copiedDevices.size();
+        }
+    }
+
+    /**
+     * Adapter for the concurrent store
+     */
+    static class ConcurrentDeviceStore implements DeviceStore {
+        private final BluetoothLeDeviceStore store = new BluetoothLeDeviceStore();
+
+        @Override
+        public void put(String identificator, BluetoothLeDevice device) {
+            store.put(device);
+        }
+
+        @Override
+        public int copyDevices(List<BluetoothLeDevice> devices) {
+            return store.copyDevices(devices);
+        }
+    }
+
+    /**
+     * Store with pre-created packets of all beacons
+     */
+    @State(Scope.Group)
+    public static class StoreState {
+        @Param({"STORE", "SYNCHRONIZED"})
+        String storeType;
+
+        @Param({"50"})
+        int beaconAmount;
+
+        DeviceStore store;
+        String[] identificators;
+        BluetoothLeDevice[] devices;
+        int nextDevice;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            store = "STORE".equals(storeType) ? new ConcurrentDeviceStore() : new SynchronizedDeviceStore();
+            identificators = new String[beaconAmount];
+            devices = new BluetoothLeDevice[beaconAmount];
+            for (int i = 0; i < beaconAmount; i++) {
+                devices[i] = new BluetoothLeDevice(null, BenchmarkData.createAdvertisement(1, i, -59), -70);
+                identificators[i] = devices[i].getIdentificator();
+                store.put(identificators[i], devices[i]);
+            }
+        }
+
+        void putNext() {
+            int device = nextDevice;
+            nextDevice = (device + 1) % devices.length;
+            store.put(identificators[device], devices[device]);
+        }
+    }
+
+    /**
+     * Simulated scan callback which stores packets at a fixed rate on a separate thread
+     */
+    @State(Scope.Group)
+    public static class ScanLoad {
+        @Param({"200"})
+        int packetsPerSecond;
+
+        private ScheduledExecutorService scanThread;
+
+        @Setup(Level.Trial)
+        public void setUp(final StoreState storeState) {
+            scanThread = Executors.newSingleThreadScheduledExecutor();
+            scanThread.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    storeState.putNext();
+                }
+            }, 0, 1000000000L / packetsPerSecond, TimeUnit.NANOSECONDS);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            scanThread.shutdownNow();
+            scanThread.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Reusable snapshot list of the positioning thread
+     */
+    @State(Scope.Thread)
+    public static class Snapshot {
+        List<BluetoothLeDevice> devices = new ArrayList<BluetoothLeDevice>();
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    public int snapshotUnderScanLoad(StoreState storeState, ScanLoad scanLoad, Snapshot snapshot) {
+        return storeState.store.copyDevices(snapshot.devices);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public int contendedSnapshot(StoreState storeState, Snapshot snapshot) {
+        return storeState.store.copyDevices(snapshot.devices);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedScanCallback(StoreState storeState) {
+        storeState.putNext();
+    }
+}
@@ -0,0 +1,79 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.BalanceCachingManager;
+import de.hadizadeh.positioning.roommodel.android.RobustCachingManager;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one positioning cycle of a caching manager with a window of signal data: adding the current signal data and
+ * interpolating the cache. The recursive caching managers have no window, they are measured by
+ * {@link RecursiveCachingManagerBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachingManagerBenchmark {
+    private static final int SIGNAL_DATA_AMOUNT = 64;
+
+    @Param({"10", "50", "150", "500"})
+    private int keyAmount;
+
+    @Param({"1", "5", "10", "20"})
+    private int cacheSize;
+
+    @Param({"BALANCE", "ROBUST"})
+    private String cachingManagerType;
+
+    private CachingManager cachingManager;
+    private List<Map<String, SignalInformation>> signalData;
+    private int nextSignalData;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] keys = BenchmarkData.createKeys(keyAmount);
+        signalData = new ArrayList<Map<String, SignalInformation>>(SIGNAL_DATA_AMOUNT);
+        for (int i = 0; i < SIGNAL_DATA_AMOUNT; i++) {
+            // wifi scans usually contain most of the keys of a building part, the rest fluctuates
+            signalData.add(BenchmarkData.createSignalData(random, keys, keyAmount * 9 / 10));
+        }
+        SignalKeyDictionary keyDictionary = new SignalKeyDictionary();
+        if ("BALANCE".equals(cachingManagerType)) {
+            cachingManager = new BalanceCachingManager(cacheSize);
+        } else {
+            cachingManager = new RobustCachingManager(keyDictionary, cacheSize, RobustCachingManager.Aggregation.MEDIAN, 0.0, 0);
+        }
+        for (int i = 0; i < cacheSize; i++) {
+            cycle();
+        }
+    }
+
+    @Benchmark
+    public Map<String, SignalInformation> cycle() {
+        cachingManager.addData(signalData.get(nextSignalData));
+        nextSignalData = (nextSignalData + 1) % SIGNAL_DATA_AMOUNT;
+        return cachingManager.interpolateData();
+    }
+}
@@ -0,0 +1,80 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.BalanceCachingManager;
+import de.hadizadeh.positioning.roommodel.android.EuclideanMatcher;
+import de.hadizadeh.positioning.roommodel.android.NearestPositions;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the k nearest neighbour search of the euclidean matcher in a venue, with and without its tree
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EuclideanMatcherBenchmark {
+    private static final int FINGERPRINT_AMOUNT = 16;
+    private static final int NEAREST_AMOUNT = 5;
+    private static final double VENUE_LENGTH = 200.0;
+
+    @Param({"150", "500"})
+    private int keyAmount;
+
+    @Param({"1000", "10000", "40000"})
+    private int positionAmount;
+
+    @Param({"true", "false"})
+    private boolean tree;
+
+    private EuclideanMatcher euclideanMatcher;
+    private BalanceCachingManager cachingManager;
+    private List<PositionInformation> persistedPositions;
+    private List<Map<String, SignalInformation>> fingerprints;
+    private int nextFingerprint;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] keys = BenchmarkData.createKeys(keyAmount);
+        persistedPositions = BenchmarkData.createVenuePositions(random, keys, positionAmount, VENUE_LENGTH);
+        fingerprints = new ArrayList<Map<String, SignalInformation>>(FINGERPRINT_AMOUNT);
+        for (int i = 0; i < FINGERPRINT_AMOUNT; i++) {
+            fingerprints.add(BenchmarkData.createVenueSignalData(random, keys, VENUE_LENGTH * random.nextDouble(), VENUE_LENGTH * random.nextDouble(), VENUE_LENGTH));
+        }
+        euclideanMatcher = new EuclideanMatcher(SignalKeyDictionary.getInstance(), EuclideanMatcher.DEFAULT_MISSING_STRENGTH, NEAREST_AMOUNT);
+        if (tree) {
+            euclideanMatcher.prepare(persistedPositions);
+        } else {
+            euclideanMatcher.setRebuildRatio(Double.MAX_VALUE);
+        }
+        cachingManager = new BalanceCachingManager(1);
+    }
+
+    @Benchmark
+    public NearestPositions nearestNeighbours() {
+        Map<String, SignalInformation> fingerprint = fingerprints.get(nextFingerprint);
+        nextFingerprint = (nextFingerprint + 1) % FINGERPRINT_AMOUNT;
+        return euclideanMatcher.nearestNeighbours(cachingManager, fingerprint, persistedPositions, NEAREST_AMOUNT);
+    }
+}
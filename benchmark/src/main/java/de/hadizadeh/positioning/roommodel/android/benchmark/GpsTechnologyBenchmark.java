@@ -0,0 +1,65 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import android.content.Context;
+import android.location.Location;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.technologies.GpsTechnology;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching the current gps location against persisted gps areas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GpsTechnologyBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    private int positionAmount;
+
+    private GpsTechnology gpsTechnology;
+    private List<PositionInformation> persistedPositions;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        persistedPositions = new ArrayList<PositionInformation>(positionAmount);
+        for (int i = 0; i < positionAmount; i++) {
+            Map<String, SignalInformation> signalInformation = new HashMap<String, SignalInformation>();
+            signalInformation.put("lat", new SignalInformation(52.45 + random.nextDouble() * 0.02));
+            signalInformation.put("lng", new SignalInformation(13.52 + random.nextDouble() * 0.02));
+            persistedPositions.add(new PositionInformation("position" + i, signalInformation));
+        }
+        gpsTechnology = new GpsTechnology(new Context(), "GPS", 50, 0, 0);
+        Location location = new Location("gps");
+        location.setLatitude(52.46);
+        location.setLongitude(13.53);
+        gpsTechnology.setLocation(location);
+    }
+
+    @Benchmark
+    public Map<PositionInformation, Double> match() {
+        return gpsTechnology.match(persistedPositions);
+    }
+}
@@ -0,0 +1,170 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.BalanceCachingManager;
+import de.hadizadeh.positioning.roommodel.android.EuclideanMatcher;
+import de.hadizadeh.positioning.roommodel.android.LshIndex;
+import de.hadizadeh.positioning.roommodel.android.LshMatcher;
+import de.hadizadeh.positioning.roommodel.android.NearestPositions;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import de.hadizadeh.positioning.roommodel.android.TopKMatcher;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Prints recall@k and latency of the lsh matcher for several hashing parameters compared to the exact euclidean matcher. Every
+ * tenth fingerprint is held out and used as live fingerprint, up to 500 live fingerprints. Without arguments a generated venue
+ * is used, else the recorded fingerprints of a technology (default WIFI) are loaded from a positioningPersistence.xml or read
+ * from a csv file with lines "positionName,key,strength".
+ * For the lsh matchers the share of searches is printed which had to probe the neighbouring buckets and which found nothing.
+ * <p>
+ * Usage: java -cp benchmarks.jar:indoor-positioning.jar de.hadizadeh.positioning.roommodel.android.benchmark.LshRecallReport [positioningPersistence.xml [technology]|dataset.csv]
+ */
+public final class LshRecallReport {
+    private static final int NEAREST_AMOUNT = 5;
+    private static final int MAX_LIVE_AMOUNT = 500;
+    private static final int[] TABLE_AMOUNTS = {8, 16};
+    private static final int[] HASH_AMOUNTS = {2, 4};
+    private static final double[] BUCKET_WIDTHS = {120.0, 240.0, 480.0};
+
+    private LshRecallReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<PositionInformation> positions;
+        if (args.length > 0 && args[0].endsWith(".xml")) {
+            String technologyName = args.length > 1 ? args[1] : PositioningPersistenceReader.DEFAULT_TECHNOLOGY_NAME;
+            positions = new PositioningPersistenceReader(new File(args[0]), technologyName).getPositions();
+        } else if (args.length > 0) {
+            positions = readDataset(args[0]);
+        } else {
+            positions = BenchmarkData.createVenuePositions(new Random(42), BenchmarkData.createKeys(500), 40000, 200.0);
+        }
+        List<PositionInformation> persistedPositions = new ArrayList<PositionInformation>();
+        List<Map<String, SignalInformation>> fingerprints = new ArrayList<Map<String, SignalInformation>>();
+        for (int i = 0; i < positions.size(); i++) {
+            if (i % 10 == 0 && fingerprints.size() < MAX_LIVE_AMOUNT) {
+                fingerprints.add(positions.get(i).getSignalInformation());
+            } else {
+                persistedPositions.add(positions.get(i));
+            }
+        }
+        System.out.println(persistedPositions.size() + " persisted fingerprints, " + fingerprints.size() + " live fingerprints, k = " + NEAREST_AMOUNT);
+
+        SignalKeyDictionary keyDictionary = new SignalKeyDictionary();
+        EuclideanMatcher exactMatcher = new EuclideanMatcher(keyDictionary, EuclideanMatcher.DEFAULT_MISSING_STRENGTH, NEAREST_AMOUNT);
+        exactMatcher.prepare(persistedPositions);
+        List<NearestPositions> exactResults = new ArrayList<NearestPositions>();
+        long[] exactLatencies = match(exactMatcher, persistedPositions, fingerprints, exactResults);
+        System.out.println(String.format("%-24s %8s %10s %10s %8s %8s", "matcher", "recall", "mean ms", "p95 ms", "probed", "missed"));
+        print("exact", 1.0, exactLatencies, 0, 0);
+
+        for (int tableAmount : TABLE_AMOUNTS) {
+            for (int hashAmount : HASH_AMOUNTS) {
+                for (double bucketWidth : BUCKET_WIDTHS) {
+                    LshMatcher lshMatcher = new LshMatcher(keyDictionary, EuclideanMatcher.DEFAULT_MISSING_STRENGTH, NEAREST_AMOUNT, tableAmount, hashAmount, bucketWidth);
+                    lshMatcher.prepare(persistedPositions);
+                    List<NearestPositions> results = new ArrayList<NearestPositions>();
+                    long[] latencies = match(lshMatcher, persistedPositions, fingerprints, results);
+                    LshIndex index = (LshIndex) lshMatcher.getIndex();
+                    // the searches of the warm up are counted as well
+                    double searchAmount = Math.min(100, fingerprints.size()) + fingerprints.size();
+                    print("lsh L=" + tableAmount + " K=" + hashAmount + " w=" + (int) bucketWidth, recall(exactResults, results), latencies,
+                            index.getProbedSearchAmount() / searchAmount, index.getMissedSearchAmount() / searchAmount);
+                }
+            }
+        }
+    }
+
+    private static long[] match(TopKMatcher matcher, List<PositionInformation> persistedPositions, List<Map<String, SignalInformation>> fingerprints, List<NearestPositions> results) {
+        BalanceCachingManager cachingManager = new BalanceCachingManager(1);
+        // warms up the jit before the measured run
+        for (int i = 0; i < Math.min(100, fingerprints.size()); i++) {
+            matcher.nearestNeighbours(cachingManager, fingerprints.get(i), persistedPositions, NEAREST_AMOUNT);
+        }
+        long[] latencies = new long[fingerprints.size()];
+        for (int i = 0; i < fingerprints.size(); i++) {
+            long start = System.nanoTime();
+            results.add(matcher.nearestNeighbours(cachingManager, fingerprints.get(i), persistedPositions, NEAREST_AMOUNT));
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static double recall(List<NearestPositions> exactResults, List<NearestPositions> results) {
+        int found = 0;
+        int total = 0;
+        for (int i = 0; i < exactResults.size(); i++) {
+            NearestPositions exactPositions = exactResults.get(i);
+            NearestPositions positions = results.get(i);
+            for (int k = 0; k < exactPositions.size(); k++) {
+                for (int j = 0; j < positions.size(); j++) {
+                    if (positions.getPosition(j) == exactPositions.getPosition(k)) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+            total += exactPositions.size();
+        }
+        return total > 0 ? (double) found / total : 1.0;
+    }
+
+    private static void print(String name, double recall, long[] latencies, double probedShare, double missedShare) {
+        long[] sortedLatencies = latencies.clone();
+        Arrays.sort(sortedLatencies);
+        double sum = 0.0;
+        for (long latency : sortedLatencies) {
+            sum += latency;
+        }
+        double mean = sortedLatencies.length > 0 ? sum / sortedLatencies.length / 1e6 : 0.0;
+        double p95 = sortedLatencies.length > 0 ? sortedLatencies[(int) (sortedLatencies.length * 0.95)] / 1e6 : 0.0;
+        System.out.println(String.format("%-24s %8.3f %10.3f %10.3f %8.3f %8.3f", name, recall, mean, p95, probedShare, missedShare));
+    }
+
+    private static List<PositionInformation> readDataset(String fileName) throws IOException {
+        Map<String, Map<String, SignalInformation>> signalData = new LinkedHashMap<String, Map<String, SignalInformation>>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                double strength;
+                try {
+                    strength = Double.parseDouble(values[values.length - 1]);
+                } catch (NumberFormatException e) {
+                    // skips the header
+                    continue;
+                }
+                if (values.length != 3) {
+                    continue;
+                }
+                Map<String, SignalInformation> positionSignalData = signalData.get(values[0]);
+                if (positionSignalData == null) {
+                    positionSignalData = new HashMap<String, SignalInformation>();
+                    signalData.put(values[0], positionSignalData);
+                }
+                positionSignalData.put(values[1], new SignalInformation(strength));
+            }
+        } finally {
+            reader.close();
+        }
+        List<PositionInformation> positions = new ArrayList<PositionInformation>(signalData.size());
+        for (Map.Entry<String, Map<String, SignalInformation>> entry : signalData.entrySet()) {
+            positions.add(new PositionInformation(entry.getKey(), entry.getValue()));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,85 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.BalanceCachingManager;
+import de.hadizadeh.positioning.roommodel.android.NearestPositions;
+import de.hadizadeh.positioning.roommodel.android.OrderMatcher;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching a live fingerprint against all persisted fingerprints
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderMatcherBenchmark {
+    private static final int FINGERPRINT_AMOUNT = 16;
+    private static final int NEAREST_AMOUNT = 5;
+
+    @Param({"10", "50", "150", "500"})
+    private int keyAmount;
+
+    @Param({"100", "1000", "10000", "50000"})
+    private int positionAmount;
+
+    @Param({"MISMATCHES", "SPEARMAN_FOOTRULE", "KENDALL_TAU"})
+    private OrderMatcher.OrderDistance orderDistance;
+
+    @Param({"0", "2000"})
+    private int parallelThreshold;
+
+    private OrderMatcher orderMatcher;
+    private BalanceCachingManager cachingManager;
+    private List<PositionInformation> persistedPositions;
+    private List<Map<String, SignalInformation>> fingerprints;
+    private int nextFingerprint;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] keys = BenchmarkData.createKeys(keyAmount);
+        persistedPositions = BenchmarkData.createPositions(random, keys, positionAmount);
+        fingerprints = new ArrayList<Map<String, SignalInformation>>(FINGERPRINT_AMOUNT);
+        for (int i = 0; i < FINGERPRINT_AMOUNT; i++) {
+            fingerprints.add(BenchmarkData.createSignalData(random, keys, BenchmarkData.MAX_VISIBLE_KEYS));
+        }
+        orderMatcher = new OrderMatcher(SignalKeyDictionary.getInstance(), orderDistance);
+        orderMatcher.setParallelThreshold(parallelThreshold);
+        cachingManager = new BalanceCachingManager(1);
+    }
+
+    @Benchmark
+    public Map<PositionInformation, Double> nearestNeighbour() {
+        Map<String, SignalInformation> fingerprint = fingerprints.get(nextFingerprint);
+        nextFingerprint = (nextFingerprint + 1) % FINGERPRINT_AMOUNT;
+        return orderMatcher.nearestNeighbour(cachingManager, fingerprint, persistedPositions, false);
+    }
+
+    @Benchmark
+    public NearestPositions nearestNeighbours() {
+        Map<String, SignalInformation> fingerprint = fingerprints.get(nextFingerprint);
+        nextFingerprint = (nextFingerprint + 1) % FINGERPRINT_AMOUNT;
+        return orderMatcher.nearestNeighbours(cachingManager, fingerprint, persistedPositions, NEAREST_AMOUNT);
+    }
+}
@@ -0,0 +1,74 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import de.hadizadeh.positioning.roommodel.android.EstimatedPosition;
+import de.hadizadeh.positioning.roommodel.android.ParticleFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full particle filter cycle (predict, update with the nearest positions, estimate) on a map with walls
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParticleFilterBenchmark {
+    private static final int ROWS = 60;
+    private static final int COLUMNS = 100;
+    private static final int POINT_AMOUNT = 5;
+
+    @Param({"500", "2000", "8000"})
+    private int particleAmount;
+
+    private ParticleFilter particleFilter;
+    private EstimatedPosition estimatedPosition;
+    private Random random;
+    private float[] pointXs;
+    private float[] pointYs;
+    private double[] pointWeights;
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        boolean[] walkable = new boolean[ROWS * COLUMNS];
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                // rooms of 10 x 10 segments with doors in the middle of every wall
+                boolean wall = (row % 10 == 0 && column % 10 != 5) || (column % 10 == 0 && row % 10 != 5);
+                walkable[row * COLUMNS + column] = !wall;
+            }
+        }
+        particleFilter = new ParticleFilter(ROWS, COLUMNS, walkable, particleAmount, random);
+        estimatedPosition = new EstimatedPosition();
+        pointXs = new float[POINT_AMOUNT];
+        pointYs = new float[POINT_AMOUNT];
+        pointWeights = new double[POINT_AMOUNT];
+    }
+
+    @Benchmark
+    public EstimatedPosition cycle() {
+        for (int i = 0; i < POINT_AMOUNT; i++) {
+            pointXs[i] = 40.0f + 3 * random.nextFloat();
+            pointYs[i] = 25.0f + 3 * random.nextFloat();
+            pointWeights[i] = random.nextDouble();
+        }
+        particleFilter.predict(0.2f, 0.0f);
+        particleFilter.update(pointXs, pointYs, pointWeights, POINT_AMOUNT);
+        particleFilter.estimate(estimatedPosition, 0);
+        return estimatedPosition;
+    }
+}
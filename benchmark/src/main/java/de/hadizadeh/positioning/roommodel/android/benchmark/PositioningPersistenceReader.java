@@ -0,0 +1,131 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import de.hadizadeh.positioning.controller.MappedPositionManager;
+import de.hadizadeh.positioning.controller.Technology;
+import de.hadizadeh.positioning.exceptions.PositioningException;
+import de.hadizadeh.positioning.exceptions.PositioningPersistenceException;
+import de.hadizadeh.positioning.model.MappingPoint;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the persisted fingerprints of a positioningPersistence.xml with the persistence of the indoor positioning library, like
+ * the loading fragment of the app. The library passes the persisted fingerprints of a technology only to its matching, so a
+ * technology with the name of the recorded technology is added which captures them during the first positioning cycle. The
+ * mapping points are looked up by the position names of the library.
+ */
+final class PositioningPersistenceReader {
+    /**
+     * default name of the recorded technology
+     */
+    static final String DEFAULT_TECHNOLOGY_NAME = "WIFI";
+
+    private static final long POSITIONING_PERIOD = 10;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private final List<PositionInformation> positions;
+    private final Map<String, MappingPoint> mappingPoints = new HashMap<String, MappingPoint>();
+
+    /**
+     * Loads a persistence file
+     *
+     * @param file           positioningPersistence.xml
+     * @param technologyName name of the technology whose fingerprints are loaded
+     * @throws IOException if the file can not be loaded or the technology has no fingerprints
+     */
+    PositioningPersistenceReader(File file, String technologyName) throws IOException {
+        CapturingTechnology technology = new CapturingTechnology(technologyName);
+        MappedPositionManager mappedPositionManager;
+        try {
+            mappedPositionManager = new MappedPositionManager(file);
+            mappedPositionManager.addTechnology(technology);
+        } catch (PositioningPersistenceException e) {
+            throw new IOException(e);
+        } catch (PositioningException e) {
+            throw new IOException(e);
+        }
+        for (MappingPoint mappingPoint : mappedPositionManager.getMappedPositionMappingPoints()) {
+            mappingPoints.put(getPositionName(mappingPoint), mappingPoint);
+        }
+        mappedPositionManager.startPositioning(POSITIONING_PERIOD);
+        try {
+            positions = technology.awaitPositions();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        } finally {
+            mappedPositionManager.stopPositioning();
+        }
+        if (positions == null) {
+            throw new IOException("no fingerprints of technology " + technologyName + " have been matched");
+        }
+    }
+
+    /**
+     * Returns the persisted positions
+     *
+     * @return positions
+     */
+    List<PositionInformation> getPositions() {
+        return positions;
+    }
+
+    /**
+     * Returns the mapping point of a persisted position
+     *
+     * @param position persisted position
+     * @return mapping point or null, if the position has no mapping point
+     */
+    MappingPoint getMappingPoint(PositionInformation position) {
+        return mappingPoints.get(position.getName());
+    }
+
+    /**
+     * Returns the name of the persisted position of a mapping point, like the matchers and the position estimator
+     *
+     * @param mappingPoint mapping point
+     * @return position name
+     */
+    static String getPositionName(MappingPoint mappingPoint) {
+        return mappingPoint.toString();
+    }
+
+    /**
+     * Technology which captures the persisted fingerprints which the library passes to its matching
+     */
+    private static final class CapturingTechnology extends Technology {
+        private final CountDownLatch matched = new CountDownLatch(1);
+        private volatile List<PositionInformation> positions;
+
+        private CapturingTechnology(String name) {
+            super(name);
+        }
+
+        @Override
+        public Map<String, SignalInformation> getSignalData() {
+            return new HashMap<String, SignalInformation>();
+        }
+
+        @Override
+        public Map<PositionInformation, Double> match(List<PositionInformation> persistedPositions) {
+            if (positions == null) {
+                positions = new ArrayList<PositionInformation>(persistedPositions);
+                matched.countDown();
+            }
+            return new HashMap<PositionInformation, Double>();
+        }
+
+        private List<PositionInformation> awaitPositions() throws InterruptedException {
+            matched.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return positions;
+        }
+    }
+}
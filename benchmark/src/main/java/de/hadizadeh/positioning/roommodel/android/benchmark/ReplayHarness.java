@@ -0,0 +1,338 @@
+package de.hadizadeh.positioning.roommodel.android.benchmark;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.controller.Matcher;
+import de.hadizadeh.positioning.model.MappingPoint;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.BalanceCachingManager;
+import de.hadizadeh.positioning.roommodel.android.DecayCachingManager;
+import de.hadizadeh.positioning.roommodel.android.EstimatedPosition;
+import de.hadizadeh.positioning.roommodel.android.EuclideanMatcher;
+import de.hadizadeh.positioning.roommodel.android.KalmanCachingManager;
+import de.hadizadeh.positioning.roommodel.android.LshMatcher;
+import de.hadizadeh.positioning.roommodel.android.OrderMatcher;
+import de.hadizadeh.positioning.roommodel.android.PruningMatcher;
+import de.hadizadeh.positioning.roommodel.android.RobustCachingManager;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import de.hadizadeh.positioning.roommodel.android.WeightedPositionEstimator;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Replays recorded fingerprint traces with ground truth mapping points through combinations of caching managers and matchers
+ * and prints the positioning error (mean and 90th percentile, of the nearest position and of the weighted kNN position in map
+ * segments), the latency percentiles per cycle and the allocated bytes per cycle. Caching managers with an age run on the
+ * timestamps of the trace instead of the wall clock.
+ * <p>
+ * The trace is a csv file with lines "timestampMillis,x,y,z,key,strength", all lines with the same timestamp form one scan cycle
+ * at the mapping point x, y, z. Without a trace, every persisted fingerprint is replayed with 4 dB noise and 10 % missing keys.
+ * <p>
+ * Usage: java -cp benchmarks.jar:indoor-positioning.jar de.hadizadeh.positioning.roommodel.android.benchmark.ReplayHarness
+ * positioningPersistence.xml [trace.csv] [--technology WIFI] [--caching plain,balance,decay,kalman,robust]
+ * [--matchers mismatches,footrule,kendall,euclidean,lsh,pruning]
+ */
+public final class ReplayHarness {
+    private static final String DEFAULT_CACHING = "plain,balance,decay,kalman,robust";
+    private static final String DEFAULT_MATCHERS = "mismatches,footrule,euclidean,lsh,pruning";
+    private static final int NEAREST_AMOUNT = 4;
+
+    private final List<PositionInformation> persistedPositions;
+    private final Map<String, MappingPoint> mappingPoints = new HashMap<String, MappingPoint>();
+    private final List<Scan> scans;
+    private final long[] currentTime = new long[1];
+
+    private ReplayHarness(PositioningPersistenceReader persistence, List<Scan> scans) {
+        this.persistedPositions = persistence.getPositions();
+        for (PositionInformation position : persistedPositions) {
+            MappingPoint mappingPoint = persistence.getMappingPoint(position);
+            if (mappingPoint != null) {
+                mappingPoints.put(position.getName(), mappingPoint);
+            }
+        }
+        this.scans = scans;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String persistenceFile = null;
+        String traceFile = null;
+        String technologyName = PositioningPersistenceReader.DEFAULT_TECHNOLOGY_NAME;
+        String caching = DEFAULT_CACHING;
+        String matchers = DEFAULT_MATCHERS;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--technology") && i + 1 < args.length) {
+                technologyName = args[++i];
+            } else if (args[i].equals("--caching") && i + 1 < args.length) {
+                caching = args[++i];
+            } else if (args[i].equals("--matchers") && i + 1 < args.length) {
+                matchers = args[++i];
+            } else if (persistenceFile == null) {
+                persistenceFile = args[i];
+            } else {
+                traceFile = args[i];
+            }
+        }
+        if (persistenceFile == null) {
+            System.err.println("Usage: ReplayHarness positioningPersistence.xml [trace.csv] [--technology " + technologyName + "] [--caching " + DEFAULT_CACHING + "] [--matchers " + DEFAULT_MATCHERS + ",kendall]");
+            System.exit(1);
+        }
+
+        PositioningPersistenceReader persistence = new PositioningPersistenceReader(new File(persistenceFile), technologyName);
+        List<Scan> scans = traceFile != null ? readTrace(traceFile) : createTrace(persistence);
+        System.out.println(persistence.getPositions().size() + " persisted fingerprints, " + scans.size() + " scan cycles");
+        System.out.println(String.format("%-10s %-11s %9s %9s %9s %9s %9s %9s %9s %11s", "caching", "matcher", "error", "p90", "knnError", "knnP90",
+                "p50 us", "p90 us", "p99 us", "bytes/cycle"));
+        ReplayHarness harness = new ReplayHarness(persistence, scans);
+        for (String cachingName : caching.split(",")) {
+            for (String matcherName : matchers.split(",")) {
+                harness.replay(cachingName.trim(), matcherName.trim());
+            }
+        }
+    }
+
+    private void replay(String cachingName, String matcherName) {
+        Matcher matcher = createMatcher(matcherName);
+        // the first run warms up the jit and builds the indexes of the matcher
+        run(createCachingManager(cachingName), matcher, null);
+        Result result = new Result(scans.size());
+        run(createCachingManager(cachingName), matcher, result);
+        result.print(cachingName, matcherName);
+    }
+
+    private void run(CachingManager cachingManager, Matcher matcher, Result result) {
+        WeightedPositionEstimator estimator = new WeightedPositionEstimator(new ArrayList<MappingPoint>(mappingPoints.values()), NEAREST_AMOUNT, 1.0);
+        EstimatedPosition estimatedPosition = new EstimatedPosition();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < scans.size(); i++) {
+            Scan scan = scans.get(i);
+            currentTime[0] = scan.time;
+            long allocatedBytes = allocatedBytes(threadBean, threadId);
+            long start = System.nanoTime();
+            Map<PositionInformation, Double> matchedPositions = matcher.nearestNeighbour(cachingManager, scan.signalData, persistedPositions, false);
+            long latency = System.nanoTime() - start;
+            allocatedBytes = allocatedBytes(threadBean, threadId) - allocatedBytes;
+            if (result == null) {
+                continue;
+            }
+            PositionInformation nearestPosition = null;
+            double nearestDistance = Double.POSITIVE_INFINITY;
+            for (Map.Entry<PositionInformation, Double> entry : matchedPositions.entrySet()) {
+                if (entry.getValue() < nearestDistance) {
+                    nearestPosition = entry.getKey();
+                    nearestDistance = entry.getValue();
+                }
+            }
+            double error = Double.NaN;
+            MappingPoint mappingPoint = nearestPosition != null ? mappingPoints.get(nearestPosition.getName()) : null;
+            if (mappingPoint != null) {
+                error = distance(mappingPoint.getX(), mappingPoint.getY(), mappingPoint.getZ(), scan);
+            }
+            double weightedError = Double.NaN;
+            if (estimator.estimate(matchedPositions, estimatedPosition)) {
+                weightedError = distance(estimatedPosition.getX() - 0.5, estimatedPosition.getY() - 0.5, estimatedPosition.getZ(), scan);
+            }
+            result.add(error, weightedError, latency, allocatedBytes);
+        }
+    }
+
+    private Matcher createMatcher(String name) {
+        SignalKeyDictionary keyDictionary = new SignalKeyDictionary();
+        if (name.equals("mismatches")) {
+            return new OrderMatcher(keyDictionary, OrderMatcher.OrderDistance.MISMATCHES);
+        } else if (name.equals("footrule")) {
+            return new OrderMatcher(keyDictionary, OrderMatcher.OrderDistance.SPEARMAN_FOOTRULE);
+        } else if (name.equals("kendall")) {
+            return new OrderMatcher(keyDictionary, OrderMatcher.OrderDistance.KENDALL_TAU);
+        } else if (name.equals("euclidean")) {
+            return new EuclideanMatcher(keyDictionary, EuclideanMatcher.DEFAULT_MISSING_STRENGTH, EuclideanMatcher.DEFAULT_NEAREST_AMOUNT);
+        } else if (name.equals("lsh")) {
+            return new LshMatcher(keyDictionary, EuclideanMatcher.DEFAULT_MISSING_STRENGTH, EuclideanMatcher.DEFAULT_NEAREST_AMOUNT, LshMatcher.DEFAULT_TABLE_AMOUNT,
+                    LshMatcher.DEFAULT_HASH_AMOUNT, LshMatcher.DEFAULT_BUCKET_WIDTH);
+        } else if (name.equals("pruning")) {
+            return new PruningMatcher(new EuclideanMatcher(keyDictionary, EuclideanMatcher.DEFAULT_MISSING_STRENGTH, EuclideanMatcher.DEFAULT_NEAREST_AMOUNT));
+        }
+        throw new IllegalArgumentException("unknown matcher " + name);
+    }
+
+    private CachingManager createCachingManager(String name) {
+        if (name.equals("plain")) {
+            return new CachingManager();
+        } else if (name.equals("balance")) {
+            return new BalanceCachingManager(3);
+        } else if (name.equals("decay")) {
+            return new DecayCachingManager(new SignalKeyDictionary(), 2000, 8000) {
+                @Override
+                protected long currentTime() {
+                    return currentTime[0];
+                }
+            };
+        } else if (name.equals("kalman")) {
+            return new KalmanCachingManager(new SignalKeyDictionary(), 1.0, 16.0, 10000) {
+                @Override
+                protected long currentTime() {
+                    return currentTime[0];
+                }
+            };
+        } else if (name.equals("robust")) {
+            return new RobustCachingManager(new SignalKeyDictionary(), 5, RobustCachingManager.Aggregation.MEDIAN, 0.0, 10000) {
+                @Override
+                protected long currentTime() {
+                    return currentTime[0];
+                }
+            };
+        }
+        throw new IllegalArgumentException("unknown caching manager " + name);
+    }
+
+    private static double distance(double x, double y, double z, Scan scan) {
+        double dx = x - scan.x;
+        double dy = y - scan.y;
+        double dz = z - scan.z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private static long allocatedBytes(ThreadMXBean threadBean, long threadId) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(threadId);
+        }
+        return 0;
+    }
+
+    private static List<Scan> readTrace(String fileName) throws IOException {
+        List<Scan> scans = new ArrayList<Scan>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), "UTF-8"));
+        try {
+            Scan scan = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                if (values.length != 6) {
+                    continue;
+                }
+                long time;
+                try {
+                    time = Long.parseLong(values[0].trim());
+                } catch (NumberFormatException e) {
+                    // skips the header
+                    continue;
+                }
+                if (scan == null || scan.time != time) {
+                    scan = new Scan(time, Integer.parseInt(values[1].trim()), Integer.parseInt(values[2].trim()), Integer.parseInt(values[3].trim()));
+                    scans.add(scan);
+                }
+                scan.signalData.put(values[4].trim(), new SignalInformation(Double.parseDouble(values[5].trim())));
+            }
+        } finally {
+            reader.close();
+        }
+        return scans;
+    }
+
+    private static List<Scan> createTrace(PositioningPersistenceReader persistence) {
+        Random random = new Random(42);
+        List<Scan> scans = new ArrayList<Scan>();
+        long time = 0;
+        for (PositionInformation position : persistence.getPositions()) {
+            MappingPoint mappingPoint = persistence.getMappingPoint(position);
+            if (mappingPoint == null) {
+                continue;
+            }
+            Scan scan = new Scan(time, mappingPoint.getX(), mappingPoint.getY(), mappingPoint.getZ());
+            for (Map.Entry<String, SignalInformation> entry : position.getSignalInformation().entrySet()) {
+                if (random.nextInt(10) != 0) {
+                    scan.signalData.put(entry.getKey(), new SignalInformation(Math.round(entry.getValue().getStrength() + 4 * random.nextGaussian())));
+                }
+            }
+            scans.add(scan);
+            time += 1000;
+        }
+        return scans;
+    }
+
+    /**
+     * Signal data of one scan cycle with its ground truth
+     */
+    private static final class Scan {
+        private final long time;
+        private final int x;
+        private final int y;
+        private final int z;
+        private final Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+
+        private Scan(long time, int x, int y, int z) {
+            this.time = time;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+
+    /**
+     * Collected measurements of one replay
+     */
+    private static final class Result {
+        private final double[] errors;
+        private final double[] weightedErrors;
+        private final long[] latencies;
+        private long allocatedBytes;
+        private int size;
+        private int errorAmount;
+        private int weightedErrorAmount;
+
+        private Result(int capacity) {
+            errors = new double[capacity];
+            weightedErrors = new double[capacity];
+            latencies = new long[capacity];
+        }
+
+        private void add(double error, double weightedError, long latency, long allocatedBytes) {
+            if (!Double.isNaN(error)) {
+                errors[errorAmount++] = error;
+            }
+            if (!Double.isNaN(weightedError)) {
+                weightedErrors[weightedErrorAmount++] = weightedError;
+            }
+            latencies[size++] = latency;
+            this.allocatedBytes += allocatedBytes;
+        }
+
+        private void print(String cachingName, String matcherName) {
+            Arrays.sort(errors, 0, errorAmount);
+            Arrays.sort(weightedErrors, 0, weightedErrorAmount);
+            Arrays.sort(latencies, 0, size);
+            System.out.println(String.format("%-10s %-11s %9.2f %9.2f %9.2f %9.2f %9.1f %9.1f %9.1f %11d", cachingName, matcherName,
+                    mean(errors, errorAmount), percentile(errors, errorAmount, 0.9), mean(weightedErrors, weightedErrorAmount),
+                    percentile(weightedErrors, weightedErrorAmount, 0.9), percentile(latencies, size, 0.5) / 1000.0,
+                    percentile(latencies, size, 0.9) / 1000.0, percentile(latencies, size, 0.99) / 1000.0, size > 0 ? allocatedBytes / size : 0));
+        }
+
+        private static double mean(double[] values, int amount) {
+            double sum = 0.0;
+            for (int i = 0; i < amount; i++) {
+                sum += values[i];
+            }
+            return amount > 0 ? sum / amount : Double.NaN;
+        }
+
+        private static double percentile(double[] sortedValues, int amount, double percentile) {
+            return amount > 0 ? sortedValues[Math.min(amount - 1, (int) (amount * percentile))] : Double.NaN;
+        }
+
+        private static double percentile(long[] sortedValues, int amount, double percentile) {
+            return amount > 0 ? sortedValues[Math.min(amount - 1, (int) (amount * percentile))] : Double.NaN;
+        }
+    }
+}
@@ -5,12 +5,34 @@ import de.hadizadeh.positioning.controller.CachingManager;
 import de.hadizadeh.positioning.model.SignalInformation;
 
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.Map;
 
 /**
- * Caching manager which callifies all signal data balanced
+ * Caching manager which callifies all signal data balanced.
+ * Keeps running sums per key over the sliding window of cached signal data, so only added and evicted signal data have to be
+ * processed instead of the whole cache. The amount of keys can be limited, least recently received keys will be evicted.
  */
 public class BalanceCachingManager extends CachingManager {
+    private int maxKeys;
+    private long evictedKeyAmount;
+    private long summedDataAmount;
+    private Map<String, RunningSum> runningSums = new LinkedHashMap<String, RunningSum>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RunningSum> eldest) {
+            if (maxKeys > 0 && size() > maxKeys) {
+                runningSumIndex.remove(eldest.getKey());
+                evictedKeyAmount++;
+                return true;
+            }
+            return false;
+        }
+    };
+    // lookups of evicted signal data must not count as a reception in the access ordered running sums
+    private Map<String, RunningSum> runningSumIndex = new HashMap<String, RunningSum>();
+    private LinkedList<Map<String, SignalInformation>> summedData = new LinkedList<Map<String, SignalInformation>>();
 
     /**
      * Creates a caching manager with a default caching size of 1.
@@ -28,6 +50,17 @@ public class BalanceCachingManager extends CachingManager {
         init(cacheSize);
     }
 
+    /**
+     * Creates a caching manager with a given caching size and a limited amount of keys.
+     *
+     * @param cacheSize caching size
+     * @param maxKeys   maximum amount of keys, 0 if the amount is not limited
+     */
+    public BalanceCachingManager(int cacheSize, int maxKeys) {
+        init(cacheSize);
+        this.maxKeys = maxKeys;
+    }
+
     /**
      * Interpolates caching data.
      * Classifies all signal data balanced.
@@ -36,25 +69,112 @@ public class BalanceCachingManager extends CachingManager {
      */
     @Override
     public Map<String, SignalInformation> interpolateData() {
-        Map<String, SignalInformation> result = new HashMap<String, SignalInformation>();
-        Map<String, Integer> amounts = new HashMap<String, Integer>();
-        if (cachingData != null) {
-            for (Map<String, SignalInformation> cachingElement : cachingData) {
-                for (Map.Entry<String, SignalInformation> positionElement : cachingElement.entrySet()) {
-                    double value = positionElement.getValue().getStrength();
-                    int amount = 1;
-                    if (result.containsKey(positionElement.getKey())) {
-                        value += result.get(positionElement.getKey()).getStrength();
-                        amount += amounts.get(positionElement.getKey());
-                    }
-                    amounts.put(positionElement.getKey(), amount);
-                    result.put(positionElement.getKey(), new SignalInformation(value));
-                }
+        updateRunningSums();
+        Map<String, SignalInformation> result = new HashMap<String, SignalInformation>(runningSums.size() * 4 / 3 + 1);
+        for (Map.Entry<String, RunningSum> runningSum : runningSums.entrySet()) {
+            result.put(runningSum.getKey(), new SignalInformation(runningSum.getValue().sum / runningSum.getValue().amount));
+        }
+        return result;
+    }
+
+    /**
+     * Synchronizes the running sums with the cached data. Signal data which have been evicted from the head of the cache are
+     * subtracted, new signal data at the tail are added.
+     */
+    private void updateRunningSums() {
+        if (cachingData == null || cachingData.isEmpty()) {
+            if (!summedData.isEmpty()) {
+                summedData.clear();
+                runningSums.clear();
+                runningSumIndex.clear();
             }
-            for (Map.Entry<String, SignalInformation> signalInformation : result.entrySet()) {
-                signalInformation.getValue().setStrength(signalInformation.getValue().getStrength() / amounts.get(signalInformation.getKey()));
+            return;
+        }
+        Map<String, SignalInformation> firstCachingElement = cachingData.getFirst();
+        while (!summedData.isEmpty() && summedData.getFirst() != firstCachingElement) {
+            subtract(summedData.removeFirst(), summedDataAmount - summedData.size() - 1);
+        }
+        if (summedData.size() < cachingData.size()) {
+            Iterator<Map<String, SignalInformation>> newCachingElements = cachingData.listIterator(summedData.size());
+            while (newCachingElements.hasNext()) {
+                Map<String, SignalInformation> cachingElement = newCachingElements.next();
+                add(cachingElement, summedDataAmount);
+                summedData.add(cachingElement);
+                summedDataAmount++;
             }
         }
-        return result;
+    }
+
+    private void add(Map<String, SignalInformation> cachingElement, long cachingElementNumber) {
+        if (cachingElement == null) {
+            return;
+        }
+        for (Map.Entry<String, SignalInformation> positionElement : cachingElement.entrySet()) {
+            RunningSum runningSum = runningSums.get(positionElement.getKey());
+            if (runningSum == null) {
+                runningSum = new RunningSum();
+                runningSum.firstCachingElementNumber = cachingElementNumber;
+                runningSumIndex.put(positionElement.getKey(), runningSum);
+                runningSums.put(positionElement.getKey(), runningSum);
+            }
+            runningSum.sum += positionElement.getValue().getStrength();
+            runningSum.amount++;
+        }
+    }
+
+    private void subtract(Map<String, SignalInformation> cachingElement, long cachingElementNumber) {
+        if (cachingElement == null) {
+            return;
+        }
+        for (Map.Entry<String, SignalInformation> positionElement : cachingElement.entrySet()) {
+            RunningSum runningSum = runningSumIndex.get(positionElement.getKey());
+            // keys which have been evicted and received again are not part of the older signal data sums
+            if (runningSum != null && runningSum.firstCachingElementNumber <= cachingElementNumber) {
+                runningSum.amount--;
+                if (runningSum.amount <= 0) {
+                    // removing the key also discards accumulated rounding errors
+                    runningSums.remove(positionElement.getKey());
+                    runningSumIndex.remove(positionElement.getKey());
+                } else {
+                    runningSum.sum -= positionElement.getValue().getStrength();
+                }
+            }
+        }
+    }
+
+    /**
+     * Limits the amount of keys. If a new key exceeds the limit, the least recently received key will be evicted.
+     *
+     * @param maxKeys maximum amount of keys, 0 if the amount is not limited
+     */
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Returns the maximum amount of keys
+     *
+     * @return maximum amount of keys, 0 if the amount is not limited
+     */
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * Returns how many keys have been evicted because the maximum amount of keys has been reached
+     *
+     * @return amount of evicted keys
+     */
+    public long getEvictedKeyAmount() {
+        return evictedKeyAmount;
+    }
+
+    /**
+     * Sum and amount of the cached signal strengths of a single key
+     */
+    private static class RunningSum {
+        private double sum;
+        private int amount;
+        private long firstCachingElementNumber;
     }
 }
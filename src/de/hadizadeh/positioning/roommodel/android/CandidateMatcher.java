@@ -0,0 +1,33 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matcher which can match only candidates out of the persisted fingerprints. The index of the matcher is built over all
+ * persisted fingerprints, so it is not rebuilt if the candidates change between matchings.
+ */
+public interface CandidateMatcher {
+    /**
+     * Matches the fingerprint against the candidates
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions all persisted fingerprints
+     * @param candidates         persisted fingerprints which can be returned, compared by identity
+     * @param ignoreDisabledAPs  passed like in the default matching
+     * @return matched candidates
+     */
+    Map<PositionInformation, Double> nearestNeighbour(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, Set<PositionInformation> candidates, boolean ignoreDisabledAPs);
+
+    /**
+     * Forces the index to be synchronized with the persisted fingerprints for the next matching. Has to be called if persisted
+     * fingerprints are replaced or their signal data is modified without changing the size of the list.
+     */
+    void invalidate();
+}
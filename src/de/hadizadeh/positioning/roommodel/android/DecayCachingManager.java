@@ -0,0 +1,83 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+
+import java.util.Arrays;
+
+/**
+ * Caching manager which keeps an exponentially weighted moving average per signal key. The weight of old samples decays with
+ * the real elapsed time since the last sample of the key, so technologies with different scan rates are smoothed equally.
+ * Samples of a key within the same millisecond, e.g. of two technologies or of a batch, are combined by their mean.
+ */
+public class DecayCachingManager extends KeyedCachingManager {
+    private long halfLife;
+    private double[] averages;
+    private double[] previousAverages;
+    private double[] weights;
+    private double[] sampleSums;
+    private int[] sampleAmounts;
+
+    /**
+     * Creates a caching manager using the shared key dictionary. Keys expire after four half-lives without new samples.
+     *
+     * @param halfLife time in milliseconds after which the weight of a sample is halved
+     */
+    public DecayCachingManager(long halfLife) {
+        this(SignalKeyDictionary.getInstance(), halfLife, halfLife * 4);
+    }
+
+    /**
+     * Creates a caching manager
+     *
+     * @param keyDictionary dictionary for looking up the ids of the signal keys
+     * @param halfLife      time in milliseconds after which the weight of a sample is halved
+     * @param maxAge        time in milliseconds after which a key without new samples will be removed, 0 if keys never expire
+     */
+    public DecayCachingManager(SignalKeyDictionary keyDictionary, long halfLife, long maxAge) {
+        super(keyDictionary, maxAge);
+        this.halfLife = Math.max(1, halfLife);
+        this.averages = new double[0];
+        this.previousAverages = new double[0];
+        this.weights = new double[0];
+        this.sampleSums = new double[0];
+        this.sampleAmounts = new int[0];
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        averages = Arrays.copyOf(averages, capacity);
+        previousAverages = Arrays.copyOf(previousAverages, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        sampleSums = Arrays.copyOf(sampleSums, capacity);
+        sampleAmounts = Arrays.copyOf(sampleAmounts, capacity);
+    }
+
+    @Override
+    protected void updateState(int slot, double strength, boolean firstSample, long elapsedTime) {
+        if (firstSample || elapsedTime > 0) {
+            previousAverages[slot] = firstSample ? strength : averages[slot];
+            weights[slot] = firstSample ? 1.0 : 1.0 - Math.pow(0.5, (double) elapsedTime / halfLife);
+            sampleSums[slot] = strength;
+            sampleAmounts[slot] = 1;
+        } else {
+            // the weight of a sample without elapsed time would be 0
+            sampleSums[slot] += strength;
+            sampleAmounts[slot]++;
+        }
+        double previousAverage = previousAverages[slot];
+        averages[slot] = previousAverage + weights[slot] * (sampleSums[slot] / sampleAmounts[slot] - previousAverage);
+    }
+
+    @Override
+    protected double estimate(int slot) {
+        return averages[slot];
+    }
+
+    /**
+     * Returns the half-life of samples
+     *
+     * @return half-life in milliseconds
+     */
+    public long getHalfLife() {
+        return halfLife;
+    }
+}
@@ -0,0 +1,63 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+/**
+ * Continuous position between the mapping points, in map segment units: column x covers the range [x, x + 1). Instances are
+ * mutable, so one instance can be reused for every positioning cycle.
+ */
+public class EstimatedPosition {
+    private float x;
+    private float y;
+    private int z;
+    private float radius;
+
+    /**
+     * Sets the position
+     *
+     * @param x      column coordinate
+     * @param y      row coordinate
+     * @param z      z value of the floor, like the z value of mapping points
+     * @param radius uncertainty radius in map segments
+     */
+    public void set(float x, float y, int z, float radius) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.radius = radius;
+    }
+
+    /**
+     * Returns the column coordinate
+     *
+     * @return x coordinate
+     */
+    public float getX() {
+        return x;
+    }
+
+    /**
+     * Returns the row coordinate
+     *
+     * @return y coordinate
+     */
+    public float getY() {
+        return y;
+    }
+
+    /**
+     * Returns the z value of the floor
+     *
+     * @return z value
+     */
+    public int getZ() {
+        return z;
+    }
+
+    /**
+     * Returns the uncertainty radius, the weighted root mean square distance of the used mapping points to the position
+     *
+     * @return radius in map segments
+     */
+    public float getRadius() {
+        return radius;
+    }
+}
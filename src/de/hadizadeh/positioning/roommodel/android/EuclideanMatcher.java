@@ -0,0 +1,334 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.controller.Matcher;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Matcher which searches the k nearest persisted fingerprints by euclidean distance in a {@link FingerprintIndex}, by default a
+ * {@link VantagePointTree}. Keys which are missing in a fingerprint have a floor strength. Positions which are mapped after the
+ * index has been built are matched linearly until they exceed a ratio of the index size, then the index is rebuilt in a
+ * background thread while matching continues with the old index. Rebuilds which are requested while a rebuild is running are
+ * coalesced, only the latest positions are built afterwards.
+ */
+public class EuclideanMatcher extends Matcher implements TopKMatcher, CandidateMatcher {
+    /**
+     * default strength of missing keys in dBm
+     */
+    public static final float DEFAULT_MISSING_STRENGTH = -100.0f;
+    /**
+     * default amount of nearest fingerprints which are returned by the default matching
+     */
+    public static final int DEFAULT_NEAREST_AMOUNT = 10;
+
+    protected SignalKeyDictionary keyDictionary;
+    protected float missingStrength;
+    protected int nearestAmount;
+    protected double rebuildRatio = 0.1;
+    private static ExecutorService rebuildExecutor;
+    private volatile FingerprintIndex index;
+    private final AtomicReference<PositionInformation[]> rebuildPositions = new AtomicReference<PositionInformation[]>();
+    private final Runnable rebuildTask = new Runnable() {
+        @Override
+        public void run() {
+            rebuild();
+        }
+    };
+    private FingerprintIndex synchronizedIndex;
+    private PersistedPositionsTracker synchronizedPositions = new PersistedPositionsTracker();
+    private List<PositionInformation> pendingPositions = new ArrayList<PositionInformation>();
+    private List<Map<?, ?>> pendingSignalInformation = new ArrayList<Map<?, ?>>();
+    private List<Fingerprint> pendingFingerprints = new ArrayList<Fingerprint>();
+    private Set<PositionInformation> removedPositions = Collections.newSetFromMap(new IdentityHashMap<PositionInformation, Boolean>());
+    private Fingerprint liveFingerprint = new Fingerprint();
+
+    /**
+     * Creates the matcher with a floor of -100 dBm, using the shared key dictionary
+     */
+    public EuclideanMatcher() {
+        this(SignalKeyDictionary.getInstance(), DEFAULT_MISSING_STRENGTH, DEFAULT_NEAREST_AMOUNT);
+    }
+
+    /**
+     * Creates the matcher
+     *
+     * @param keyDictionary   dictionary for interning the signal keys
+     * @param missingStrength strength of missing keys
+     * @param nearestAmount   amount of nearest fingerprints which are returned by the default matching
+     */
+    public EuclideanMatcher(SignalKeyDictionary keyDictionary, float missingStrength, int nearestAmount) {
+        this.keyDictionary = keyDictionary;
+        this.missingStrength = missingStrength;
+        this.nearestAmount = nearestAmount;
+    }
+
+    /**
+     * Matches the fingerprints by euclidean distance, only the nearest fingerprints are returned
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions persisted fingerprints
+     * @param ignoreDisabledAPs  not in use for this implementation
+     * @return nearest fingerprints with their distances, ordered by distance ascending
+     */
+    @Override
+    public Map<PositionInformation, Double> nearestNeighbour(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, boolean ignoreDisabledAPs) {
+        return nearestNeighbours(cachingManager, fingerPrint, persistedPositions, nearestAmount).toMap();
+    }
+
+    /**
+     * Matches the fingerprints by euclidean distance and keeps only the k nearest ones
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions persisted fingerprints
+     * @param k                  maximum amount of returned fingerprints
+     * @return nearest fingerprints, sorted by distance ascending
+     */
+    @Override
+    public NearestPositions nearestNeighbours(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, int k) {
+        return nearestNeighbours(cachingManager, fingerPrint, persistedPositions, null, k);
+    }
+
+    /**
+     * Matches the candidates by euclidean distance, only the nearest candidates are returned. The index stays built over all
+     * persisted fingerprints.
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions all persisted fingerprints
+     * @param candidates         persisted fingerprints which can be returned, compared by identity
+     * @param ignoreDisabledAPs  not in use for this implementation
+     * @return nearest candidates with their distances, ordered by distance ascending
+     */
+    @Override
+    public Map<PositionInformation, Double> nearestNeighbour(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, Set<PositionInformation> candidates, boolean ignoreDisabledAPs) {
+        return nearestNeighbours(cachingManager, fingerPrint, persistedPositions, candidates, nearestAmount).toMap();
+    }
+
+    /**
+     * Matches the candidates by euclidean distance and keeps only the k nearest ones
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions all persisted fingerprints
+     * @param candidates         persisted fingerprints which can be returned, compared by identity, null for all fingerprints
+     * @param k                  maximum amount of returned fingerprints
+     * @return nearest candidates, sorted by distance ascending
+     */
+    public NearestPositions nearestNeighbours(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, Set<PositionInformation> candidates, int k) {
+        cachingManager.addData(fingerPrint);
+        synchronize(persistedPositions);
+        liveFingerprint.setLiveSignalData(cachingManager.interpolateData(), keyDictionary);
+
+        NearestPositions nearestPositions = new NearestPositions(k);
+        if (synchronizedIndex != null) {
+            synchronizedIndex.search(liveFingerprint, nearestPositions, candidates, removedPositions.isEmpty() ? null : removedPositions);
+        }
+        for (int i = 0; i < pendingPositions.size(); i++) {
+            if (candidates != null && !candidates.contains(pendingPositions.get(i))) {
+                continue;
+            }
+            double distance = Math.sqrt(liveFingerprint.squaredDistance(pendingFingerprints.get(i), missingStrength));
+            if (distance < nearestPositions.getBound()) {
+                nearestPositions.offer(pendingPositions.get(i), distance);
+            }
+        }
+        nearestPositions.sort();
+        return nearestPositions;
+    }
+
+    /**
+     * Builds the index on the calling thread. Can be called after loading the fingerprints, so the first positioning cycle does
+     * not match linearly.
+     *
+     * @param persistedPositions persisted fingerprints
+     */
+    public void prepare(List<PositionInformation> persistedPositions) {
+        index = buildIndex(persistedPositions.toArray(new PositionInformation[persistedPositions.size()]), index);
+    }
+
+    /**
+     * Sets the ratio of changed positions (mapped after the index has been built or removed) to the index size from which on
+     * the index is rebuilt
+     *
+     * @param rebuildRatio ratio, e.g. 0.1
+     */
+    public void setRebuildRatio(double rebuildRatio) {
+        this.rebuildRatio = rebuildRatio;
+    }
+
+    /**
+     * Returns the amount of positions which are matched linearly because they are not part of the index yet
+     *
+     * @return amount of positions
+     */
+    public int getPendingAmount() {
+        return pendingPositions.size();
+    }
+
+    /**
+     * Returns true while the index is rebuilt in the background
+     *
+     * @return true, if the index is rebuilt
+     */
+    public boolean isRebuilding() {
+        return rebuildPositions.get() != null;
+    }
+
+    /**
+     * Returns the current index, e.g. to read its statistics
+     *
+     * @return index or null, if no index has been built yet
+     */
+    public FingerprintIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Compares the persisted positions with the index for the next matching. Has to be called if persisted fingerprints are
+     * replaced or their signal data is modified without changing the size of the list.
+     */
+    @Override
+    public void invalidate() {
+        synchronizedPositions.invalidate();
+    }
+
+    /**
+     * Returns the executor which rebuilds the indices of all euclidean matchers, it has a single daemon thread
+     *
+     * @return shared executor
+     */
+    public static synchronized ExecutorService getRebuildExecutor() {
+        if (rebuildExecutor == null) {
+            rebuildExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "EuclideanMatcherRebuild");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return rebuildExecutor;
+    }
+
+    /**
+     * Compares the persisted positions with the index, positions which are not indexed are matched linearly and positions which
+     * have been removed are skipped. Starts a rebuild if too many positions have changed.
+     */
+    private void synchronize(List<PositionInformation> persistedPositions) {
+        FingerprintIndex currentIndex = index;
+        if (currentIndex == synchronizedIndex && !synchronizedPositions.hasChanged(persistedPositions)) {
+            return;
+        }
+        synchronizedPositions.synchronize(persistedPositions);
+        Map<PositionInformation, Integer> knownPendingPositions = new IdentityHashMap<PositionInformation, Integer>();
+        for (int i = 0; i < pendingPositions.size(); i++) {
+            knownPendingPositions.put(pendingPositions.get(i), i);
+        }
+        List<Fingerprint> knownFingerprints = new ArrayList<Fingerprint>(pendingFingerprints);
+        List<Map<?, ?>> knownSignalInformation = new ArrayList<Map<?, ?>>(pendingSignalInformation);
+        pendingPositions.clear();
+        pendingSignalInformation.clear();
+        pendingFingerprints.clear();
+        removedPositions.clear();
+        Set<PositionInformation> persistedSet = Collections.newSetFromMap(new IdentityHashMap<PositionInformation, Boolean>());
+        for (PositionInformation position : persistedPositions) {
+            persistedSet.add(position);
+            if (currentIndex == null || !currentIndex.contains(position)) {
+                Map<String, SignalInformation> signalInformation = position.getSignalInformation();
+                Integer knownIndex = knownPendingPositions.get(position);
+                Fingerprint fingerprint;
+                if (knownIndex != null && knownSignalInformation.get(knownIndex) == signalInformation) {
+                    fingerprint = knownFingerprints.get(knownIndex);
+                } else {
+                    fingerprint = Fingerprint.fromSignalData(signalInformation, keyDictionary);
+                }
+                pendingPositions.add(position);
+                pendingSignalInformation.add(signalInformation);
+                pendingFingerprints.add(fingerprint);
+            }
+        }
+        if (currentIndex != null) {
+            for (int i = 0; i < currentIndex.size(); i++) {
+                PositionInformation position = currentIndex.getPosition(i);
+                if (!persistedSet.contains(position) || !currentIndex.contains(position)) {
+                    removedPositions.add(position);
+                }
+            }
+        }
+        synchronizedIndex = currentIndex;
+        int indexSize = currentIndex != null ? currentIndex.size() : 0;
+        if (pendingPositions.size() + removedPositions.size() > Math.max(1, (int) (indexSize * rebuildRatio))) {
+            rebuildInBackground(persistedPositions.toArray(new PositionInformation[persistedPositions.size()]));
+        }
+    }
+
+    private void rebuildInBackground(PositionInformation[] positions) {
+        if (rebuildPositions.getAndSet(positions) == null) {
+            getRebuildExecutor().execute(rebuildTask);
+        }
+    }
+
+    /**
+     * Builds the latest requested positions until no newer positions have been requested during the build
+     */
+    private void rebuild() {
+        PositionInformation[] positions = rebuildPositions.get();
+        try {
+            while (true) {
+                index = buildIndex(positions, index);
+                if (rebuildPositions.compareAndSet(positions, null)) {
+                    return;
+                }
+                positions = rebuildPositions.get();
+            }
+        } catch (RuntimeException e) {
+            rebuildPositions.set(null);
+            throw e;
+        }
+    }
+
+    private FingerprintIndex buildIndex(PositionInformation[] positions, FingerprintIndex currentIndex) {
+        Map<PositionInformation, Fingerprint> knownFingerprints = new IdentityHashMap<PositionInformation, Fingerprint>();
+        if (currentIndex != null) {
+            for (int i = 0; i < currentIndex.size(); i++) {
+                if (currentIndex.contains(currentIndex.getPosition(i))) {
+                    knownFingerprints.put(currentIndex.getPosition(i), currentIndex.getFingerprint(i));
+                }
+            }
+        }
+        Fingerprint[] fingerprints = new Fingerprint[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            fingerprints[i] = knownFingerprints.get(positions[i]);
+            if (fingerprints[i] == null) {
+                fingerprints[i] = Fingerprint.fromSignalData(positions[i].getSignalInformation(), keyDictionary);
+            }
+        }
+        return createIndex(positions, fingerprints);
+    }
+
+    /**
+     * Creates the index over the persisted fingerprints, builds a vantage point tree by default
+     *
+     * @param positions    persisted positions
+     * @param fingerprints fingerprints of the positions
+     * @return index
+     */
+    protected FingerprintIndex createIndex(PositionInformation[] positions, Fingerprint[] fingerprints) {
+        return new VantagePointTree(positions, fingerprints, missingStrength);
+    }
+}
@@ -0,0 +1,291 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Primitive representation of signal data. Stores key ids of a {@link SignalKeyDictionary} ascending with their strengths in
+ * parallel arrays. Instances are mutable and can be reused for every positioning cycle.
+ */
+public class Fingerprint {
+    private int[] keyIds;
+    private float[] strengths;
+    private long[] sortBuffer;
+    private int size;
+    private boolean sorted = true;
+
+    /**
+     * Creates an empty fingerprint with a default capacity of 16 keys
+     */
+    public Fingerprint() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty fingerprint
+     *
+     * @param capacity initial amount of keys which can be stored without growing
+     */
+    public Fingerprint(int capacity) {
+        capacity = Math.max(1, capacity);
+        keyIds = new int[capacity];
+        strengths = new float[capacity];
+    }
+
+    /**
+     * Creates a fingerprint out of signal data
+     *
+     * @param signalData    signal data
+     * @param keyDictionary dictionary for interning the keys
+     * @return fingerprint
+     */
+    public static Fingerprint fromSignalData(Map<String, SignalInformation> signalData, SignalKeyDictionary keyDictionary) {
+        Fingerprint fingerprint = new Fingerprint(signalData != null ? signalData.size() : 0);
+        fingerprint.setSignalData(signalData, keyDictionary);
+        return fingerprint;
+    }
+
+    /**
+     * Replaces the content of this fingerprint with signal data
+     *
+     * @param signalData    signal data, can be null
+     * @param keyDictionary dictionary for interning the keys
+     */
+    public void setSignalData(Map<String, SignalInformation> signalData, SignalKeyDictionary keyDictionary) {
+        clear();
+        if (signalData != null) {
+            for (Map.Entry<String, SignalInformation> signalElement : signalData.entrySet()) {
+                add(keyDictionary.intern(signalElement.getKey()), (float) signalElement.getValue().getStrength());
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of this fingerprint with live signal data without interning new keys. Keys which are not known by the
+     * dictionary get negative ids which are only valid within this fingerprint, so they match no persisted key like a newly
+     * interned key, but the dictionary does not grow with every key which is received.
+     *
+     * @param signalData    signal data, can be null
+     * @param keyDictionary dictionary which has interned the persisted keys
+     */
+    public void setLiveSignalData(Map<String, SignalInformation> signalData, SignalKeyDictionary keyDictionary) {
+        clear();
+        if (signalData != null) {
+            int unknownKeyId = 0;
+            for (Map.Entry<String, SignalInformation> signalElement : signalData.entrySet()) {
+                int keyId = keyDictionary.getId(signalElement.getKey());
+                add(keyId >= 0 ? keyId : --unknownKeyId, (float) signalElement.getValue().getStrength());
+            }
+        }
+    }
+
+    /**
+     * Converts the fingerprint back to signal data, keys with negative ids are skipped because their key is not known
+     *
+     * @param keyDictionary dictionary which has interned the keys
+     * @return signal data
+     */
+    public Map<String, SignalInformation> toSignalData(SignalKeyDictionary keyDictionary) {
+        ensureSorted();
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            if (keyIds[i] >= 0) {
+                signalData.put(keyDictionary.getKey(keyIds[i]), new SignalInformation(strengths[i]));
+            }
+        }
+        return signalData;
+    }
+
+    /**
+     * Copies the content of another fingerprint into this one
+     *
+     * @param fingerprint fingerprint to copy
+     */
+    public void set(Fingerprint fingerprint) {
+        fingerprint.ensureSorted();
+        clear();
+        ensureCapacity(fingerprint.size);
+        System.arraycopy(fingerprint.keyIds, 0, keyIds, 0, fingerprint.size);
+        System.arraycopy(fingerprint.strengths, 0, strengths, 0, fingerprint.size);
+        size = fingerprint.size;
+    }
+
+    /**
+     * Adds a key with its strength. Every key should be added only once, duplicates will be dropped.
+     *
+     * @param keyId    id of the key
+     * @param strength signal strength
+     */
+    public void add(int keyId, float strength) {
+        ensureCapacity(size + 1);
+        if (size > 0 && keyIds[size - 1] >= keyId) {
+            sorted = false;
+        }
+        keyIds[size] = keyId;
+        strengths[size] = strength;
+        size++;
+    }
+
+    /**
+     * Removes all keys
+     */
+    public void clear() {
+        size = 0;
+        sorted = true;
+    }
+
+    /**
+     * Returns the amount of keys
+     *
+     * @return amount of keys
+     */
+    public int size() {
+        ensureSorted();
+        return size;
+    }
+
+    /**
+     * Returns the key id at a position, key ids are ordered ascending
+     *
+     * @param index position
+     * @return key id
+     */
+    public int getKeyId(int index) {
+        ensureSorted();
+        return keyIds[index];
+    }
+
+    /**
+     * Returns the signal strength at a position
+     *
+     * @param index position
+     * @return signal strength
+     */
+    public float getStrength(int index) {
+        ensureSorted();
+        return strengths[index];
+    }
+
+    /**
+     * Searches the position of a key
+     *
+     * @param keyId id of the key
+     * @return position of the key or a negative value, if the key is not included
+     */
+    public int indexOf(int keyId) {
+        ensureSorted();
+        return Arrays.binarySearch(keyIds, 0, size, keyId);
+    }
+
+    /**
+     * Returns the signal strength of a key
+     *
+     * @param keyId           id of the key
+     * @param missingStrength strength which will be returned if the key is not included
+     * @return signal strength
+     */
+    public float getStrengthOfKey(int keyId, float missingStrength) {
+        int index = indexOf(keyId);
+        if (index >= 0) {
+            return strengths[index];
+        }
+        return missingStrength;
+    }
+
+    /**
+     * Calculates the squared euclidean distance to another fingerprint. Keys which are missing in one of the fingerprints are
+     * compared with a floor strength, so the result equals the distance of dense vectors without storing them.
+     *
+     * @param fingerprint     other fingerprint
+     * @param missingStrength strength of missing keys, e.g. -100 dBm
+     * @return squared distance
+     */
+    public double squaredDistance(Fingerprint fingerprint, float missingStrength) {
+        ensureSorted();
+        fingerprint.ensureSorted();
+        double squaredDistance = 0.0;
+        int i = 0;
+        int k = 0;
+        while (i < size || k < fingerprint.size) {
+            double difference;
+            if (k == fingerprint.size || (i < size && keyIds[i] < fingerprint.keyIds[k])) {
+                difference = strengths[i++] - missingStrength;
+            } else if (i == size || fingerprint.keyIds[k] < keyIds[i]) {
+                difference = fingerprint.strengths[k++] - missingStrength;
+            } else {
+                difference = strengths[i++] - fingerprint.strengths[k++];
+            }
+            squaredDistance += difference * difference;
+        }
+        return squaredDistance;
+    }
+
+    /**
+     * Writes all key ids ordered by their signal strength ascending. Keys with equal strengths are ordered by their key id.
+     *
+     * @param orderedKeyIds target array, must be at least as long as the amount of keys
+     * @return amount of written key ids
+     */
+    public int orderKeyIdsByStrength(int[] orderedKeyIds) {
+        ensureSorted();
+        if (sortBuffer == null || sortBuffer.length < size) {
+            sortBuffer = new long[keyIds.length];
+        }
+        for (int i = 0; i < size; i++) {
+            sortBuffer[i] = ((long) toOrderedBits(strengths[i]) << 32) | (keyIds[i] & 0xffffffffL);
+        }
+        Arrays.sort(sortBuffer, 0, size);
+        for (int i = 0; i < size; i++) {
+            orderedKeyIds[i] = (int) sortBuffer[i];
+        }
+        return size;
+    }
+
+    /**
+     * Converts a signal strength to an int which is ordered like the float, so strengths can be packed into sortable longs
+     *
+     * @param strength signal strength
+     * @return ordered bits
+     */
+    static int toOrderedBits(float strength) {
+        int strengthBits = Float.floatToIntBits(strength);
+        // flips the bits of negative values, so that the ints are ordered like the floats
+        return strengthBits ^ ((strengthBits >> 31) & 0x7fffffff);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keyIds.length) {
+            int newCapacity = Math.max(capacity, keyIds.length * 2);
+            keyIds = Arrays.copyOf(keyIds, newCapacity);
+            strengths = Arrays.copyOf(strengths, newCapacity);
+        }
+    }
+
+    private void ensureSorted() {
+        if (sorted) {
+            return;
+        }
+        if (sortBuffer == null || sortBuffer.length < size) {
+            sortBuffer = new long[keyIds.length];
+        }
+        // the key id is in the upper bits, so the packed values are ordered by key id
+        for (int i = 0; i < size; i++) {
+            sortBuffer[i] = ((long) keyIds[i] << 32) | (Float.floatToRawIntBits(strengths[i]) & 0xffffffffL);
+        }
+        Arrays.sort(sortBuffer, 0, size);
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            int keyId = (int) (sortBuffer[i] >>> 32);
+            if (newSize == 0 || keyIds[newSize - 1] != keyId) {
+                keyIds[newSize] = keyId;
+                strengths[newSize] = Float.intBitsToFloat((int) sortBuffer[i]);
+                newSize++;
+            }
+        }
+        size = newSize;
+        sorted = true;
+    }
+}
@@ -0,0 +1,52 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+
+import java.util.Set;
+
+/**
+ * Immutable index over persisted fingerprints for nearest neighbour searches in euclidean signal space
+ */
+public interface FingerprintIndex {
+    /**
+     * Searches the nearest fingerprints
+     *
+     * @param fingerprint       live fingerprint
+     * @param nearestPositions  result which keeps the nearest positions, can already contain positions
+     * @param includedPositions positions which can be kept, null if all positions can be kept
+     * @param excludedPositions positions which will be skipped, can be null
+     * @return amount of calculated distances
+     */
+    int search(Fingerprint fingerprint, NearestPositions nearestPositions, Set<PositionInformation> includedPositions, Set<PositionInformation> excludedPositions);
+
+    /**
+     * Checks if a position is indexed with its current signal data
+     *
+     * @param position persisted position
+     * @return true, if the position is indexed
+     */
+    boolean contains(PositionInformation position);
+
+    /**
+     * Returns the amount of indexed positions
+     *
+     * @return amount of positions
+     */
+    int size();
+
+    /**
+     * Returns an indexed position
+     *
+     * @param index position in the index
+     * @return position
+     */
+    PositionInformation getPosition(int index);
+
+    /**
+     * Returns the fingerprint of an indexed position, the fingerprint must not be modified
+     *
+     * @param index position in the index
+     * @return fingerprint
+     */
+    Fingerprint getFingerprint(int index);
+}
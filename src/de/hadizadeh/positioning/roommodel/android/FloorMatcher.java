@@ -0,0 +1,299 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.controller.Matcher;
+import de.hadizadeh.positioning.model.MappingPoint;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matcher which classifies the floor first and passes only the persisted positions of the likely floors to another matcher.
+ * Every floor has a centroid fingerprint, the mean strength of each key over all positions of the floor, missing keys count
+ * with a floor strength. The floor with the nearest centroid is matched, further floors only if their centroid is almost as
+ * near. Positions with an unknown floor are matched together with every floor. The floors of the positions are taken from
+ * their mapping points, the floor of a mapping point is its z value divided by the floor height like in the map. A
+ * {@link CandidateMatcher} receives all persisted positions together with the positions of the selected floors, so its index is
+ * built once over all positions.
+ */
+public class FloorMatcher extends Matcher {
+    /**
+     * default ratio of the nearest centroid distance up to which further floors are matched
+     */
+    public static final double DEFAULT_FLOOR_MARGIN = 1.05;
+    /**
+     * default maximum amount of matched floors
+     */
+    public static final int DEFAULT_MAX_FLOORS = 2;
+
+    private Matcher matcher;
+    private int floorHeight;
+    private SignalKeyDictionary keyDictionary;
+    private float missingStrength;
+    private double floorMargin = DEFAULT_FLOOR_MARGIN;
+    private int maxFloors = DEFAULT_MAX_FLOORS;
+    private Map<String, Integer> positionFloors = new HashMap<String, Integer>();
+    private PersistedPositionsTracker synchronizedPositions = new PersistedPositionsTracker();
+    private List<List<PositionInformation>> floorPositions = new ArrayList<List<PositionInformation>>();
+    private List<PositionInformation> unknownFloorPositions = new ArrayList<PositionInformation>();
+    private Fingerprint[] centroids = new Fingerprint[0];
+    private Fingerprint liveFingerprint = new Fingerprint();
+    private double[] centroidDistances = new double[0];
+    private int[] selectedFloors = new int[0];
+    private List<PositionInformation> mergedPositions = new ArrayList<PositionInformation>();
+    private List<Set<PositionInformation>> floorCandidates = new ArrayList<Set<PositionInformation>>();
+    private Map<BitSet, Set<PositionInformation>> mergedCandidates = new HashMap<BitSet, Set<PositionInformation>>();
+    private BitSet selectedFloorSet = new BitSet();
+
+    /**
+     * Creates the matcher with a floor strength of -100 dBm, using the shared key dictionary
+     *
+     * @param matcher     matcher which matches the positions of the selected floors
+     * @param floorHeight height of each floor
+     */
+    public FloorMatcher(Matcher matcher, int floorHeight) {
+        this(matcher, floorHeight, SignalKeyDictionary.getInstance(), EuclideanMatcher.DEFAULT_MISSING_STRENGTH);
+    }
+
+    /**
+     * Creates the matcher
+     *
+     * @param matcher         matcher which matches the positions of the selected floors
+     * @param floorHeight     height of each floor
+     * @param keyDictionary   dictionary for interning the signal keys
+     * @param missingStrength strength of missing keys in the centroids
+     */
+    public FloorMatcher(Matcher matcher, int floorHeight, SignalKeyDictionary keyDictionary, float missingStrength) {
+        this.matcher = matcher;
+        this.floorHeight = floorHeight;
+        this.keyDictionary = keyDictionary;
+        this.missingStrength = missingStrength;
+    }
+
+    /**
+     * Matches the positions of the likely floors with the wrapped matcher. A candidate matcher receives the candidates of the
+     * selected floors, which are kept per floor combination, so its index is not rebuilt when the selected floors change.
+     * Other matchers receive the list of the selected floors.
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions persisted fingerprints
+     * @param ignoreDisabledAPs  passed to the wrapped matcher
+     * @return matched positions of the selected floors
+     */
+    @Override
+    public Map<PositionInformation, Double> nearestNeighbour(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, boolean ignoreDisabledAPs) {
+        cachingManager.addData(fingerPrint);
+        Map<String, SignalInformation> interpolatedFingerPrint = cachingManager.interpolateData();
+        synchronize(persistedPositions);
+        int floorAmount = selectFloors(interpolatedFingerPrint);
+        if (floorAmount > 0 && matcher instanceof CandidateMatcher) {
+            return ((CandidateMatcher) matcher).nearestNeighbour(new SnapshotCachingManager(interpolatedFingerPrint), interpolatedFingerPrint, persistedPositions, getCandidates(floorAmount), ignoreDisabledAPs);
+        }
+        List<PositionInformation> matchedPositions;
+        if (floorAmount == 0) {
+            matchedPositions = persistedPositions;
+        } else if (floorAmount == 1 && unknownFloorPositions.isEmpty()) {
+            matchedPositions = floorPositions.get(selectedFloors[0]);
+        } else {
+            mergedPositions.clear();
+            for (int i = 0; i < floorAmount; i++) {
+                mergedPositions.addAll(floorPositions.get(selectedFloors[i]));
+            }
+            mergedPositions.addAll(unknownFloorPositions);
+            matchedPositions = mergedPositions;
+        }
+        return matcher.nearestNeighbour(new SnapshotCachingManager(interpolatedFingerPrint), interpolatedFingerPrint, matchedPositions, ignoreDisabledAPs);
+    }
+
+    /**
+     * Classifies the floor of a fingerprint by the nearest centroid
+     *
+     * @param signalData         signal data of the fingerprint
+     * @param persistedPositions persisted fingerprints
+     * @return floor, or -1 if no position has a known floor
+     */
+    public int classifyFloor(Map<String, SignalInformation> signalData, List<PositionInformation> persistedPositions) {
+        synchronize(persistedPositions);
+        return selectFloors(signalData) > 0 ? selectedFloors[0] : -1;
+    }
+
+    /**
+     * Sets the floors of the persisted positions by their mapping points
+     *
+     * @param mappingPoints mapping points of the persisted positions
+     */
+    public void setMappingPoints(List<MappingPoint> mappingPoints) {
+        positionFloors.clear();
+        for (MappingPoint mappingPoint : mappingPoints) {
+            positionFloors.put(getPositionName(mappingPoint), mappingPoint.getZ() / floorHeight);
+        }
+        synchronizedPositions.invalidate();
+    }
+
+    /**
+     * Sets the floor of a single persisted position
+     *
+     * @param positionName name of the position
+     * @param floor        floor
+     */
+    public void setFloor(String positionName, int floor) {
+        positionFloors.put(positionName, floor);
+        synchronizedPositions.invalidate();
+    }
+
+    /**
+     * Forces the floors and the wrapped matcher to be synchronized with the persisted positions for the next matching. Has to be
+     * called if persisted positions are replaced or their signal data is modified without changing the size of the list.
+     */
+    public void invalidate() {
+        synchronizedPositions.invalidate();
+        PersistedPositionsTracker.invalidate(matcher);
+    }
+
+    /**
+     * Sets the ratio of the nearest centroid distance up to which further floors are matched
+     *
+     * @param floorMargin ratio, 1.0 matches only the nearest floor
+     */
+    public void setFloorMargin(double floorMargin) {
+        this.floorMargin = floorMargin;
+    }
+
+    /**
+     * Sets the maximum amount of matched floors
+     *
+     * @param maxFloors amount of floors
+     */
+    public void setMaxFloors(int maxFloors) {
+        this.maxFloors = maxFloors;
+    }
+
+    /**
+     * Returns the name of the persisted position of a mapping point
+     *
+     * @param mappingPoint mapping point
+     * @return position name
+     */
+    protected String getPositionName(MappingPoint mappingPoint) {
+        return mappingPoint.toString();
+    }
+
+    /**
+     * Returns the positions of the selected floors and the positions with an unknown floor
+     */
+    private Set<PositionInformation> getCandidates(int floorAmount) {
+        if (floorAmount == 1 && unknownFloorPositions.isEmpty()) {
+            return floorCandidates.get(selectedFloors[0]);
+        }
+        selectedFloorSet.clear();
+        for (int i = 0; i < floorAmount; i++) {
+            selectedFloorSet.set(selectedFloors[i]);
+        }
+        Set<PositionInformation> candidates = mergedCandidates.get(selectedFloorSet);
+        if (candidates == null) {
+            candidates = Collections.newSetFromMap(new IdentityHashMap<PositionInformation, Boolean>());
+            for (int i = 0; i < floorAmount; i++) {
+                candidates.addAll(floorCandidates.get(selectedFloors[i]));
+            }
+            candidates.addAll(unknownFloorPositions);
+            mergedCandidates.put((BitSet) selectedFloorSet.clone(), candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * Selects the floors whose centroids are near enough to the fingerprint, ordered by their distance
+     */
+    private int selectFloors(Map<String, SignalInformation> signalData) {
+        liveFingerprint.setLiveSignalData(signalData, keyDictionary);
+        int floorAmount = 0;
+        for (int floor = 0; floor < centroids.length; floor++) {
+            if (centroids[floor] == null) {
+                continue;
+            }
+            centroidDistances[floor] = liveFingerprint.squaredDistance(centroids[floor], missingStrength);
+            // insertion sort, there are only a few floors
+            int i = floorAmount++;
+            while (i > 0 && centroidDistances[selectedFloors[i - 1]] > centroidDistances[floor]) {
+                selectedFloors[i] = selectedFloors[i - 1];
+                i--;
+            }
+            selectedFloors[i] = floor;
+        }
+        if (floorAmount == 0) {
+            return 0;
+        }
+        double maxDistance = Math.sqrt(centroidDistances[selectedFloors[0]]) * floorMargin;
+        int selectedAmount = 1;
+        while (selectedAmount < Math.min(floorAmount, maxFloors) && Math.sqrt(centroidDistances[selectedFloors[selectedAmount]]) <= maxDistance) {
+            selectedAmount++;
+        }
+        return selectedAmount;
+    }
+
+    /**
+     * Splits the persisted positions by their floor and calculates the centroids, if the positions have changed
+     */
+    private void synchronize(List<PositionInformation> persistedPositions) {
+        if (!synchronizedPositions.hasChanged(persistedPositions)) {
+            return;
+        }
+        synchronizedPositions.synchronize(persistedPositions);
+        int floorAmount = 0;
+        for (Integer floor : positionFloors.values()) {
+            floorAmount = Math.max(floorAmount, floor + 1);
+        }
+        floorPositions.clear();
+        for (int floor = 0; floor < floorAmount; floor++) {
+            floorPositions.add(new ArrayList<PositionInformation>());
+        }
+        unknownFloorPositions = new ArrayList<PositionInformation>();
+        double[][] strengthSums = new double[floorAmount][];
+        Fingerprint fingerprint = new Fingerprint();
+        for (PositionInformation position : persistedPositions) {
+            Integer floor = positionFloors.get(position.getName());
+            if (floor == null || floor < 0) {
+                unknownFloorPositions.add(position);
+                continue;
+            }
+            floorPositions.get(floor).add(position);
+            fingerprint.setSignalData(position.getSignalInformation(), keyDictionary);
+            if (strengthSums[floor] == null || strengthSums[floor].length < keyDictionary.size()) {
+                strengthSums[floor] = strengthSums[floor] == null ? new double[keyDictionary.size()] : Arrays.copyOf(strengthSums[floor], keyDictionary.size());
+            }
+            for (int i = 0; i < fingerprint.size(); i++) {
+                strengthSums[floor][fingerprint.getKeyId(i)] += fingerprint.getStrength(i) - missingStrength;
+            }
+        }
+        centroids = new Fingerprint[floorAmount];
+        floorCandidates.clear();
+        mergedCandidates.clear();
+        for (int floor = 0; floor < floorAmount; floor++) {
+            Set<PositionInformation> candidates = Collections.newSetFromMap(new IdentityHashMap<PositionInformation, Boolean>());
+            candidates.addAll(floorPositions.get(floor));
+            floorCandidates.add(candidates);
+            int positionAmount = floorPositions.get(floor).size();
+            if (positionAmount == 0) {
+                continue;
+            }
+            centroids[floor] = new Fingerprint();
+            for (int keyId = 0; keyId < strengthSums[floor].length; keyId++) {
+                if (strengthSums[floor][keyId] != 0.0) {
+                    centroids[floor].add(keyId, (float) (missingStrength + strengthSums[floor][keyId] / positionAmount));
+                }
+            }
+        }
+        centroidDistances = new double[floorAmount];
+        selectedFloors = new int[floorAmount];
+    }
+}
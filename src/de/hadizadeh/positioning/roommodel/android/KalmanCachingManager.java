@@ -0,0 +1,87 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+
+import java.util.Arrays;
+
+/**
+ * Caching manager which smoothes every signal key with a scalar kalman filter. The signal strength is modelled as a random
+ * walk, its uncertainty grows with the elapsed time between two samples.
+ */
+public class KalmanCachingManager extends KeyedCachingManager {
+    private double processNoise;
+    private double measurementNoise;
+    private double[] estimates;
+    private double[] errorCovariances;
+
+    /**
+     * Creates a caching manager using the shared key dictionary
+     *
+     * @param processNoise     variance of the signal strength change per second
+     * @param measurementNoise variance of a single measurement
+     * @param maxAge           time in milliseconds after which a key without new samples will be removed, 0 if keys never expire
+     */
+    public KalmanCachingManager(double processNoise, double measurementNoise, long maxAge) {
+        this(SignalKeyDictionary.getInstance(), processNoise, measurementNoise, maxAge);
+    }
+
+    /**
+     * Creates a caching manager
+     *
+     * @param keyDictionary    dictionary for looking up the ids of the signal keys
+     * @param processNoise     variance of the signal strength change per second
+     * @param measurementNoise variance of a single measurement
+     * @param maxAge           time in milliseconds after which a key without new samples will be removed, 0 if keys never expire
+     */
+    public KalmanCachingManager(SignalKeyDictionary keyDictionary, double processNoise, double measurementNoise, long maxAge) {
+        super(keyDictionary, maxAge);
+        if (processNoise < 0.0 || measurementNoise <= 0.0) {
+            throw new IllegalArgumentException("noise values must be positive");
+        }
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+        this.estimates = new double[0];
+        this.errorCovariances = new double[0];
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        estimates = Arrays.copyOf(estimates, capacity);
+        errorCovariances = Arrays.copyOf(errorCovariances, capacity);
+    }
+
+    @Override
+    protected void updateState(int slot, double strength, boolean firstSample, long elapsedTime) {
+        if (firstSample) {
+            estimates[slot] = strength;
+            errorCovariances[slot] = measurementNoise;
+            return;
+        }
+        double predictedCovariance = errorCovariances[slot] + processNoise * elapsedTime / 1000.0;
+        double gain = predictedCovariance / (predictedCovariance + measurementNoise);
+        estimates[slot] += gain * (strength - estimates[slot]);
+        errorCovariances[slot] = (1.0 - gain) * predictedCovariance;
+    }
+
+    @Override
+    protected double estimate(int slot) {
+        return estimates[slot];
+    }
+
+    /**
+     * Returns the variance of the signal strength change per second
+     *
+     * @return process noise
+     */
+    public double getProcessNoise() {
+        return processNoise;
+    }
+
+    /**
+     * Returns the variance of a single measurement
+     *
+     * @return measurement noise
+     */
+    public double getMeasurementNoise() {
+        return measurementNoise;
+    }
+}
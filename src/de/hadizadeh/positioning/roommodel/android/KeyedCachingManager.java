@@ -0,0 +1,292 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caching manager which keeps a constant sized state per signal key instead of whole signal data snapshots. Every active key
+ * occupies a slot of this caching manager, the state of a key is stored in primitive arrays indexed by its slot. Slots of
+ * evicted and expired keys are reused, so the arrays only grow with the amount of simultaneously active keys. Live keys are not
+ * interned into the {@link SignalKeyDictionary}, it is only used to look up the ids of known keys.
+ */
+public abstract class KeyedCachingManager extends CachingManager {
+    protected SignalKeyDictionary keyDictionary;
+    protected long maxAge;
+    protected int maxKeys;
+    protected long[] updateTimes;
+    private Map<String, Integer> slots;
+    private String[] slotKeys;
+    private int[] slotKeyIds;
+    private int slotAmount;
+    private int[] freeSlots;
+    private int freeSlotAmount;
+    private int[] activePositions;
+    private int[] activeSlots;
+    private int activeSize;
+    private long evictedKeyAmount;
+    private long expiredKeyAmount;
+
+    /**
+     * Creates the caching manager
+     *
+     * @param keyDictionary dictionary for looking up the ids of the signal keys
+     * @param maxAge        time in milliseconds after which a key without new samples will be removed, 0 if keys never expire
+     */
+    public KeyedCachingManager(SignalKeyDictionary keyDictionary, long maxAge) {
+        init(1);
+        this.keyDictionary = keyDictionary;
+        this.maxAge = maxAge;
+        this.updateTimes = new long[0];
+        this.slots = new HashMap<String, Integer>();
+        this.slotKeys = new String[0];
+        this.slotKeyIds = new int[0];
+        this.freeSlots = new int[0];
+        this.activePositions = new int[0];
+        this.activeSlots = new int[16];
+    }
+
+    /**
+     * Adds signal data and updates the state of every included key
+     *
+     * @param signalData signal data
+     */
+    @Override
+    public void addData(Map<String, SignalInformation> signalData) {
+        super.addData(signalData);
+        if (signalData == null) {
+            return;
+        }
+        long currentTime = currentTime();
+        for (Map.Entry<String, SignalInformation> signalElement : signalData.entrySet()) {
+            addSample(signalElement.getKey(), -1, signalElement.getValue().getStrength(), currentTime);
+        }
+    }
+
+    /**
+     * Adds the signal data of a fingerprint, the fingerprint has to be created with the same key dictionary
+     *
+     * @param fingerprint fingerprint
+     */
+    public void addData(Fingerprint fingerprint) {
+        long currentTime = currentTime();
+        for (int i = 0; i < fingerprint.size(); i++) {
+            int keyId = fingerprint.getKeyId(i);
+            addSample(keyDictionary.getKey(keyId), keyId, fingerprint.getStrength(i), currentTime);
+        }
+    }
+
+    /**
+     * Interpolates caching data.
+     * Returns the estimated strength of every key which has not expired.
+     *
+     * @return interpolated caching data
+     */
+    @Override
+    public Map<String, SignalInformation> interpolateData() {
+        removeExpiredKeys(currentTime());
+        Map<String, SignalInformation> result = new HashMap<String, SignalInformation>(activeSize * 4 / 3 + 1);
+        for (int i = 0; i < activeSize; i++) {
+            result.put(slotKeys[activeSlots[i]], new SignalInformation(estimate(activeSlots[i])));
+        }
+        return result;
+    }
+
+    /**
+     * Writes the estimated strength of every key which has not expired into a fingerprint. Keys which are not known by the key
+     * dictionary get negative ids like in {@link Fingerprint#setLiveSignalData(Map, SignalKeyDictionary)}.
+     *
+     * @param fingerprint fingerprint which will be overwritten
+     */
+    public void interpolateData(Fingerprint fingerprint) {
+        removeExpiredKeys(currentTime());
+        fingerprint.clear();
+        int unknownKeyId = 0;
+        for (int i = 0; i < activeSize; i++) {
+            int slot = activeSlots[i];
+            if (slotKeyIds[slot] < 0) {
+                slotKeyIds[slot] = keyDictionary.getId(slotKeys[slot]);
+            }
+            fingerprint.add(slotKeyIds[slot] >= 0 ? slotKeyIds[slot] : --unknownKeyId, (float) estimate(slot));
+        }
+    }
+
+    /**
+     * Removes the state of all keys
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        while (activeSize > 0) {
+            deactivate(activeSlots[activeSize - 1]);
+        }
+    }
+
+    /**
+     * Returns the amount of keys which currently have a state
+     *
+     * @return amount of keys
+     */
+    public int getKeyAmount() {
+        return activeSize;
+    }
+
+    /**
+     * Limits the amount of keys. If a new key exceeds the limit, the least recently updated key will be evicted.
+     *
+     * @param maxKeys maximum amount of keys, 0 if the amount is not limited
+     */
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+        if (maxKeys > 0) {
+            while (activeSize > maxKeys) {
+                evictLeastRecentlyUpdatedKey();
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum amount of keys
+     *
+     * @return maximum amount of keys, 0 if the amount is not limited
+     */
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * Returns how many keys have been evicted because the maximum amount of keys has been reached
+     *
+     * @return amount of evicted keys
+     */
+    public long getEvictedKeyAmount() {
+        return evictedKeyAmount;
+    }
+
+    /**
+     * Returns how many keys have been removed because they had no new samples for the maximum age
+     *
+     * @return amount of expired keys
+     */
+    public long getExpiredKeyAmount() {
+        return expiredKeyAmount;
+    }
+
+    /**
+     * Returns the current time of a monotonic clock
+     *
+     * @return time in milliseconds
+     */
+    protected long currentTime() {
+        return System.nanoTime() / 1000000L;
+    }
+
+    /**
+     * Grows the state arrays of the subclass, so that they can be indexed by slots lower than the capacity
+     *
+     * @param capacity new capacity
+     */
+    protected abstract void ensureCapacity(int capacity);
+
+    /**
+     * Updates the state of a key with a new sample
+     *
+     * @param slot        slot of the key
+     * @param strength    signal strength of the sample
+     * @param firstSample true if the key had no state before, the slot may contain the state of a removed key
+     * @param elapsedTime milliseconds since the last sample of the key
+     */
+    protected abstract void updateState(int slot, double strength, boolean firstSample, long elapsedTime);
+
+    /**
+     * Returns the estimated signal strength of a key
+     *
+     * @param slot slot of the key
+     * @return estimated signal strength
+     */
+    protected abstract double estimate(int slot);
+
+    private void addSample(String key, int keyId, double strength, long currentTime) {
+        Integer existingSlot = slots.get(key);
+        boolean firstSample = existingSlot == null;
+        int slot;
+        if (firstSample) {
+            if (maxKeys > 0 && activeSize >= maxKeys) {
+                evictLeastRecentlyUpdatedKey();
+            }
+            slot = activate(key, keyId);
+        } else {
+            slot = existingSlot;
+        }
+        updateState(slot, strength, firstSample, firstSample ? 0 : currentTime - updateTimes[slot]);
+        updateTimes[slot] = currentTime;
+    }
+
+    private void removeExpiredKeys(long currentTime) {
+        if (maxAge <= 0) {
+            return;
+        }
+        for (int i = activeSize - 1; i >= 0; i--) {
+            int slot = activeSlots[i];
+            if (currentTime - updateTimes[slot] > maxAge) {
+                deactivate(slot);
+                expiredKeyAmount++;
+            }
+        }
+    }
+
+    private void evictLeastRecentlyUpdatedKey() {
+        int leastRecentSlot = activeSlots[0];
+        for (int i = 1; i < activeSize; i++) {
+            if (updateTimes[activeSlots[i]] < updateTimes[leastRecentSlot]) {
+                leastRecentSlot = activeSlots[i];
+            }
+        }
+        deactivate(leastRecentSlot);
+        evictedKeyAmount++;
+    }
+
+    private int activate(String key, int keyId) {
+        int slot;
+        if (freeSlotAmount > 0) {
+            slot = freeSlots[--freeSlotAmount];
+        } else {
+            if (slotAmount == slotKeys.length) {
+                int capacity = Math.max(16, slotKeys.length * 2);
+                slotKeys = Arrays.copyOf(slotKeys, capacity);
+                slotKeyIds = Arrays.copyOf(slotKeyIds, capacity);
+                activePositions = Arrays.copyOf(activePositions, capacity);
+                updateTimes = Arrays.copyOf(updateTimes, capacity);
+                ensureCapacity(capacity);
+            }
+            slot = slotAmount++;
+        }
+        slots.put(key, slot);
+        slotKeys[slot] = key;
+        slotKeyIds[slot] = keyId;
+        if (activeSize == activeSlots.length) {
+            activeSlots = Arrays.copyOf(activeSlots, activeSlots.length * 2);
+        }
+        activeSlots[activeSize++] = slot;
+        activePositions[slot] = activeSize;
+        return slot;
+    }
+
+    private void deactivate(int slot) {
+        int position = activePositions[slot] - 1;
+        int lastSlot = activeSlots[--activeSize];
+        activeSlots[position] = lastSlot;
+        activePositions[lastSlot] = position + 1;
+        activePositions[slot] = 0;
+        slots.remove(slotKeys[slot]);
+        slotKeys[slot] = null;
+        if (freeSlotAmount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeSlots.length * 2));
+        }
+        freeSlots[freeSlotAmount++] = slot;
+    }
+}
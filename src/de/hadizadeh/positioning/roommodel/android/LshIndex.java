@@ -0,0 +1,286 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Locality sensitive hashing index for approximate nearest neighbour searches in euclidean signal space. Every table hashes a
+ * fingerprint with several random projections, each quantized into buckets of a fixed width, so near fingerprints share a
+ * bucket with a high probability. Only the fingerprints in the buckets of the live fingerprint are compared exactly. More tables
+ * raise the recall, more hashes per table and narrower buckets reduce the compared candidates. Strengths are shifted by the
+ * floor strength, so missing keys do not contribute to the projections. If no bucket of the live fingerprint contains a
+ * searched fingerprint, only the neighbouring buckets are probed, which differ by one step of a single projection, so a search
+ * never compares all fingerprints. The index is immutable and can be searched by several threads.
+ */
+public class LshIndex implements FingerprintIndex {
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final PositionInformation[] positions;
+    private final Fingerprint[] fingerprints;
+    private final float missingStrength;
+    private final int tableAmount;
+    private final int hashAmount;
+    private final double bucketWidth;
+    private final float[][] projections;
+    private final double[] offsets;
+    private final long[][] bucketKeys;
+    private final int[][] bucketHeads;
+    private final int[][] nextPositions;
+    private final Map<PositionInformation, Map<?, ?>> signalInformation;
+    private final AtomicLong probedSearchAmount = new AtomicLong();
+    private final AtomicLong missedSearchAmount = new AtomicLong();
+    private final ThreadLocal<SearchState> searchStates = new ThreadLocal<SearchState>() {
+        @Override
+        protected SearchState initialValue() {
+            return new SearchState(positions.length, projections.length);
+        }
+    };
+
+    /**
+     * Builds the index
+     *
+     * @param positions       persisted positions
+     * @param fingerprints    fingerprints of the positions, must not be modified afterwards
+     * @param missingStrength strength of missing keys, e.g. -100 dBm
+     * @param tableAmount     amount of hash tables
+     * @param hashAmount      amount of projections per table
+     * @param bucketWidth     width of a bucket in dB
+     * @param seed            seed of the random projections
+     */
+    public LshIndex(PositionInformation[] positions, Fingerprint[] fingerprints, float missingStrength, int tableAmount, int hashAmount, double bucketWidth, long seed) {
+        if (tableAmount < 1 || hashAmount < 1 || bucketWidth <= 0.0) {
+            throw new IllegalArgumentException("table amount, hash amount and bucket width must be positive");
+        }
+        this.positions = positions.clone();
+        this.fingerprints = fingerprints.clone();
+        this.missingStrength = missingStrength;
+        this.tableAmount = tableAmount;
+        this.hashAmount = hashAmount;
+        this.bucketWidth = bucketWidth;
+        this.signalInformation = new IdentityHashMap<PositionInformation, Map<?, ?>>(positions.length * 4 / 3 + 1);
+        int keyAmount = 0;
+        for (int i = 0; i < positions.length; i++) {
+            Fingerprint fingerprint = this.fingerprints[i];
+            // sorts the fingerprint before it is shared with searching threads
+            if (fingerprint.size() > 0) {
+                keyAmount = Math.max(keyAmount, fingerprint.getKeyId(fingerprint.size() - 1) + 1);
+            }
+            signalInformation.put(positions[i], positions[i].getSignalInformation());
+        }
+
+        Random random = new Random(seed);
+        projections = new float[tableAmount * hashAmount][keyAmount];
+        offsets = new double[tableAmount * hashAmount];
+        for (int hash = 0; hash < projections.length; hash++) {
+            for (int keyId = 0; keyId < keyAmount; keyId++) {
+                projections[hash][keyId] = (float) random.nextGaussian();
+            }
+            offsets[hash] = random.nextDouble() * bucketWidth;
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(1, positions.length) * 2 - 1) * 2;
+        bucketKeys = new long[tableAmount][capacity];
+        bucketHeads = new int[tableAmount][capacity];
+        nextPositions = new int[tableAmount][positions.length];
+        long[] buckets = new long[projections.length];
+        for (int table = 0; table < tableAmount; table++) {
+            for (int i = 0; i < positions.length; i++) {
+                quantize(table, this.fingerprints[i], buckets);
+                long key = bucketKey(table, buckets);
+                int slot = findSlot(table, key);
+                bucketKeys[table][slot] = key;
+                // heads are stored increased by one, so 0 marks an empty slot
+                nextPositions[table][i] = bucketHeads[table][slot] - 1;
+                bucketHeads[table][slot] = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Searches the nearest fingerprints among the fingerprints which share a bucket with the live fingerprint. If no included
+     * fingerprint shares a bucket, the neighbouring buckets are probed. If they contain no included fingerprint either, the
+     * result stays unchanged.
+     *
+     * @param fingerprint       live fingerprint
+     * @param nearestPositions  result which keeps the nearest positions, can already contain positions
+     * @param includedPositions positions which can be kept, null if all positions can be kept
+     * @param excludedPositions positions which will be skipped, can be null
+     * @return amount of calculated distances
+     */
+    @Override
+    public int search(Fingerprint fingerprint, NearestPositions nearestPositions, Set<PositionInformation> includedPositions, Set<PositionInformation> excludedPositions) {
+        SearchState state = searchStates.get();
+        state.reset();
+        long[] buckets = state.buckets;
+        int calculations = 0;
+        for (int table = 0; table < tableAmount; table++) {
+            quantize(table, fingerprint, buckets);
+            calculations += compareBucket(state, table, bucketKey(table, buckets), fingerprint, nearestPositions, includedPositions, excludedPositions);
+        }
+        if (calculations == 0) {
+            probedSearchAmount.incrementAndGet();
+            for (int hash = 0; hash < buckets.length; hash++) {
+                int table = hash / hashAmount;
+                for (int step = -1; step <= 1; step += 2) {
+                    buckets[hash] += step;
+                    calculations += compareBucket(state, table, bucketKey(table, buckets), fingerprint, nearestPositions, includedPositions, excludedPositions);
+                    buckets[hash] -= step;
+                }
+            }
+            if (calculations == 0) {
+                missedSearchAmount.incrementAndGet();
+            }
+        }
+        return calculations;
+    }
+
+    /**
+     * Returns how many searches have probed the neighbouring buckets, because no bucket of the live fingerprint contained a
+     * searched fingerprint
+     *
+     * @return amount of searches
+     */
+    public long getProbedSearchAmount() {
+        return probedSearchAmount.get();
+    }
+
+    /**
+     * Returns how many searches have not found any searched fingerprint, even in the neighbouring buckets
+     *
+     * @return amount of searches
+     */
+    public long getMissedSearchAmount() {
+        return missedSearchAmount.get();
+    }
+
+    @Override
+    public boolean contains(PositionInformation position) {
+        Map<?, ?> indexedSignalInformation = signalInformation.get(position);
+        return indexedSignalInformation != null && indexedSignalInformation == position.getSignalInformation();
+    }
+
+    @Override
+    public int size() {
+        return positions.length;
+    }
+
+    @Override
+    public PositionInformation getPosition(int index) {
+        return positions[index];
+    }
+
+    @Override
+    public Fingerprint getFingerprint(int index) {
+        return fingerprints[index];
+    }
+
+    /**
+     * Compares the positions of a bucket which have not been compared in the current search, returns the amount of calculated
+     * distances
+     */
+    private int compareBucket(SearchState state, int table, long key, Fingerprint fingerprint, NearestPositions nearestPositions, Set<PositionInformation> includedPositions, Set<PositionInformation> excludedPositions) {
+        int calculations = 0;
+        int slot = findSlot(table, key);
+        for (int i = bucketHeads[table][slot] - 1; i >= 0; i = nextPositions[table][i]) {
+            if (state.mark(i)) {
+                calculations += compare(fingerprint, i, nearestPositions, includedPositions, excludedPositions);
+            }
+        }
+        return calculations;
+    }
+
+    /**
+     * Offers an indexed position if it is near enough, returns the amount of calculated distances
+     */
+    private int compare(Fingerprint fingerprint, int index, NearestPositions nearestPositions, Set<PositionInformation> includedPositions, Set<PositionInformation> excludedPositions) {
+        if (includedPositions != null && !includedPositions.contains(positions[index])) {
+            return 0;
+        }
+        double distance = Math.sqrt(fingerprint.squaredDistance(fingerprints[index], missingStrength));
+        if (distance < nearestPositions.getBound() && (excludedPositions == null || !excludedPositions.contains(positions[index]))) {
+            nearestPositions.offer(positions[index], distance);
+        }
+        return 1;
+    }
+
+    /**
+     * Quantizes the projections of a table into buckets. Keys which are unknown to all indexed fingerprints are ignored.
+     */
+    private void quantize(int table, Fingerprint fingerprint, long[] buckets) {
+        for (int hash = table * hashAmount; hash < (table + 1) * hashAmount; hash++) {
+            float[] projection = projections[hash];
+            double projected = offsets[hash];
+            for (int i = 0; i < fingerprint.size(); i++) {
+                int keyId = fingerprint.getKeyId(i);
+                if (keyId >= 0 && keyId < projection.length) {
+                    projected += projection[keyId] * (fingerprint.getStrength(i) - missingStrength);
+                }
+            }
+            buckets[hash] = (long) Math.floor(projected / bucketWidth);
+        }
+    }
+
+    /**
+     * Combines the quantized projections of a table to one key
+     */
+    private long bucketKey(int table, long[] buckets) {
+        long key = table;
+        for (int hash = table * hashAmount; hash < (table + 1) * hashAmount; hash++) {
+            key = (key ^ buckets[hash]) * HASH_MULTIPLIER;
+        }
+        return key;
+    }
+
+    private int findSlot(int table, long key) {
+        long[] keys = bucketKeys[table];
+        int[] heads = bucketHeads[table];
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (heads[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Reusable state of the searches of a thread: the quantized projections of the live fingerprint and the marks of the positions
+     * which have been compared. A position is marked if its stamp equals the generation of the current search, so the marks are
+     * cleared by increasing the generation instead of clearing the array.
+     */
+    private static final class SearchState {
+        private final int[] stamps;
+        private final long[] buckets;
+        private int generation;
+
+        private SearchState(int positionAmount, int hashAmount) {
+            stamps = new int[positionAmount];
+            buckets = new long[hashAmount];
+        }
+
+        private void reset() {
+            generation++;
+            if (generation == 0) {
+                // after an overflow old stamps could match again
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * Marks a position, returns false if it has already been marked in the current search
+         */
+        private boolean mark(int index) {
+            if (stamps[index] == generation) {
+                return false;
+            }
+            stamps[index] = generation;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+
+/**
+ * Euclidean matcher which searches approximately in a {@link LshIndex} instead of a tree. Suited for very large amounts of
+ * fingerprints where a fast matching is more important than always finding the exact nearest fingerprints.
+ */
+public class LshMatcher extends EuclideanMatcher {
+    /**
+     * default amount of hash tables
+     */
+    public static final int DEFAULT_TABLE_AMOUNT = 8;
+    /**
+     * default amount of projections per table
+     */
+    public static final int DEFAULT_HASH_AMOUNT = 4;
+    /**
+     * default width of a bucket in dB
+     */
+    public static final double DEFAULT_BUCKET_WIDTH = 240.0;
+
+    protected int tableAmount;
+    protected int hashAmount;
+    protected double bucketWidth;
+
+    /**
+     * Creates the matcher with the default hashing parameters and a floor of -100 dBm, using the shared key dictionary
+     */
+    public LshMatcher() {
+        this(SignalKeyDictionary.getInstance(), DEFAULT_MISSING_STRENGTH, DEFAULT_NEAREST_AMOUNT, DEFAULT_TABLE_AMOUNT, DEFAULT_HASH_AMOUNT, DEFAULT_BUCKET_WIDTH);
+    }
+
+    /**
+     * Creates the matcher
+     *
+     * @param keyDictionary   dictionary for interning the signal keys
+     * @param missingStrength strength of missing keys
+     * @param nearestAmount   amount of nearest fingerprints which are returned by the default matching
+     * @param tableAmount     amount of hash tables, more tables find more of the nearest fingerprints
+     * @param hashAmount      amount of projections per table, more projections compare less fingerprints
+     * @param bucketWidth     width of a bucket in dB, narrower buckets compare less fingerprints
+     */
+    public LshMatcher(SignalKeyDictionary keyDictionary, float missingStrength, int nearestAmount, int tableAmount, int hashAmount, double bucketWidth) {
+        super(keyDictionary, missingStrength, nearestAmount);
+        this.tableAmount = tableAmount;
+        this.hashAmount = hashAmount;
+        this.bucketWidth = bucketWidth;
+    }
+
+    @Override
+    protected FingerprintIndex createIndex(PositionInformation[] positions, Fingerprint[] fingerprints) {
+        return new LshIndex(positions, fingerprints, missingStrength, tableAmount, hashAmount, bucketWidth, positions.length);
+    }
+}
@@ -0,0 +1,190 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact result of a top k matching. While matching, the k best positions are kept in a bounded max heap, so the distance of
+ * the worst kept position is the bound which a new candidate has to beat. After sorting, the positions are ordered by distance
+ * ascending, equal distances by the order in which they have been offered.
+ */
+public class NearestPositions {
+    private PositionInformation[] positions;
+    private double[] distances;
+    private long[] offerNumbers;
+    private int size;
+    private long offerAmount;
+    private boolean sorted;
+
+    /**
+     * Creates an empty result
+     *
+     * @param k maximum amount of positions
+     */
+    public NearestPositions(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        positions = new PositionInformation[k];
+        distances = new double[k];
+        offerNumbers = new long[k];
+    }
+
+    /**
+     * Offers a position, it is kept if less than k positions are kept or if it is closer than the worst kept position
+     *
+     * @param position position
+     * @param distance distance of the position
+     * @return true, if the position has been kept
+     */
+    public boolean offer(PositionInformation position, double distance) {
+        if (sorted) {
+            throw new IllegalStateException("positions have already been sorted");
+        }
+        long offerNumber = offerAmount++;
+        if (size < positions.length) {
+            int index = size++;
+            set(index, position, distance, offerNumber);
+            siftUp(index);
+            return true;
+        }
+        if (distance >= distances[0]) {
+            return false;
+        }
+        set(0, position, distance, offerNumber);
+        siftDown(0, size);
+        return true;
+    }
+
+    /**
+     * Returns the distance which a candidate has to fall below to be kept
+     *
+     * @return distance of the worst kept position or infinity, if less than k positions are kept
+     */
+    public double getBound() {
+        if (size < positions.length) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return sorted ? distances[size - 1] : distances[0];
+    }
+
+    /**
+     * Sorts the kept positions by distance ascending, offering a position afterwards is not supported
+     */
+    public void sort() {
+        if (sorted) {
+            return;
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        sorted = true;
+    }
+
+    /**
+     * Removes all kept positions, so the result can be reused for another matching
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[i] = null;
+        }
+        size = 0;
+        offerAmount = 0;
+        sorted = false;
+    }
+
+    /**
+     * Returns the amount of kept positions
+     *
+     * @return amount of positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a kept position
+     *
+     * @param index rank of the position, 0 is the nearest position after sorting
+     * @return position
+     */
+    public PositionInformation getPosition(int index) {
+        return positions[index];
+    }
+
+    /**
+     * Returns the distance of a kept position
+     *
+     * @param index rank of the position, 0 is the nearest position after sorting
+     * @return distance
+     */
+    public double getDistance(int index) {
+        return distances[index];
+    }
+
+    /**
+     * Converts the result to a map which is ordered by distance ascending
+     *
+     * @return matched fingerprints
+     */
+    public Map<PositionInformation, Double> toMap() {
+        sort();
+        Map<PositionInformation, Double> result = new LinkedHashMap<PositionInformation, Double>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            result.put(positions[i], distances[i]);
+        }
+        return result;
+    }
+
+    private boolean isWorse(int first, int second) {
+        if (distances[first] != distances[second]) {
+            return distances[first] > distances[second];
+        }
+        return offerNumbers[first] > offerNumbers[second];
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isWorse(index, parent)) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int end) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= end) {
+                return;
+            }
+            if (child + 1 < end && isWorse(child + 1, child)) {
+                child++;
+            }
+            if (!isWorse(child, index)) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void set(int index, PositionInformation position, double distance, long offerNumber) {
+        positions[index] = position;
+        distances[index] = distance;
+        offerNumbers[index] = offerNumber;
+    }
+
+    private void swap(int first, int second) {
+        PositionInformation position = positions[first];
+        double distance = distances[first];
+        long offerNumber = offerNumbers[first];
+        set(first, positions[second], distances[second], offerNumbers[second]);
+        set(second, position, distance, offerNumber);
+    }
+}
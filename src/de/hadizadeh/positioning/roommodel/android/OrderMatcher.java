@@ -6,11 +6,58 @@ import de.hadizadeh.positioning.model.PositionInformation;
 import de.hadizadeh.positioning.model.SignalInformation;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Matcher which matches the fingerprints by order
  */
-public class OrderMatcher extends Matcher {
+public class OrderMatcher extends Matcher implements TopKMatcher, CandidateMatcher {
+    /**
+     * distances between the key orders of two fingerprints
+     */
+    public enum OrderDistance {
+        MISMATCHES,
+        SPEARMAN_FOOTRULE,
+        KENDALL_TAU
+    }
+
+    protected SignalKeyDictionary keyDictionary;
+    protected OrderDistance orderDistance;
+    private OrderRankIndex rankIndex;
+    private final PersistedPositionsTracker rankPositions = new PersistedPositionsTracker();
+    private Fingerprint liveFingerprint = new Fingerprint();
+    private int[] liveOrderedKeyIds = new int[16];
+    private RankDistance rankDistance = new RankDistance();
+    private ForkJoinPool pool;
+    private int parallelThreshold = ParallelMatcher.DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Creates the matcher using the shared key dictionary
+     */
+    public OrderMatcher() {
+        this(SignalKeyDictionary.getInstance());
+    }
+
+    /**
+     * Creates the matcher which counts the mismatching key positions
+     *
+     * @param keyDictionary dictionary for interning the signal keys
+     */
+    public OrderMatcher(SignalKeyDictionary keyDictionary) {
+        this(keyDictionary, OrderDistance.MISMATCHES);
+    }
+
+    /**
+     * Creates the matcher
+     *
+     * @param keyDictionary dictionary for interning the signal keys
+     * @param orderDistance distance between the key orders
+     */
+    public OrderMatcher(SignalKeyDictionary keyDictionary, OrderDistance orderDistance) {
+        this.keyDictionary = keyDictionary;
+        this.orderDistance = orderDistance;
+    }
 
     /**
      * Matches the fingerprints by order instead of the default matching
@@ -23,52 +70,265 @@ public class OrderMatcher extends Matcher {
      */
     @Override
     public Map<PositionInformation, Double> nearestNeighbour(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, boolean ignoreDisabledAPs) {
-        Map<PositionInformation, Double> orderResults = new HashMap<PositionInformation, Double>();
         cachingManager.addData(fingerPrint);
-        final Map<String, SignalInformation> interpolatedFingerPrint = cachingManager.interpolateData();
+        OrderRankIndex index = prepare(persistedPositions);
+        int liveSize = orderLiveFingerprint(cachingManager.interpolateData());
+
+        if (orderDistance != OrderDistance.MISMATCHES) {
+            rankDistance.setLiveFingerprint(liveFingerprint);
+        }
+        double[] distances = new double[index.size()];
+        if (parallelThreshold > 0 && index.size() >= parallelThreshold) {
+            ForkJoinPool currentPool = getPool();
+            int chunkSize = ParallelMatcher.chunkSize(currentPool, index.size(), parallelThreshold);
+            currentPool.invoke(new DistanceTask(index, orderDistance, liveOrderedKeyIds, liveSize, distances, chunkSize, 0, index.size()));
+        } else {
+            calculateDistances(index, orderDistance, liveOrderedKeyIds, liveSize, rankDistance, distances, 0, index.size());
+        }
 
-        // Order finger prints
-        Comparator<String> fingerPrintComparator = new Comparator<String>() {
-            @Override
-            public int compare(String k1, String k2) {
-                return ((Double) interpolatedFingerPrint.get(k1).getStrength()).compareTo(interpolatedFingerPrint.get(k2).getStrength());
+        Map<PositionInformation, Double> orderResults = new HashMap<PositionInformation, Double>(index.size() * 4 / 3 + 1);
+        for (int i = 0; i < index.size(); i++) {
+            orderResults.put(index.getPosition(i), distances[i]);
+        }
+        return orderResults;
+    }
+
+    /**
+     * Matches only the candidates by order. The rank index stays built over all persisted fingerprints.
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions all persisted fingerprints
+     * @param candidates         persisted fingerprints which are matched, compared by identity
+     * @param ignoreDisabledAPs  not in use for this implementation
+     * @return matched candidates
+     */
+    @Override
+    public Map<PositionInformation, Double> nearestNeighbour(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, Set<PositionInformation> candidates, boolean ignoreDisabledAPs) {
+        cachingManager.addData(fingerPrint);
+        OrderRankIndex index = prepare(persistedPositions);
+        int liveSize = orderLiveFingerprint(cachingManager.interpolateData());
+        if (orderDistance != OrderDistance.MISMATCHES) {
+            rankDistance.setLiveFingerprint(liveFingerprint);
+        }
+        Map<PositionInformation, Double> orderResults = new HashMap<PositionInformation, Double>(candidates.size() * 4 / 3 + 1);
+        for (PositionInformation candidate : candidates) {
+            int i = index.indexOf(candidate);
+            if (i >= 0) {
+                orderResults.put(candidate, calculateDistance(index, i, orderDistance, liveOrderedKeyIds, liveSize, rankDistance, Double.POSITIVE_INFINITY));
             }
-        };
-        TreeMap<String, SignalInformation> sortedFingerPrint = new TreeMap<String, SignalInformation>(fingerPrintComparator);
-        sortedFingerPrint.putAll(interpolatedFingerPrint);
-
-        for (PositionInformation positionInformation : persistedPositions) {
-            int countDifferences = 0;
-            final Map<String, SignalInformation> persistedSignalInformation = positionInformation.getSignalInformation();
-            Comparator<String> persistedFpComparator = new Comparator<String>() {
-                @Override
-                public int compare(String k1, String k2) {
-                    return ((Double) persistedSignalInformation.get(k1).getStrength()).compareTo(persistedSignalInformation.get(k2).getStrength());
-                }
-            };
-            TreeMap<String, SignalInformation> sortedPersistedSi = new TreeMap<String, SignalInformation>(persistedFpComparator);
-            sortedPersistedSi.putAll(persistedSignalInformation);
-
-            String[] mapKeys = new String[sortedPersistedSi.size()];
-            int pos = 0;
-            for (String key : sortedPersistedSi.keySet()) {
-                mapKeys[pos++] = key;
+        }
+        return orderResults;
+    }
+
+    /**
+     * Matches the fingerprints by order and keeps only the k nearest ones. Calculating the distance of a persisted fingerprint
+     * stops as soon as it cannot be better than the k-th nearest fingerprint found so far.
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions persisted fingerprints
+     * @param k                  maximum amount of returned fingerprints
+     * @return nearest fingerprints, sorted by distance ascending
+     */
+    @Override
+    public NearestPositions nearestNeighbours(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, int k) {
+        NearestPositions nearestPositions = new NearestPositions(k);
+        cachingManager.addData(fingerPrint);
+        OrderRankIndex index = prepare(persistedPositions);
+        int liveSize = orderLiveFingerprint(cachingManager.interpolateData());
+        if (orderDistance != OrderDistance.MISMATCHES) {
+            rankDistance.setLiveFingerprint(liveFingerprint);
+        }
+        for (int i = 0; i < index.size(); i++) {
+            double bound = nearestPositions.getBound();
+            double distance = calculateDistance(index, i, orderDistance, liveOrderedKeyIds, liveSize, rankDistance, bound);
+            if (distance < bound) {
+                nearestPositions.offer(index.getPosition(i), distance);
             }
+        }
+        nearestPositions.sort();
+        return nearestPositions;
+    }
 
-            int keyIndex = 0;
-            for (Map.Entry<String, SignalInformation> fingerPrintElement : sortedFingerPrint.entrySet()) {
-                String mapKeyText = "";
-                if (keyIndex < mapKeys.length) {
-                    mapKeyText = mapKeys[keyIndex];
-                }
-                //System.out.println("COMPARE: " +mapKeys.length + " <= "+ keyIndex + " || " + fingerPrintElement.getKey() + " == "+mapKeyText);
-                if (mapKeys.length <= keyIndex || keyIndex >= mapKeys.length || !fingerPrintElement.getKey().equals(mapKeys[keyIndex])) {
-                    countDifferences++;
+    /**
+     * Sets the amount of persisted fingerprints from which on the distances are calculated in parallel
+     *
+     * @param parallelThreshold amount of persisted fingerprints, 0 if the matching should never run in parallel
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Returns the amount of persisted fingerprints from which on the distances are calculated in parallel
+     *
+     * @return amount of persisted fingerprints, 0 if the matching never runs in parallel
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the pool for the parallel matching
+     *
+     * @param pool pool, null for the default pool of the parallel matcher
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    private ForkJoinPool getPool() {
+        if (pool == null) {
+            return ParallelMatcher.getDefaultPool();
+        }
+        return pool;
+    }
+
+    private static void calculateDistances(OrderRankIndex index, OrderDistance orderDistance, int[] liveKeyIds, int liveSize, RankDistance rankDistance, double[] distances, int from, int to) {
+        for (int i = from; i < to; i++) {
+            distances[i] = calculateDistance(index, i, orderDistance, liveKeyIds, liveSize, rankDistance, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    private static double calculateDistance(OrderRankIndex index, int i, OrderDistance orderDistance, int[] liveKeyIds, int liveSize, RankDistance rankDistance, double maxDistance) {
+        if (orderDistance == OrderDistance.MISMATCHES) {
+            return countDifferences(liveKeyIds, liveSize, index.getOrderedKeyIds(i), maxDistance);
+        } else if (orderDistance == OrderDistance.SPEARMAN_FOOTRULE) {
+            return rankDistance.footrule(index.getFingerprint(i), maxDistance);
+        }
+        return rankDistance.kendallTau(index.getFingerprint(i), maxDistance);
+    }
+
+    /**
+     * Sets the distance between the key orders
+     *
+     * @param orderDistance distance between the key orders
+     */
+    public void setOrderDistance(OrderDistance orderDistance) {
+        this.orderDistance = orderDistance;
+    }
+
+    /**
+     * Returns the distance between the key orders
+     *
+     * @return distance between the key orders
+     */
+    public OrderDistance getOrderDistance() {
+        return orderDistance;
+    }
+
+    /**
+     * Builds the rank index of the persisted fingerprints if it is not up to date. Can be called after loading the fingerprints
+     * to avoid building the index during the first positioning cycle.
+     *
+     * @param persistedPositions persisted fingerprints
+     * @return up to date rank index
+     */
+    public synchronized OrderRankIndex prepare(List<PositionInformation> persistedPositions) {
+        OrderRankIndex index = rankIndex;
+        if (index == null || rankPositions.hasChanged(persistedPositions)) {
+            rankPositions.synchronize(persistedPositions);
+            index = new OrderRankIndex(keyDictionary, persistedPositions);
+            rankIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Marks the rank index as outdated, it will be rebuilt for the next matching. Has to be called if persisted fingerprints are modified
+     * in place.
+     */
+    @Override
+    public void invalidate() {
+        rankPositions.invalidate();
+    }
+
+    /**
+     * Orders the keys of the live fingerprint by signal strength ascending into the reusable key id array
+     *
+     * @param interpolatedFingerPrint live fingerprint
+     * @return amount of keys
+     */
+    protected int orderLiveFingerprint(Map<String, SignalInformation> interpolatedFingerPrint) {
+        liveFingerprint.setLiveSignalData(interpolatedFingerPrint, keyDictionary);
+        if (liveOrderedKeyIds.length < liveFingerprint.size()) {
+            liveOrderedKeyIds = new int[liveFingerprint.size() * 2];
+        }
+        return liveFingerprint.orderKeyIdsByStrength(liveOrderedKeyIds);
+    }
+
+    /**
+     * Counts the positions at which the live order differs from the persisted order
+     *
+     * @param liveKeyIds      ordered key ids of the live fingerprint
+     * @param liveSize        amount of live keys
+     * @param persistedKeyIds ordered key ids of the persisted fingerprint
+     * @return amount of differences
+     */
+    protected static int countDifferences(int[] liveKeyIds, int liveSize, int[] persistedKeyIds) {
+        return countDifferences(liveKeyIds, liveSize, persistedKeyIds, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Counts the positions at which the live order differs from the persisted order, stops as soon as a bound is reached
+     *
+     * @param liveKeyIds      ordered key ids of the live fingerprint
+     * @param liveSize        amount of live keys
+     * @param persistedKeyIds ordered key ids of the persisted fingerprint
+     * @param maxDifferences  bound, if it is reached the partial amount is returned
+     * @return amount of differences
+     */
+    protected static int countDifferences(int[] liveKeyIds, int liveSize, int[] persistedKeyIds, double maxDifferences) {
+        int countDifferences = 0;
+        int commonSize = Math.min(liveSize, persistedKeyIds.length);
+        for (int keyIndex = 0; keyIndex < commonSize; keyIndex++) {
+            if (liveKeyIds[keyIndex] != persistedKeyIds[keyIndex] && ++countDifferences >= maxDifferences) {
+                return countDifferences;
+            }
+        }
+        return countDifferences + liveSize - commonSize;
+    }
+
+    /**
+     * Calculates the distances of a range of the persisted fingerprints, splits it in halves until it fits into a chunk
+     */
+    private class DistanceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private OrderRankIndex index;
+        private OrderDistance orderDistance;
+        private int[] liveKeyIds;
+        private int liveSize;
+        private double[] distances;
+        private int chunkSize;
+        private int from;
+        private int to;
+
+        private DistanceTask(OrderRankIndex index, OrderDistance orderDistance, int[] liveKeyIds, int liveSize, double[] distances, int chunkSize, int from, int to) {
+            this.index = index;
+            this.orderDistance = orderDistance;
+            this.liveKeyIds = liveKeyIds;
+            this.liveSize = liveSize;
+            this.distances = distances;
+            this.chunkSize = chunkSize;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                RankDistance chunkRankDistance = null;
+                if (orderDistance != OrderDistance.MISMATCHES) {
+                    chunkRankDistance = new RankDistance();
+                    chunkRankDistance.set(rankDistance);
                 }
-                keyIndex++;
+                calculateDistances(index, orderDistance, liveKeyIds, liveSize, chunkRankDistance, distances, from, to);
+                return;
             }
-            orderResults.put(positionInformation, (double) countDifferences);
+            int middle = (from + to) >>> 1;
+            invokeAll(new DistanceTask(index, orderDistance, liveKeyIds, liveSize, distances, chunkSize, from, middle),
+                    new DistanceTask(index, orderDistance, liveKeyIds, liveSize, distances, chunkSize, middle, to));
         }
-        return orderResults;
     }
 }
@@ -0,0 +1,99 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed order of the signal keys of all persisted fingerprints. The key ids of every fingerprint are ordered by their
+ * signal strength ascending. The index is immutable and only has to be rebuilt if the persisted fingerprints change, which is detected by a
+ * {@link PersistedPositionsTracker}.
+ */
+public class OrderRankIndex {
+    private final PositionInformation[] positions;
+    private final Map<?, ?>[] signalInformation;
+    private final int[][] orderedKeyIds;
+    private final Fingerprint[] fingerprints;
+    private final Map<PositionInformation, Integer> indices;
+
+    /**
+     * Builds the index for persisted fingerprints
+     *
+     * @param keyDictionary      dictionary for interning the signal keys
+     * @param persistedPositions persisted fingerprints
+     */
+    public OrderRankIndex(SignalKeyDictionary keyDictionary, List<PositionInformation> persistedPositions) {
+        int amount = persistedPositions.size();
+        positions = new PositionInformation[amount];
+        signalInformation = new Map<?, ?>[amount];
+        orderedKeyIds = new int[amount][];
+        fingerprints = new Fingerprint[amount];
+        indices = new IdentityHashMap<PositionInformation, Integer>(amount * 4 / 3 + 1);
+        int position = 0;
+        for (PositionInformation positionInformation : persistedPositions) {
+            Map<String, SignalInformation> persistedSignalInformation = positionInformation.getSignalInformation();
+            Fingerprint fingerprint = Fingerprint.fromSignalData(persistedSignalInformation, keyDictionary);
+            int[] keyIds = new int[fingerprint.size()];
+            fingerprint.orderKeyIdsByStrength(keyIds);
+            positions[position] = positionInformation;
+            signalInformation[position] = persistedSignalInformation;
+            orderedKeyIds[position] = keyIds;
+            fingerprints[position] = fingerprint;
+            indices.put(positionInformation, position);
+            position++;
+        }
+    }
+
+    /**
+     * Returns the amount of indexed fingerprints
+     *
+     * @return amount of fingerprints
+     */
+    public int size() {
+        return positions.length;
+    }
+
+    /**
+     * Returns an indexed fingerprint
+     *
+     * @param index position in the index
+     * @return persisted fingerprint
+     */
+    public PositionInformation getPosition(int index) {
+        return positions[index];
+    }
+
+    /**
+     * Returns the position of a persisted fingerprint in the index
+     *
+     * @param positionInformation persisted fingerprint
+     * @return position in the index, -1 if the fingerprint is not indexed
+     */
+    public int indexOf(PositionInformation positionInformation) {
+        Integer index = indices.get(positionInformation);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the key ids of an indexed fingerprint ordered by signal strength ascending
+     *
+     * @param index position in the index
+     * @return ordered key ids
+     */
+    public int[] getOrderedKeyIds(int index) {
+        return orderedKeyIds[index];
+    }
+
+    /**
+     * Returns the fingerprint of an indexed position, the fingerprint must not be modified
+     *
+     * @param index position in the index
+     * @return fingerprint
+     */
+    public Fingerprint getFingerprint(int index) {
+        return fingerprints[index];
+    }
+}
@@ -0,0 +1,155 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.controller.Matcher;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Matcher which splits the persisted fingerprints into chunks and matches them in parallel with another matcher. The signal
+ * data is added to the caching manager once, every chunk is matched against the same interpolated fingerprint. Small amounts
+ * of persisted fingerprints are matched on the calling thread. The wrapped matcher has to support concurrent calls, the
+ * {@link OrderMatcher} does not and calculates its distances in parallel itself.
+ */
+public class ParallelMatcher extends Matcher {
+    /**
+     * default amount of persisted fingerprints from which on the matching runs in parallel
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 2000;
+
+    private static ForkJoinPool defaultPool;
+
+    private Matcher matcher;
+    private ForkJoinPool pool;
+    private int parallelThreshold;
+
+    /**
+     * Creates the matcher using the default pool and threshold
+     *
+     * @param matcher matcher which matches the chunks
+     */
+    public ParallelMatcher(Matcher matcher) {
+        this(matcher, getDefaultPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates the matcher
+     *
+     * @param matcher           matcher which matches the chunks
+     * @param pool              pool which executes the chunks
+     * @param parallelThreshold amount of persisted fingerprints from which on the matching runs in parallel
+     */
+    public ParallelMatcher(Matcher matcher, ForkJoinPool pool, int parallelThreshold) {
+        this.matcher = matcher;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Returns the pool which is shared by all parallel matchers, it has one thread per available processor
+     *
+     * @return shared pool
+     */
+    public static synchronized ForkJoinPool getDefaultPool() {
+        if (defaultPool == null) {
+            defaultPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return defaultPool;
+    }
+
+    /**
+     * Calculates the chunk size, so that every thread of the pool gets a few chunks to balance uneven chunks
+     *
+     * @param pool              pool which executes the chunks
+     * @param amount            amount of persisted fingerprints
+     * @param parallelThreshold amount of persisted fingerprints from which on the matching runs in parallel
+     * @return amount of persisted fingerprints per chunk
+     */
+    static int chunkSize(ForkJoinPool pool, int amount, int parallelThreshold) {
+        return Math.max(Math.max(1, parallelThreshold / 4), amount / (pool.getParallelism() * 4) + 1);
+    }
+
+    /**
+     * Matches the fingerprints in parallel with the wrapped matcher
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions persisted fingerprints
+     * @param ignoreDisabledAPs  passed to the wrapped matcher
+     * @return matched fingerprints
+     */
+    @Override
+    public Map<PositionInformation, Double> nearestNeighbour(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, boolean ignoreDisabledAPs) {
+        if (persistedPositions.size() < parallelThreshold) {
+            return matcher.nearestNeighbour(cachingManager, fingerPrint, persistedPositions, ignoreDisabledAPs);
+        }
+        cachingManager.addData(fingerPrint);
+        Map<String, SignalInformation> interpolatedFingerPrint = cachingManager.interpolateData();
+        int chunkSize = chunkSize(pool, persistedPositions.size(), parallelThreshold);
+        return pool.invoke(new MatchingTask(interpolatedFingerPrint, persistedPositions, ignoreDisabledAPs, chunkSize, 0, persistedPositions.size()));
+    }
+
+    /**
+     * Sets the amount of persisted fingerprints from which on the matching runs in parallel
+     *
+     * @param parallelThreshold amount of persisted fingerprints
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Returns the amount of persisted fingerprints from which on the matching runs in parallel
+     *
+     * @return amount of persisted fingerprints
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Matches a range of the persisted fingerprints, splits it in halves until it fits into a chunk
+     */
+    private class MatchingTask extends RecursiveTask<Map<PositionInformation, Double>> {
+        private static final long serialVersionUID = 1L;
+        private Map<String, SignalInformation> interpolatedFingerPrint;
+        private List<PositionInformation> persistedPositions;
+        private boolean ignoreDisabledAPs;
+        private int chunkSize;
+        private int from;
+        private int to;
+
+        private MatchingTask(Map<String, SignalInformation> interpolatedFingerPrint, List<PositionInformation> persistedPositions, boolean ignoreDisabledAPs, int chunkSize, int from, int to) {
+            this.interpolatedFingerPrint = interpolatedFingerPrint;
+            this.persistedPositions = persistedPositions;
+            this.ignoreDisabledAPs = ignoreDisabledAPs;
+            this.chunkSize = chunkSize;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<PositionInformation, Double> compute() {
+            if (to - from <= chunkSize) {
+                return matcher.nearestNeighbour(new SnapshotCachingManager(interpolatedFingerPrint), interpolatedFingerPrint, persistedPositions.subList(from, to), ignoreDisabledAPs);
+            }
+            int middle = (from + to) >>> 1;
+            MatchingTask left = new MatchingTask(interpolatedFingerPrint, persistedPositions, ignoreDisabledAPs, chunkSize, from, middle);
+            MatchingTask right = new MatchingTask(interpolatedFingerPrint, persistedPositions, ignoreDisabledAPs, chunkSize, middle, to);
+            left.fork();
+            Map<PositionInformation, Double> rightResults = right.compute();
+            Map<PositionInformation, Double> leftResults = left.join();
+            if (leftResults.size() < rightResults.size()) {
+                rightResults.putAll(leftResults);
+                return rightResults;
+            }
+            leftResults.putAll(rightResults);
+            return leftResults;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import java.util.Random;
+
+/**
+ * Particle filter which tracks a position on one floor of the map grid. Coordinates are in map segment units like
+ * {@link EstimatedPosition}. Segments which are not walkable, e.g. walls, can neither hold particles nor be crossed by them.
+ * The particles are stored in primitive arrays, one array per attribute, and are resampled systematically into preallocated
+ * buffers, so a filter cycle does not allocate. A cycle consists of {@link #predict(float, float)} with the displacement of an
+ * optional motion model, {@link #update(float[], float[], double[], int)} with the matched positions as likelihood and
+ * {@link #estimate(EstimatedPosition, int)}.
+ */
+public class ParticleFilter {
+    /**
+     * default amount of particles
+     */
+    public static final int DEFAULT_PARTICLE_AMOUNT = 2000;
+    /**
+     * default standard deviation of the movement of a particle per cycle in map segments
+     */
+    public static final float DEFAULT_MOTION_NOISE = 0.5f;
+    /**
+     * default standard deviation of a matched position in map segments
+     */
+    public static final float DEFAULT_MEASUREMENT_NOISE = 1.5f;
+
+    private int rows;
+    private int columns;
+    private boolean[] walkable;
+    private int[] walkableSegments;
+    private int walkableAmount;
+    private Random random;
+    private float motionNoise = DEFAULT_MOTION_NOISE;
+    private float measurementNoise = DEFAULT_MEASUREMENT_NOISE;
+    private float[] xs;
+    private float[] ys;
+    private double[] weights;
+    private float[] resampledXs;
+    private float[] resampledYs;
+    private float[] estimatedX = new float[1];
+    private float[] estimatedY = new float[1];
+    private double[] estimatedWeight = new double[]{1.0};
+
+    /**
+     * Creates the filter with the default amount of particles, the particles are spread over all walkable segments
+     *
+     * @param rows     amount of rows
+     * @param columns  amount of columns
+     * @param walkable walkable segments, row by row
+     */
+    public ParticleFilter(int rows, int columns, boolean[] walkable) {
+        this(rows, columns, walkable, DEFAULT_PARTICLE_AMOUNT, new Random());
+    }
+
+    /**
+     * Creates the filter, the particles are spread over all walkable segments
+     *
+     * @param rows           amount of rows
+     * @param columns        amount of columns
+     * @param walkable       walkable segments, row by row
+     * @param particleAmount amount of particles
+     * @param random         random generator
+     */
+    public ParticleFilter(int rows, int columns, boolean[] walkable, int particleAmount, Random random) {
+        if (walkable.length != rows * columns) {
+            throw new IllegalArgumentException("walkable segments do not match the map size");
+        }
+        if (particleAmount < 1) {
+            throw new IllegalArgumentException("particle amount must be at least 1");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.walkable = walkable.clone();
+        this.random = random;
+        walkableSegments = new int[walkable.length];
+        for (int segment = 0; segment < walkable.length; segment++) {
+            if (walkable[segment]) {
+                walkableSegments[walkableAmount++] = segment;
+            }
+        }
+        if (walkableAmount == 0) {
+            throw new IllegalArgumentException("no segment is walkable");
+        }
+        xs = new float[particleAmount];
+        ys = new float[particleAmount];
+        weights = new double[particleAmount];
+        resampledXs = new float[particleAmount];
+        resampledYs = new float[particleAmount];
+        reset();
+    }
+
+    /**
+     * Spreads the particles uniformly over all walkable segments
+     */
+    public void reset() {
+        for (int i = 0; i < xs.length; i++) {
+            int segment = walkableSegments[random.nextInt(walkableAmount)];
+            xs[i] = segment % columns + random.nextFloat();
+            ys[i] = segment / columns + random.nextFloat();
+            weights[i] = 1.0 / xs.length;
+        }
+    }
+
+    /**
+     * Spreads the particles around a position, particles which would be placed in a wall are placed at the position
+     *
+     * @param x      x coordinate
+     * @param y      y coordinate
+     * @param radius standard deviation of the particles in map segments
+     */
+    public void reset(float x, float y, float radius) {
+        for (int i = 0; i < xs.length; i++) {
+            float particleX = x + (float) random.nextGaussian() * radius;
+            float particleY = y + (float) random.nextGaussian() * radius;
+            if (!isWalkable(particleX, particleY)) {
+                particleX = x;
+                particleY = y;
+            }
+            xs[i] = particleX;
+            ys[i] = particleY;
+            weights[i] = 1.0 / xs.length;
+        }
+    }
+
+    /**
+     * Moves every particle by a displacement and a random noise. A particle whose movement would cross a segment which is not
+     * walkable keeps its position.
+     *
+     * @param dx x displacement of the motion model, 0 without motion model
+     * @param dy y displacement of the motion model, 0 without motion model
+     */
+    public void predict(float dx, float dy) {
+        for (int i = 0; i < xs.length; i++) {
+            float x = xs[i];
+            float y = ys[i];
+            float nextX = x + dx + (float) random.nextGaussian() * motionNoise;
+            float nextY = y + dy + (float) random.nextGaussian() * motionNoise;
+            if (canMove(x, y, nextX, nextY)) {
+                xs[i] = nextX;
+                ys[i] = nextY;
+            }
+        }
+    }
+
+    /**
+     * Weights the particles by the likelihood of the matched positions, a mixture of gaussians around the positions weighted by
+     * their matching scores. Resamples the particles if the weights have degenerated.
+     *
+     * @param pointXs      x coordinates of the matched positions
+     * @param pointYs      y coordinates of the matched positions
+     * @param pointWeights weights of the matched positions, e.g. inverse matching distances
+     * @param pointAmount  amount of matched positions
+     */
+    public void update(float[] pointXs, float[] pointYs, double[] pointWeights, int pointAmount) {
+        if (pointAmount == 0) {
+            return;
+        }
+        double factor = -0.5 / (measurementNoise * measurementNoise);
+        double weightSum = 0.0;
+        for (int i = 0; i < xs.length; i++) {
+            double likelihood = 0.0;
+            for (int k = 0; k < pointAmount; k++) {
+                double dx = xs[i] - pointXs[k];
+                double dy = ys[i] - pointYs[k];
+                likelihood += pointWeights[k] * Math.exp(factor * (dx * dx + dy * dy));
+            }
+            weights[i] *= likelihood;
+            weightSum += weights[i];
+        }
+        if (weightSum <= 0.0 || Double.isNaN(weightSum)) {
+            // no particle explains the measurement, the tracking is lost
+            reset(pointXs[0], pointYs[0], measurementNoise);
+            return;
+        }
+        double squaredWeightSum = 0.0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= weightSum;
+            squaredWeightSum += weights[i] * weights[i];
+        }
+        if (1.0 / squaredWeightSum < xs.length / 2.0) {
+            resample();
+        }
+    }
+
+    /**
+     * Weights the particles by an estimated position
+     *
+     * @param estimatedPosition estimated position, its radius widens the likelihood
+     */
+    public void update(EstimatedPosition estimatedPosition) {
+        float noise = measurementNoise;
+        measurementNoise = Math.max(measurementNoise, estimatedPosition.getRadius());
+        estimatedX[0] = estimatedPosition.getX();
+        estimatedY[0] = estimatedPosition.getY();
+        try {
+            update(estimatedX, estimatedY, estimatedWeight, 1);
+        } finally {
+            measurementNoise = noise;
+        }
+    }
+
+    /**
+     * Calculates the weighted mean of the particles
+     *
+     * @param result position which will be set, its radius is the weighted root mean square distance of the particles
+     * @param z      z value of the tracked floor
+     */
+    public void estimate(EstimatedPosition result, int z) {
+        double x = 0.0;
+        double y = 0.0;
+        for (int i = 0; i < xs.length; i++) {
+            x += weights[i] * xs[i];
+            y += weights[i] * ys[i];
+        }
+        double squaredRadius = 0.0;
+        for (int i = 0; i < xs.length; i++) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            squaredRadius += weights[i] * (dx * dx + dy * dy);
+        }
+        result.set((float) x, (float) y, z, (float) Math.sqrt(squaredRadius));
+    }
+
+    /**
+     * Draws new particles proportional to their weights with a single random offset, every particle with a weight of at least
+     * 1 / n survives
+     */
+    public void resample() {
+        int particleAmount = xs.length;
+        double step = 1.0 / particleAmount;
+        double position = random.nextDouble() * step;
+        double cumulativeWeight = weights[0];
+        int source = 0;
+        for (int i = 0; i < particleAmount; i++) {
+            while (position > cumulativeWeight && source < particleAmount - 1) {
+                cumulativeWeight += weights[++source];
+            }
+            resampledXs[i] = xs[source];
+            resampledYs[i] = ys[source];
+            position += step;
+        }
+        float[] buffer = xs;
+        xs = resampledXs;
+        resampledXs = buffer;
+        buffer = ys;
+        ys = resampledYs;
+        resampledYs = buffer;
+        for (int i = 0; i < particleAmount; i++) {
+            weights[i] = step;
+        }
+    }
+
+    /**
+     * Sets the standard deviation of the movement of a particle per cycle
+     *
+     * @param motionNoise standard deviation in map segments
+     */
+    public void setMotionNoise(float motionNoise) {
+        this.motionNoise = motionNoise;
+    }
+
+    /**
+     * Sets the standard deviation of a matched position
+     *
+     * @param measurementNoise standard deviation in map segments
+     */
+    public void setMeasurementNoise(float measurementNoise) {
+        this.measurementNoise = measurementNoise;
+    }
+
+    /**
+     * Returns the amount of particles
+     *
+     * @return amount of particles
+     */
+    public int getParticleAmount() {
+        return xs.length;
+    }
+
+    /**
+     * Returns the x coordinate of a particle
+     *
+     * @param index index of the particle
+     * @return x coordinate
+     */
+    public float getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * Returns the y coordinate of a particle
+     *
+     * @param index index of the particle
+     * @return y coordinate
+     */
+    public float getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Returns the normalized weight of a particle
+     *
+     * @param index index of the particle
+     * @return weight
+     */
+    public double getWeight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * Checks if a point is inside the map and on a walkable segment
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return true, if the point is walkable
+     */
+    public boolean isWalkable(float x, float y) {
+        if (!(x >= 0.0f && y >= 0.0f && x < columns && y < rows)) {
+            return false;
+        }
+        return walkable[(int) y * columns + (int) x];
+    }
+
+    /**
+     * Checks if a straight movement only touches walkable segments, visits every segment on the line
+     */
+    private boolean canMove(float x, float y, float nextX, float nextY) {
+        if (!isWalkable(nextX, nextY)) {
+            return false;
+        }
+        int column = (int) x;
+        int row = (int) y;
+        int targetColumn = (int) nextX;
+        int targetRow = (int) nextY;
+        float dx = nextX - x;
+        float dy = nextY - y;
+        int stepColumn = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        // distances along the line to the next vertical and horizontal segment border
+        float deltaX = dx != 0.0f ? Math.abs(1.0f / dx) : Float.POSITIVE_INFINITY;
+        float deltaY = dy != 0.0f ? Math.abs(1.0f / dy) : Float.POSITIVE_INFINITY;
+        float borderX = dx == 0.0f ? Float.POSITIVE_INFINITY : (dx > 0 ? column + 1 - x : x - column) * deltaX;
+        float borderY = dy == 0.0f ? Float.POSITIVE_INFINITY : (dy > 0 ? row + 1 - y : y - row) * deltaY;
+        while (column != targetColumn || row != targetRow) {
+            if (borderX < borderY) {
+                if (column == targetColumn) {
+                    break;
+                }
+                column += stepColumn;
+                borderX += deltaX;
+            } else {
+                if (row == targetRow) {
+                    break;
+                }
+                row += stepRow;
+                borderY += deltaY;
+            }
+            if (!walkable[row * columns + column]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,61 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.Matcher;
+import de.hadizadeh.positioning.model.PositionInformation;
+
+import java.util.List;
+
+/**
+ * Detects in constant time if the persisted positions have changed since the data derived from them has been built. A new list
+ * or a different size is detected, changes which keep the list and its size (replaced positions or signal data) have to be
+ * announced with {@link #invalidate()}. The tracker is not thread safe, except for {@link #invalidate()}.
+ */
+public class PersistedPositionsTracker {
+    private List<PositionInformation> positions;
+    private int size;
+    private volatile boolean invalidated = true;
+
+    /**
+     * Checks if the derived data has to be rebuilt
+     *
+     * @param persistedPositions persisted positions
+     * @return true, if the positions have changed or have been invalidated since the last synchronization
+     */
+    public boolean hasChanged(List<PositionInformation> persistedPositions) {
+        return invalidated || persistedPositions != positions || persistedPositions.size() != size;
+    }
+
+    /**
+     * Marks the positions as synchronized, has to be called before the derived data is built, so an invalidation during the build
+     * is not lost
+     *
+     * @param persistedPositions persisted positions
+     */
+    public void synchronize(List<PositionInformation> persistedPositions) {
+        invalidated = false;
+        positions = persistedPositions;
+        size = persistedPositions.size();
+    }
+
+    /**
+     * Forces a rebuild of the derived data with the next check
+     */
+    public void invalidate() {
+        invalidated = true;
+    }
+
+    /**
+     * Invalidates the derived data of a wrapped matcher, if it has any
+     *
+     * @param matcher wrapped matcher
+     */
+    static void invalidate(Matcher matcher) {
+        if (matcher instanceof CandidateMatcher) {
+            ((CandidateMatcher) matcher).invalidate();
+        } else if (matcher instanceof PruningMatcher) {
+            ((PruningMatcher) matcher).invalidate();
+        } else if (matcher instanceof FloorMatcher) {
+            ((FloorMatcher) matcher).invalidate();
+        }
+    }
+}
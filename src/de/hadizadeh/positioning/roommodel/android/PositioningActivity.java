@@ -15,6 +15,7 @@ import de.hadizadeh.positioning.model.MappingPoint;
 import de.hadizadeh.positioning.roommodel.ContentController;
 import de.hadizadeh.positioning.roommodel.android.technologies.NfcHandler;
 import de.hadizadeh.positioning.roommodel.android.technologies.NfcHandlerInterface;
+import de.hadizadeh.positioning.roommodel.android.technologies.SignalTraceRecorder;
 import de.hadizadeh.positioning.roommodel.model.Material;
 
 import java.util.ArrayList;
@@ -224,12 +225,13 @@ public abstract class PositioningActivity extends Activity {
     }
 
     /**
-     * Checks if a technology is a nfc technology
+     * Checks if a technology is a nfc technology, recorded technologies are unwrapped
      *
      * @param technology technology
      * @return true, if it is an nfc technology, else it is not
      */
     protected boolean isNfcTechnology(Technology technology) {
+        technology = SignalTraceRecorder.unwrap(technology);
         if (technology instanceof ActiveTechnology && technology.getName().toLowerCase().contains("nfc")) {
             return true;
         }
@@ -246,7 +248,7 @@ public abstract class PositioningActivity extends Activity {
         ActiveTechnology nfcTechnology = null;
         for (Technology technology : technologies) {
             if (isNfcTechnology(technology)) {
-                nfcTechnology = (ActiveTechnology) technology;
+                nfcTechnology = (ActiveTechnology) SignalTraceRecorder.unwrap(technology);
             }
         }
 
@@ -0,0 +1,117 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.controller.Matcher;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matcher which passes only candidates to another matcher. Candidates are the persisted positions which share at least a
+ * minimum amount of the strongest live keys, they are looked up in an inverted {@link SignalKeyIndex}. If no position is a
+ * candidate, all positions are matched. The index is synchronized with the persisted positions on every matching, which is
+ * free as long as the list and its size do not change, see {@link #invalidate()}. A {@link CandidateMatcher} receives all persisted positions
+ * together with the candidates, so its own index is not rebuilt when the candidates change. Other matchers receive only the
+ * candidates.
+ */
+public class PruningMatcher extends Matcher {
+    private Matcher matcher;
+    private SignalKeyIndex signalKeyIndex;
+    private int strongestKeys;
+    private int minSharedKeys;
+    private List<PositionInformation> candidates = new ArrayList<PositionInformation>();
+    private Set<PositionInformation> candidateSet = Collections.newSetFromMap(new IdentityHashMap<PositionInformation, Boolean>());
+
+    /**
+     * Creates the matcher which passes the positions sharing at least one of the three strongest keys, using the shared key
+     * dictionary
+     *
+     * @param matcher matcher which matches the candidates
+     */
+    public PruningMatcher(Matcher matcher) {
+        this(matcher, new SignalKeyIndex(SignalKeyDictionary.getInstance()), 3, 1);
+    }
+
+    /**
+     * Creates the matcher
+     *
+     * @param matcher        matcher which matches the candidates
+     * @param signalKeyIndex inverted index of the persisted positions
+     * @param strongestKeys  amount of the strongest live keys which are looked up
+     * @param minSharedKeys  minimum amount of these keys which a candidate has to contain
+     */
+    public PruningMatcher(Matcher matcher, SignalKeyIndex signalKeyIndex, int strongestKeys, int minSharedKeys) {
+        this.matcher = matcher;
+        this.signalKeyIndex = signalKeyIndex;
+        this.strongestKeys = strongestKeys;
+        this.minSharedKeys = minSharedKeys;
+    }
+
+    /**
+     * Matches only the candidates with the wrapped matcher
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions persisted fingerprints
+     * @param ignoreDisabledAPs  passed to the wrapped matcher
+     * @return matched candidates
+     */
+    @Override
+    public Map<PositionInformation, Double> nearestNeighbour(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, boolean ignoreDisabledAPs) {
+        cachingManager.addData(fingerPrint);
+        Map<String, SignalInformation> interpolatedFingerPrint = cachingManager.interpolateData();
+        signalKeyIndex.synchronize(persistedPositions);
+        CachingManager snapshotCachingManager = new SnapshotCachingManager(interpolatedFingerPrint);
+        if (signalKeyIndex.findCandidates(interpolatedFingerPrint, strongestKeys, minSharedKeys, candidates) == 0) {
+            return matcher.nearestNeighbour(snapshotCachingManager, interpolatedFingerPrint, persistedPositions, ignoreDisabledAPs);
+        }
+        if (matcher instanceof CandidateMatcher) {
+            candidateSet.clear();
+            candidateSet.addAll(candidates);
+            return ((CandidateMatcher) matcher).nearestNeighbour(snapshotCachingManager, interpolatedFingerPrint, persistedPositions, candidateSet, ignoreDisabledAPs);
+        }
+        return matcher.nearestNeighbour(snapshotCachingManager, interpolatedFingerPrint, candidates, ignoreDisabledAPs);
+    }
+
+    /**
+     * Forces the inverted index and the wrapped matcher to be synchronized with the persisted positions for the next matching. Has
+     * to be called if persisted positions are replaced or their signal data is modified without changing the size of the list.
+     */
+    public void invalidate() {
+        signalKeyIndex.invalidate();
+        PersistedPositionsTracker.invalidate(matcher);
+    }
+
+    /**
+     * Returns the inverted index, positions which are replaced in place can be updated there
+     *
+     * @return inverted index
+     */
+    public SignalKeyIndex getSignalKeyIndex() {
+        return signalKeyIndex;
+    }
+
+    /**
+     * Sets the amount of the strongest live keys which are looked up
+     *
+     * @param strongestKeys amount of keys
+     */
+    public void setStrongestKeys(int strongestKeys) {
+        this.strongestKeys = strongestKeys;
+    }
+
+    /**
+     * Sets the minimum amount of the strongest live keys which a candidate has to contain
+     *
+     * @param minSharedKeys amount of keys
+     */
+    public void setMinSharedKeys(int minSharedKeys) {
+        this.minSharedKeys = minSharedKeys;
+    }
+}
@@ -0,0 +1,225 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import java.util.Arrays;
+
+/**
+ * Rank correlation distances between a live fingerprint and persisted fingerprints. The keys of the live fingerprint are
+ * compared, keys which are missing in a persisted fingerprint are ranked below all received keys. Equal strengths are ties and
+ * get the average rank of their group. Instances keep reusable buffers and are not thread safe.
+ */
+public class RankDistance {
+    private int size;
+    private int[] liveKeyIds = new int[16];
+    private float[] liveStrengths = new float[16];
+    private double[] liveRanks = new double[16];
+    private int[] tieGroupEnds = new int[16];
+    private long liveTiedPairs;
+    private long[] sortBuffer = new long[16];
+    private int[] sequence = new int[16];
+    private int[] mergeBuffer = new int[16];
+
+    /**
+     * Sets the live fingerprint which will be compared with persisted fingerprints
+     *
+     * @param liveFingerprint live fingerprint
+     */
+    public void setLiveFingerprint(Fingerprint liveFingerprint) {
+        size = liveFingerprint.size();
+        ensureCapacity(size);
+        liveFingerprint.orderKeyIdsByStrength(liveKeyIds);
+        for (int i = 0; i < size; i++) {
+            liveStrengths[i] = liveFingerprint.getStrengthOfKey(liveKeyIds[i], Float.NEGATIVE_INFINITY);
+        }
+        liveTiedPairs = 0;
+        int groupStart = 0;
+        for (int i = 1; i <= size; i++) {
+            if (i == size || liveStrengths[i] != liveStrengths[groupStart]) {
+                double averageRank = (groupStart + i - 1) / 2.0;
+                for (int k = groupStart; k < i; k++) {
+                    liveRanks[k] = averageRank;
+                    tieGroupEnds[k] = i;
+                }
+                liveTiedPairs += pairs(i - groupStart);
+                groupStart = i;
+            }
+        }
+    }
+
+    /**
+     * Copies the live fingerprint of another instance, so the instances can calculate distances in parallel
+     *
+     * @param rankDistance instance to copy
+     */
+    public void set(RankDistance rankDistance) {
+        size = rankDistance.size;
+        ensureCapacity(size);
+        System.arraycopy(rankDistance.liveKeyIds, 0, liveKeyIds, 0, size);
+        System.arraycopy(rankDistance.liveStrengths, 0, liveStrengths, 0, size);
+        System.arraycopy(rankDistance.liveRanks, 0, liveRanks, 0, size);
+        System.arraycopy(rankDistance.tieGroupEnds, 0, tieGroupEnds, 0, size);
+        liveTiedPairs = rankDistance.liveTiedPairs;
+    }
+
+    /**
+     * Calculates the Spearman footrule distance, the sum of the absolute rank differences of all live keys
+     *
+     * @param persistedFingerprint persisted fingerprint
+     * @return footrule distance
+     */
+    public double footrule(Fingerprint persistedFingerprint) {
+        return footrule(persistedFingerprint, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Calculates the Spearman footrule distance, stops as soon as the distance reaches a bound
+     *
+     * @param persistedFingerprint persisted fingerprint
+     * @param maxDistance          bound, if it is reached a partial distance which is at least the bound is returned
+     * @return footrule distance
+     */
+    public double footrule(Fingerprint persistedFingerprint, double maxDistance) {
+        for (int i = 0; i < size; i++) {
+            float persistedStrength = persistedFingerprint.getStrengthOfKey(liveKeyIds[i], Float.NEGATIVE_INFINITY);
+            sortBuffer[i] = ((long) Fingerprint.toOrderedBits(persistedStrength) << 32) | i;
+        }
+        Arrays.sort(sortBuffer, 0, size);
+        double distance = 0.0;
+        int groupStart = 0;
+        for (int i = 1; i <= size; i++) {
+            if (i == size || (sortBuffer[i] >> 32) != (sortBuffer[groupStart] >> 32)) {
+                double averageRank = (groupStart + i - 1) / 2.0;
+                for (int k = groupStart; k < i; k++) {
+                    distance += Math.abs(liveRanks[(int) sortBuffer[k]] - averageRank);
+                }
+                if (distance >= maxDistance) {
+                    return distance;
+                }
+                groupStart = i;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Calculates the Kendall tau distance, the amount of key pairs which are ordered differently. Pairs which are tied in only
+     * one of the fingerprints count half. The discordant pairs are counted as inversions by a merge sort in O(n log n).
+     *
+     * @param persistedFingerprint persisted fingerprint
+     * @return kendall tau distance
+     */
+    public double kendallTau(Fingerprint persistedFingerprint) {
+        return kendallTau(persistedFingerprint, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Calculates the Kendall tau distance, stops as soon as the discordant pairs reach a bound
+     *
+     * @param persistedFingerprint persisted fingerprint
+     * @param maxDistance          bound, if it is reached a partial distance which is at least the bound is returned
+     * @return kendall tau distance
+     */
+    public double kendallTau(Fingerprint persistedFingerprint, double maxDistance) {
+        for (int i = 0; i < size; i++) {
+            sequence[i] = Fingerprint.toOrderedBits(persistedFingerprint.getStrengthOfKey(liveKeyIds[i], Float.NEGATIVE_INFINITY));
+        }
+        // pairs tied in the live fingerprint are no inversions, so they are ordered by the persisted strength first
+        long jointTiedPairs = 0;
+        for (int groupStart = 0; groupStart < size; groupStart = tieGroupEnds[groupStart]) {
+            int groupEnd = tieGroupEnds[groupStart];
+            if (groupEnd - groupStart > 1) {
+                Arrays.sort(sequence, groupStart, groupEnd);
+                jointTiedPairs += countTiedPairs(sequence, groupStart, groupEnd);
+            }
+        }
+        long maxInversions = maxDistance >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) Math.ceil(maxDistance);
+        long discordantPairs = countInversions(sequence, mergeBuffer, 0, size, maxInversions);
+        if (discordantPairs >= maxDistance) {
+            return discordantPairs;
+        }
+        long persistedTiedPairs = countTiedPairs(sequence, 0, size);
+        return discordantPairs + ((liveTiedPairs - jointTiedPairs) + (persistedTiedPairs - jointTiedPairs)) / 2.0;
+    }
+
+    /**
+     * Returns the amount of live keys
+     *
+     * @return amount of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sorts values ascending and counts the pairs which are in descending order before. Equal values are no inversions.
+     *
+     * @param values        values, will be sorted
+     * @param buffer        buffer which is at least as long as the values
+     * @param from          first index, inclusive
+     * @param to            last index, exclusive
+     * @param maxInversions bound, if it is reached after a merge pass the values stay partially sorted
+     * @return amount of inversions or a partial amount which is at least the bound
+     */
+    static long countInversions(int[] values, int[] buffer, int from, int to, long maxInversions) {
+        long inversions = 0;
+        for (int width = 1; width < to - from; width *= 2) {
+            for (int left = from; left < to - width; left += 2 * width) {
+                int middle = left + width;
+                int right = Math.min(middle + width, to);
+                if (values[middle - 1] <= values[middle]) {
+                    continue;
+                }
+                int i = left;
+                int j = middle;
+                int position = left;
+                while (i < middle && j < right) {
+                    if (values[i] <= values[j]) {
+                        buffer[position++] = values[i++];
+                    } else {
+                        inversions += middle - i;
+                        buffer[position++] = values[j++];
+                    }
+                }
+                while (i < middle) {
+                    buffer[position++] = values[i++];
+                }
+                while (j < right) {
+                    buffer[position++] = values[j++];
+                }
+                System.arraycopy(buffer, left, values, left, right - left);
+            }
+            if (inversions >= maxInversions) {
+                return inversions;
+            }
+        }
+        return inversions;
+    }
+
+    private static long countTiedPairs(int[] sortedValues, int from, int to) {
+        long tiedPairs = 0;
+        int groupStart = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (i == to || sortedValues[i] != sortedValues[groupStart]) {
+                tiedPairs += pairs(i - groupStart);
+                groupStart = i;
+            }
+        }
+        return tiedPairs;
+    }
+
+    private static long pairs(long amount) {
+        return amount * (amount - 1) / 2;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > liveKeyIds.length) {
+            int newCapacity = Math.max(capacity, liveKeyIds.length * 2);
+            liveKeyIds = new int[newCapacity];
+            liveStrengths = new float[newCapacity];
+            liveRanks = new double[newCapacity];
+            tieGroupEnds = new int[newCapacity];
+            sortBuffer = new long[newCapacity];
+            sequence = new int[newCapacity];
+            mergeBuffer = new int[newCapacity];
+        }
+    }
+}
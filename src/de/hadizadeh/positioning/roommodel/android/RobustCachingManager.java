@@ -0,0 +1,127 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+
+import java.util.Arrays;
+
+/**
+ * Caching manager which aggregates the last samples of every signal key robust against outliers (median or trimmed mean).
+ * The samples of a key are kept in a fixed sized ring and additionally in a sorted window which is updated incrementally, so
+ * interpolating never sorts or allocates per key.
+ */
+public class RobustCachingManager extends KeyedCachingManager {
+    /**
+     * aggregation functions
+     */
+    public enum Aggregation {
+        MEDIAN,
+        TRIMMED_MEAN
+    }
+
+    private int windowSize;
+    private Aggregation aggregation;
+    private double trimRatio;
+    private double[] ringSamples;
+    private double[] sortedSamples;
+    private int[] ringHeads;
+    private int[] sampleAmounts;
+
+    /**
+     * Creates a caching manager which reports the median, using the shared key dictionary
+     *
+     * @param windowSize amount of samples per key
+     * @param maxAge     time in milliseconds after which a key without new samples will be removed, 0 if keys never expire
+     */
+    public RobustCachingManager(int windowSize, long maxAge) {
+        this(SignalKeyDictionary.getInstance(), windowSize, Aggregation.MEDIAN, 0.0, maxAge);
+    }
+
+    /**
+     * Creates a caching manager
+     *
+     * @param keyDictionary dictionary for looking up the ids of the signal keys
+     * @param windowSize    amount of samples per key
+     * @param aggregation   aggregation function
+     * @param trimRatio     ratio of the lowest and of the highest samples which will be ignored by the trimmed mean (0 - 0.5)
+     * @param maxAge        time in milliseconds after which a key without new samples will be removed, 0 if keys never expire
+     */
+    public RobustCachingManager(SignalKeyDictionary keyDictionary, int windowSize, Aggregation aggregation, double trimRatio, long maxAge) {
+        super(keyDictionary, maxAge);
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("window size must be at least 1");
+        }
+        if (trimRatio < 0.0 || trimRatio >= 0.5) {
+            throw new IllegalArgumentException("trim ratio must be between 0 and 0.5");
+        }
+        this.windowSize = windowSize;
+        this.aggregation = aggregation;
+        this.trimRatio = trimRatio;
+        this.ringSamples = new double[0];
+        this.sortedSamples = new double[0];
+        this.ringHeads = new int[0];
+        this.sampleAmounts = new int[0];
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        ringSamples = Arrays.copyOf(ringSamples, capacity * windowSize);
+        sortedSamples = Arrays.copyOf(sortedSamples, capacity * windowSize);
+        ringHeads = Arrays.copyOf(ringHeads, capacity);
+        sampleAmounts = Arrays.copyOf(sampleAmounts, capacity);
+    }
+
+    @Override
+    protected void updateState(int slot, double strength, boolean firstSample, long elapsedTime) {
+        int offset = slot * windowSize;
+        if (firstSample) {
+            ringHeads[slot] = 0;
+            sampleAmounts[slot] = 0;
+        }
+        int amount = sampleAmounts[slot];
+        int head = ringHeads[slot];
+        if (amount == windowSize) {
+            removeSorted(offset, amount, ringSamples[offset + head]);
+            amount--;
+        }
+        ringSamples[offset + head] = strength;
+        ringHeads[slot] = (head + 1) % windowSize;
+        insertSorted(offset, amount, strength);
+        sampleAmounts[slot] = amount + 1;
+    }
+
+    @Override
+    protected double estimate(int slot) {
+        int offset = slot * windowSize;
+        int amount = sampleAmounts[slot];
+        if (aggregation == Aggregation.MEDIAN) {
+            int middle = offset + amount / 2;
+            if (amount % 2 == 1) {
+                return sortedSamples[middle];
+            }
+            return (sortedSamples[middle - 1] + sortedSamples[middle]) / 2;
+        }
+        int trimmed = (int) (amount * trimRatio);
+        double sum = 0.0;
+        for (int i = offset + trimmed; i < offset + amount - trimmed; i++) {
+            sum += sortedSamples[i];
+        }
+        return sum / (amount - 2 * trimmed);
+    }
+
+    private void removeSorted(int offset, int amount, double strength) {
+        int index = offset;
+        int end = offset + amount;
+        while (index < end && sortedSamples[index] != strength) {
+            index++;
+        }
+        System.arraycopy(sortedSamples, index + 1, sortedSamples, index, end - index - 1);
+    }
+
+    private void insertSorted(int offset, int amount, double strength) {
+        int index = offset + amount;
+        while (index > offset && sortedSamples[index - 1] > strength) {
+            sortedSamples[index] = sortedSamples[index - 1];
+            index--;
+        }
+        sortedSamples[index] = strength;
+    }
+}
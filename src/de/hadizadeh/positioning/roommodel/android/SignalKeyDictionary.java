@@ -0,0 +1,92 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary which interns signal keys (bssids, beacon identificators, ...) to dense integer ids, starting at 0
+ */
+public class SignalKeyDictionary {
+    private static SignalKeyDictionary instance;
+
+    private Map<String, Integer> keyIds;
+    private String[] keys;
+    private int size;
+
+    /**
+     * Creates an empty dictionary
+     */
+    public SignalKeyDictionary() {
+        keyIds = new HashMap<String, Integer>();
+        keys = new String[64];
+    }
+
+    /**
+     * Returns the dictionary which is shared by all technologies, caching managers and matchers
+     *
+     * @return shared dictionary
+     */
+    public static synchronized SignalKeyDictionary getInstance() {
+        if (instance == null) {
+            instance = new SignalKeyDictionary();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the id of a key and creates a new id if the key is not known yet
+     *
+     * @param key signal key
+     * @return id of the key
+     */
+    public synchronized int intern(String key) {
+        Integer id = keyIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        if (size == keys.length) {
+            String[] newKeys = new String[keys.length * 2];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            keys = newKeys;
+        }
+        keys[size] = key;
+        keyIds.put(key, size);
+        return size++;
+    }
+
+    /**
+     * Returns the id of a key without creating a new one
+     *
+     * @param key signal key
+     * @return id of the key or -1, if the key is not known
+     */
+    public synchronized int getId(String key) {
+        Integer id = keyIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the key of an id
+     *
+     * @param id id of the key
+     * @return signal key or null, if the id is not known
+     */
+    public synchronized String getKey(int id) {
+        if (id >= 0 && id < size) {
+            return keys[id];
+        }
+        return null;
+    }
+
+    /**
+     * Returns the amount of interned keys, all ids are lower than this value
+     *
+     * @return amount of interned keys
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
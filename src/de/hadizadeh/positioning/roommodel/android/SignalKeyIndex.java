@@ -0,0 +1,264 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from signal keys to the persisted positions which contain them. Every position occupies a slot, the posting
+ * list of a key holds the slots of all positions with this key. Positions can be added and removed without rebuilding the
+ * index. All methods are synchronized, so the index can be updated while another thread matches.
+ */
+public class SignalKeyIndex {
+    private SignalKeyDictionary keyDictionary;
+    private Map<PositionInformation, Integer> slots = new IdentityHashMap<PositionInformation, Integer>();
+    private PositionInformation[] positions = new PositionInformation[16];
+    private Map<?, ?>[] signalInformation = new Map<?, ?>[16];
+    private int[][] slotKeyIds = new int[16][];
+    private int slotAmount;
+    private int[] freeSlots = new int[16];
+    private int freeSlotAmount;
+    private int[][] postings = new int[0][];
+    private int[] postingSizes = new int[0];
+    private PersistedPositionsTracker synchronizedPositions = new PersistedPositionsTracker();
+    private int[] slotMarks = new int[16];
+    private int currentMark;
+    private int[] sharedKeyCounts = new int[16];
+    private int[] touchedSlots = new int[16];
+    private int[] orderedKeyIds = new int[16];
+    private Fingerprint fingerprint = new Fingerprint();
+
+    /**
+     * Creates an empty index
+     *
+     * @param keyDictionary dictionary for interning the signal keys
+     */
+    public SignalKeyIndex(SignalKeyDictionary keyDictionary) {
+        this.keyDictionary = keyDictionary;
+    }
+
+    /**
+     * Adds a position or updates it, if it is already indexed
+     *
+     * @param position persisted position
+     */
+    public synchronized void add(PositionInformation position) {
+        Integer slot = slots.get(position);
+        if (slot != null) {
+            removeSlot(slot);
+        }
+        addSlot(position);
+        synchronizedPositions.invalidate();
+    }
+
+    /**
+     * Removes a position
+     *
+     * @param position persisted position
+     * @return true, if the position has been removed, else it was not indexed
+     */
+    public synchronized boolean remove(PositionInformation position) {
+        Integer slot = slots.get(position);
+        if (slot == null) {
+            return false;
+        }
+        removeSlot(slot);
+        synchronizedPositions.invalidate();
+        return true;
+    }
+
+    /**
+     * Synchronizes the index with the persisted positions. New positions and positions with replaced signal data are indexed,
+     * positions which are not in the list anymore are removed. Nothing is compared as long as the list and its size do not
+     * change, positions which are replaced within the list have to be announced with {@link #invalidate()}.
+     *
+     * @param persistedPositions persisted positions
+     */
+    public synchronized void synchronize(List<PositionInformation> persistedPositions) {
+        if (!synchronizedPositions.hasChanged(persistedPositions)) {
+            return;
+        }
+        synchronizedPositions.synchronize(persistedPositions);
+        currentMark++;
+        for (PositionInformation position : persistedPositions) {
+            Integer slot = slots.get(position);
+            if (slot != null && signalInformation[slot] != position.getSignalInformation()) {
+                removeSlot(slot);
+                slot = null;
+            }
+            if (slot == null) {
+                slot = addSlot(position);
+            }
+            slotMarks[slot] = currentMark;
+        }
+        for (int slot = 0; slot < slotAmount; slot++) {
+            if (positions[slot] != null && slotMarks[slot] != currentMark) {
+                removeSlot(slot);
+            }
+        }
+    }
+
+    /**
+     * Forces a full synchronization with the next call of {@link #synchronize(List)}
+     */
+    public void invalidate() {
+        synchronizedPositions.invalidate();
+    }
+
+    /**
+     * Removes all positions
+     */
+    public synchronized void clear() {
+        slots.clear();
+        Arrays.fill(positions, 0, slotAmount, null);
+        Arrays.fill(signalInformation, 0, slotAmount, null);
+        Arrays.fill(slotKeyIds, 0, slotAmount, null);
+        Arrays.fill(postingSizes, 0);
+        slotAmount = 0;
+        freeSlotAmount = 0;
+        synchronizedPositions.invalidate();
+    }
+
+    /**
+     * Returns the amount of indexed positions
+     *
+     * @return amount of positions
+     */
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * Returns the amount of indexed positions which contain a key
+     *
+     * @param key signal key
+     * @return amount of positions
+     */
+    public synchronized int getPositionAmount(String key) {
+        int keyId = keyDictionary.getId(key);
+        if (keyId < 0 || keyId >= postingSizes.length) {
+            return 0;
+        }
+        return postingSizes[keyId];
+    }
+
+    /**
+     * Searches the positions which share at least a minimum amount of the strongest keys of a fingerprint, keys which are not
+     * known by the key dictionary are not looked up
+     *
+     * @param liveSignalData signal data of the live fingerprint
+     * @param strongestKeys  amount of the strongest live keys which are looked up
+     * @param minSharedKeys  minimum amount of these keys which a position has to contain
+     * @param candidates     list which will be cleared and filled with the positions, ordered by their slot
+     * @return amount of candidates
+     */
+    public synchronized int findCandidates(Map<String, SignalInformation> liveSignalData, int strongestKeys, int minSharedKeys, List<PositionInformation> candidates) {
+        candidates.clear();
+        fingerprint.setLiveSignalData(liveSignalData, keyDictionary);
+        if (orderedKeyIds.length < fingerprint.size()) {
+            orderedKeyIds = new int[fingerprint.size() * 2];
+        }
+        int keyAmount = fingerprint.orderKeyIdsByStrength(orderedKeyIds);
+        if (sharedKeyCounts.length < slotAmount) {
+            sharedKeyCounts = new int[positions.length];
+            touchedSlots = new int[positions.length];
+        }
+        int touchedAmount = 0;
+        for (int i = keyAmount - 1; i >= Math.max(0, keyAmount - strongestKeys); i--) {
+            int keyId = orderedKeyIds[i];
+            if (keyId < 0 || keyId >= postingSizes.length) {
+                continue;
+            }
+            int[] posting = postings[keyId];
+            for (int k = 0; k < postingSizes[keyId]; k++) {
+                int slot = posting[k];
+                if (sharedKeyCounts[slot]++ == 0) {
+                    touchedSlots[touchedAmount++] = slot;
+                }
+            }
+        }
+        Arrays.sort(touchedSlots, 0, touchedAmount);
+        for (int i = 0; i < touchedAmount; i++) {
+            int slot = touchedSlots[i];
+            if (sharedKeyCounts[slot] >= minSharedKeys) {
+                candidates.add(positions[slot]);
+            }
+            sharedKeyCounts[slot] = 0;
+        }
+        return candidates.size();
+    }
+
+    private int addSlot(PositionInformation position) {
+        int slot;
+        if (freeSlotAmount > 0) {
+            slot = freeSlots[--freeSlotAmount];
+        } else {
+            if (slotAmount == positions.length) {
+                int capacity = positions.length * 2;
+                positions = Arrays.copyOf(positions, capacity);
+                signalInformation = Arrays.copyOf(signalInformation, capacity);
+                slotKeyIds = Arrays.copyOf(slotKeyIds, capacity);
+                slotMarks = Arrays.copyOf(slotMarks, capacity);
+            }
+            slot = slotAmount++;
+        }
+        Map<String, SignalInformation> positionSignalInformation = position.getSignalInformation();
+        fingerprint.setSignalData(positionSignalInformation, keyDictionary);
+        int[] keyIds = new int[fingerprint.size()];
+        for (int i = 0; i < keyIds.length; i++) {
+            keyIds[i] = fingerprint.getKeyId(i);
+            addPosting(keyIds[i], slot);
+        }
+        positions[slot] = position;
+        signalInformation[slot] = positionSignalInformation;
+        slotKeyIds[slot] = keyIds;
+        slots.put(position, slot);
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        for (int keyId : slotKeyIds[slot]) {
+            removePosting(keyId, slot);
+        }
+        slots.remove(positions[slot]);
+        positions[slot] = null;
+        signalInformation[slot] = null;
+        slotKeyIds[slot] = null;
+        if (freeSlotAmount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotAmount++] = slot;
+    }
+
+    private void addPosting(int keyId, int slot) {
+        if (keyId >= postings.length) {
+            int capacity = Math.max(keyId + 1, Math.max(16, postings.length * 2));
+            postings = Arrays.copyOf(postings, capacity);
+            postingSizes = Arrays.copyOf(postingSizes, capacity);
+        }
+        int[] posting = postings[keyId];
+        if (posting == null) {
+            posting = new int[4];
+        } else if (postingSizes[keyId] == posting.length) {
+            posting = Arrays.copyOf(posting, posting.length * 2);
+        }
+        posting[postingSizes[keyId]++] = slot;
+        postings[keyId] = posting;
+    }
+
+    private void removePosting(int keyId, int slot) {
+        int[] posting = postings[keyId];
+        int size = postingSizes[keyId];
+        for (int i = 0; i < size; i++) {
+            if (posting[i] == slot) {
+                posting[i] = posting[size - 1];
+                postingSizes[keyId] = size - 1;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caching manager which ignores new signal data and always returns a copy of an already interpolated fingerprint. Used to pass
+ * a fingerprint to wrapped matchers without modifying the shared caching manager again.
+ */
+class SnapshotCachingManager extends CachingManager {
+    private Map<String, SignalInformation> interpolatedFingerPrint;
+
+    /**
+     * Creates the caching manager
+     *
+     * @param interpolatedFingerPrint interpolated fingerprint which will be returned
+     */
+    SnapshotCachingManager(Map<String, SignalInformation> interpolatedFingerPrint) {
+        init(1);
+        this.interpolatedFingerPrint = interpolatedFingerPrint;
+    }
+
+    @Override
+    public void addData(Map<String, SignalInformation> signalData) {
+    }
+
+    @Override
+    public Map<String, SignalInformation> interpolateData() {
+        return new HashMap<String, SignalInformation>(interpolatedFingerPrint);
+    }
+}
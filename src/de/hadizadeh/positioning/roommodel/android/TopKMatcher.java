@@ -0,0 +1,24 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matcher which can return only the k nearest persisted fingerprints instead of the distances of all fingerprints
+ */
+public interface TopKMatcher {
+    /**
+     * Matches the fingerprint and keeps only the k nearest persisted fingerprints
+     *
+     * @param cachingManager     caching manager
+     * @param fingerPrint        fingerprint
+     * @param persistedPositions persisted fingerprints
+     * @param k                  maximum amount of returned fingerprints
+     * @return nearest fingerprints, sorted by distance ascending
+     */
+    NearestPositions nearestNeighbours(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, int k);
+}
@@ -0,0 +1,163 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Vantage point tree over persisted fingerprints for exact k nearest neighbour searches in euclidean signal space. Keys which
+ * are missing in a fingerprint have a floor strength. The tree is stored in arrays: the node of a range has its vantage point
+ * at the first index, the following half of the range holds the fingerprints inside the node radius, the second half the ones
+ * outside. The tree is immutable and can be searched by several threads.
+ */
+public class VantagePointTree implements FingerprintIndex {
+    private final PositionInformation[] positions;
+    private final Fingerprint[] fingerprints;
+    private final double[] radii;
+    private final float missingStrength;
+    private final Map<PositionInformation, Map<?, ?>> signalInformation;
+
+    /**
+     * Builds the tree, takes O(n log n) distance calculations
+     *
+     * @param positions       persisted positions
+     * @param fingerprints    fingerprints of the positions, must not be modified afterwards
+     * @param missingStrength strength of missing keys, e.g. -100 dBm
+     */
+    public VantagePointTree(PositionInformation[] positions, Fingerprint[] fingerprints, float missingStrength) {
+        this.positions = positions.clone();
+        this.fingerprints = fingerprints.clone();
+        this.radii = new double[positions.length];
+        this.missingStrength = missingStrength;
+        this.signalInformation = new IdentityHashMap<PositionInformation, Map<?, ?>>(positions.length * 4 / 3 + 1);
+        for (int i = 0; i < positions.length; i++) {
+            // sorts the fingerprint before it is shared with searching threads
+            this.fingerprints[i].size();
+            signalInformation.put(positions[i], positions[i].getSignalInformation());
+        }
+        build(0, positions.length, new double[positions.length], new Random(positions.length));
+    }
+
+    @Override
+    public int search(Fingerprint fingerprint, NearestPositions nearestPositions, Set<PositionInformation> includedPositions, Set<PositionInformation> excludedPositions) {
+        return search(fingerprint, nearestPositions, includedPositions, excludedPositions, 0, positions.length);
+    }
+
+    @Override
+    public boolean contains(PositionInformation position) {
+        Map<?, ?> indexedSignalInformation = signalInformation.get(position);
+        return indexedSignalInformation != null && indexedSignalInformation == position.getSignalInformation();
+    }
+
+    @Override
+    public int size() {
+        return positions.length;
+    }
+
+    @Override
+    public PositionInformation getPosition(int index) {
+        return positions[index];
+    }
+
+    @Override
+    public Fingerprint getFingerprint(int index) {
+        return fingerprints[index];
+    }
+
+    private int search(Fingerprint fingerprint, NearestPositions nearestPositions, Set<PositionInformation> includedPositions, Set<PositionInformation> excludedPositions, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        double distance = Math.sqrt(fingerprint.squaredDistance(fingerprints[from], missingStrength));
+        // skipped positions are still vantage points, their distance prunes the subtrees
+        if (distance < nearestPositions.getBound() && (includedPositions == null || includedPositions.contains(positions[from]))
+                && (excludedPositions == null || !excludedPositions.contains(positions[from]))) {
+            nearestPositions.offer(positions[from], distance);
+        }
+        int calculations = 1;
+        int middle = middle(from, to);
+        double radius = radii[from];
+        if (distance < radius) {
+            calculations += search(fingerprint, nearestPositions, includedPositions, excludedPositions, from + 1, middle);
+            if (distance + nearestPositions.getBound() >= radius) {
+                calculations += search(fingerprint, nearestPositions, includedPositions, excludedPositions, middle, to);
+            }
+        } else {
+            calculations += search(fingerprint, nearestPositions, includedPositions, excludedPositions, middle, to);
+            if (distance - nearestPositions.getBound() <= radius) {
+                calculations += search(fingerprint, nearestPositions, includedPositions, excludedPositions, from + 1, middle);
+            }
+        }
+        return calculations;
+    }
+
+    private void build(int from, int to, double[] distances, Random random) {
+        if (to - from <= 1) {
+            return;
+        }
+        swap(from, from + random.nextInt(to - from), distances);
+        for (int i = from + 1; i < to; i++) {
+            distances[i] = Math.sqrt(fingerprints[from].squaredDistance(fingerprints[i], missingStrength));
+        }
+        int middle = middle(from, to);
+        if (middle < to) {
+            select(from + 1, to, middle, distances);
+            radii[from] = distances[middle];
+        }
+        build(from + 1, middle, distances, random);
+        build(middle, to, distances, random);
+    }
+
+    private static int middle(int from, int to) {
+        return from + 1 + (to - from - 1) / 2;
+    }
+
+    /**
+     * Partitions a range, so that the element at the selected index has its sorted distance, lower distances are before it and
+     * higher distances after it
+     */
+    private void select(int from, int to, int selected, double[] distances) {
+        int left = from;
+        int right = to - 1;
+        while (left < right) {
+            double pivot = distances[(left + right) >>> 1];
+            int i = left;
+            int k = right;
+            while (i <= k) {
+                while (distances[i] < pivot) {
+                    i++;
+                }
+                while (distances[k] > pivot) {
+                    k--;
+                }
+                if (i <= k) {
+                    swap(i, k, distances);
+                    i++;
+                    k--;
+                }
+            }
+            if (selected <= k) {
+                right = k;
+            } else if (selected >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int first, int second, double[] distances) {
+        PositionInformation position = positions[first];
+        positions[first] = positions[second];
+        positions[second] = position;
+        Fingerprint fingerprint = fingerprints[first];
+        fingerprints[first] = fingerprints[second];
+        fingerprints[second] = fingerprint;
+        double distance = distances[first];
+        distances[first] = distances[second];
+        distances[second] = distance;
+    }
+}
@@ -8,6 +8,7 @@ import de.hadizadeh.positioning.model.MappingPoint;
 import de.hadizadeh.positioning.roommodel.Map;
 import de.hadizadeh.positioning.roommodel.model.MapSegment;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -107,6 +108,10 @@ public class ViewerMap extends Map {
         canvas.drawColor(Color.WHITE);
 
         render(canvas, startRow, startColumn, visibleRows, visibleColumns);
+        if (lastMarkedPosition != null && lastMarkedPosition.getZ() / floorHeight == currentFloor) {
+            ViewerMapSegment viewerMapSegment = (ViewerMapSegment) mapSegments[currentFloor][lastMarkedPosition.getY()][lastMarkedPosition.getX()];
+            viewerMapSegment.renderUncertainty(canvas, lastMarkedPosition.getY() - startRow, lastMarkedPosition.getX() - startColumn);
+        }
     }
 
     /**
@@ -232,6 +237,50 @@ public class ViewerMap extends Map {
         lastMarkedPosition = mappingPoint;
     }
 
+    /**
+     * Marks a continuous position between the segments with its uncertainty area
+     *
+     * @param x      column coordinate, column x covers the range [x, x + 1)
+     * @param y      row coordinate
+     * @param z      z value of the floor
+     * @param radius uncertainty radius in map segments
+     */
+    public void mark(float x, float y, int z, float radius) {
+        demarcate();
+        int column = Math.max(0, Math.min(columns - 1, (int) Math.floor(x)));
+        int row = Math.max(0, Math.min(rows - 1, (int) Math.floor(y)));
+        MappingPoint mappingPoint = new MappingPoint(column, row, z);
+        ViewerMapSegment viewerMapSegment = (ViewerMapSegment) mapSegments[z / floorHeight][row][column];
+        viewerMapSegment.mark(Math.max(0.0f, Math.min(1.0f, x - column)), Math.max(0.0f, Math.min(1.0f, y - row)), radius);
+        lastMarkedPosition = mappingPoint;
+    }
+
+    /**
+     * Marks an estimated position with its uncertainty area
+     *
+     * @param estimatedPosition estimated position
+     */
+    public void mark(EstimatedPosition estimatedPosition) {
+        mark(estimatedPosition.getX(), estimatedPosition.getY(), estimatedPosition.getZ(), estimatedPosition.getRadius());
+    }
+
+    /**
+     * Returns which segments of a floor can be walked, e.g. for a {@link ParticleFilter}
+     *
+     * @param floor             floor
+     * @param blockingMaterials names of the materials which can not be walked, e.g. walls
+     * @return walkable segments, row by row
+     */
+    public boolean[] getWalkableSegments(int floor, Collection<String> blockingMaterials) {
+        boolean[] walkable = new boolean[rows * columns];
+        for (int row = 0; row < rows; ++row) {
+            for (int column = 0; column < columns; ++column) {
+                walkable[row * columns + column] = !((ViewerMapSegment) mapSegments[floor][row][column]).hasMaterial(blockingMaterials);
+            }
+        }
+        return walkable;
+    }
+
     /**
      * Demarcates the last marked point
      */
@@ -5,6 +5,8 @@ import android.graphics.*;
 import de.hadizadeh.positioning.model.MappingPoint;
 import de.hadizadeh.positioning.roommodel.model.MapSegment;
 
+import java.util.Collection;
+
 /**
  * Map segments for android room model maps
  */
@@ -41,12 +43,23 @@ public class ViewerMapSegment extends MapSegment {
      * Background color of marked segments
      */
     public static String markedBackgroundColor = "#ff0000";
+    /**
+     * Background color of the uncertainty area around marked positions
+     */
+    public static String uncertaintyBackgroundColor = "#30ff0000";
+    /**
+     * Color of the uncertainty area stroke line
+     */
+    public static String uncertaintyStrokeLineColor = "#80ff0000";
     private static boolean drawLines = true;
     private static Bitmap contentTexture;
 
     private boolean selected;
     private boolean mapped;
     private boolean marked;
+    private float markOffsetX = 0.5f;
+    private float markOffsetY = 0.5f;
+    private float markRadius;
     private MappingPoint mappingPoint;
 
     /**
@@ -153,15 +166,42 @@ public class ViewerMapSegment extends MapSegment {
             Paint markedPaint = new Paint();
             markedPaint.setStyle(Paint.Style.FILL);
             markedPaint.setColor(Color.parseColor(markedBackgroundColor));
-            canvas.drawCircle(x + w / 2, y + w / 2, (float) ((size - currentStrokeLineWidth) / 4), markedPaint);
+            canvas.drawCircle(x + w * markOffsetX, y + h * markOffsetY, (float) ((size - currentStrokeLineWidth) / 4), markedPaint);
 
             markedPaint.setStyle(Paint.Style.STROKE);
             markedPaint.setColor(Color.parseColor(markedStrokeLineColor));
             markedPaint.setStrokeWidth(markedStrokeLineWidth);
-            canvas.drawCircle(x + w / 2, y + w / 2, (float) ((size - currentStrokeLineWidth) / 4), markedPaint);
+            canvas.drawCircle(x + w * markOffsetX, y + h * markOffsetY, (float) ((size - currentStrokeLineWidth) / 4), markedPaint);
         }
     }
 
+    /**
+     * Renders the uncertainty area of a marked position, has to be called after all segments have been rendered, because the
+     * area can overlap neighbouring segments
+     *
+     * @param graphic      graphic object to paint
+     * @param renderRow    row position of the map segment (can be scrolled elsewhere)
+     * @param renderColumn column position of the map segment (can be scrolled elsewhere)
+     */
+    public void renderUncertainty(Object graphic, int renderRow, int renderColumn) {
+        if (!marked || markRadius <= 0.0f) {
+            return;
+        }
+        Canvas canvas = (Canvas) graphic;
+        float centerX = (float) ((renderColumn + markOffsetX) * size);
+        float centerY = (float) ((renderRow + markOffsetY) * size);
+        float radius = (float) (markRadius * size);
+        Paint uncertaintyPaint = new Paint();
+        uncertaintyPaint.setStyle(Paint.Style.FILL);
+        uncertaintyPaint.setColor(Color.parseColor(uncertaintyBackgroundColor));
+        canvas.drawCircle(centerX, centerY, radius, uncertaintyPaint);
+
+        uncertaintyPaint.setStyle(Paint.Style.STROKE);
+        uncertaintyPaint.setColor(Color.parseColor(uncertaintyStrokeLineColor));
+        uncertaintyPaint.setStrokeWidth((float) strokeLineWidth);
+        canvas.drawCircle(centerX, centerY, radius, uncertaintyPaint);
+    }
+
     /**
      * Selects the map segment
      */
@@ -197,7 +237,21 @@ public class ViewerMapSegment extends MapSegment {
      * Marks the segment
      */
     public void mark() {
+        mark(0.5f, 0.5f, 0.0f);
+    }
+
+    /**
+     * Marks a position inside the segment
+     *
+     * @param offsetX x offset inside the segment, between 0 and 1
+     * @param offsetY y offset inside the segment, between 0 and 1
+     * @param radius  uncertainty radius in map segments, 0 for no uncertainty area
+     */
+    public void mark(float offsetX, float offsetY, float radius) {
         marked = true;
+        markOffsetX = offsetX;
+        markOffsetY = offsetY;
+        markRadius = radius;
     }
 
     /**
@@ -216,6 +270,16 @@ public class ViewerMapSegment extends MapSegment {
         return mapped;
     }
 
+    /**
+     * Checks if the segment consists of one of the given materials
+     *
+     * @param materialNames names of the materials
+     * @return true, if the material of the segment is one of them
+     */
+    public boolean hasMaterial(Collection<String> materialNames) {
+        return material != null && materialNames.contains(material.getName());
+    }
+
     /**
      * Returns the connected mapping point
      *
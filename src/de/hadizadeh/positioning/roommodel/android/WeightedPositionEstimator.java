@@ -0,0 +1,209 @@
+package de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.MappingPoint;
+import de.hadizadeh.positioning.model.PositionInformation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates a continuous position from the k nearest matched positions of any matcher. The coordinates of their mapping points
+ * are weighted with the inverse of the matching distance, so the position moves smoothly between the mapping points instead of
+ * jumping from one segment to the next. Only positions on the floor of the nearest position are weighted. The estimation only
+ * uses primitive arrays which are prepared once for the mapping points.
+ */
+public class WeightedPositionEstimator {
+    /**
+     * default amount of weighted positions
+     */
+    public static final int DEFAULT_NEAREST_AMOUNT = 4;
+    /**
+     * default exponent of the inverse distance weights
+     */
+    public static final double DEFAULT_POWER = 1.0;
+    /**
+     * distance below which a position is treated as an exact match
+     */
+    public static final double MIN_DISTANCE = 1e-6;
+
+    private int nearestAmount;
+    private double power;
+    private Map<String, Integer> pointIndices = new HashMap<String, Integer>();
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+    private int[] zs = new int[0];
+    private NearestPositions nearestPositions;
+    private int[] nearestPoints;
+    private double[] weights;
+    private int selectedZ;
+
+    /**
+     * Creates the estimator for the default amount of positions
+     *
+     * @param mappingPoints mapping points of the persisted positions
+     */
+    public WeightedPositionEstimator(List<MappingPoint> mappingPoints) {
+        this(mappingPoints, DEFAULT_NEAREST_AMOUNT, DEFAULT_POWER);
+    }
+
+    /**
+     * Creates the estimator
+     *
+     * @param mappingPoints mapping points of the persisted positions
+     * @param nearestAmount amount of weighted positions
+     * @param power         exponent of the inverse distance weights, higher values pull the position to the nearest one
+     */
+    public WeightedPositionEstimator(List<MappingPoint> mappingPoints, int nearestAmount, double power) {
+        if (nearestAmount < 1) {
+            throw new IllegalArgumentException("nearest amount must be at least 1");
+        }
+        this.nearestAmount = nearestAmount;
+        this.power = power;
+        this.nearestPositions = new NearestPositions(nearestAmount);
+        this.nearestPoints = new int[nearestAmount];
+        this.weights = new double[nearestAmount];
+        setMappingPoints(mappingPoints);
+    }
+
+    /**
+     * Sets the mapping points of the persisted positions, must be called after mapping points have been added or removed
+     *
+     * @param mappingPoints mapping points
+     */
+    public void setMappingPoints(List<MappingPoint> mappingPoints) {
+        pointIndices.clear();
+        xs = new float[mappingPoints.size()];
+        ys = new float[mappingPoints.size()];
+        zs = new int[mappingPoints.size()];
+        for (int i = 0; i < mappingPoints.size(); i++) {
+            MappingPoint mappingPoint = mappingPoints.get(i);
+            // the centers of the segments
+            xs[i] = mappingPoint.getX() + 0.5f;
+            ys[i] = mappingPoint.getY() + 0.5f;
+            zs[i] = mappingPoint.getZ();
+            pointIndices.put(getPositionName(mappingPoint), i);
+        }
+    }
+
+    /**
+     * Estimates the position from the result of a matcher, only the nearest positions are weighted
+     *
+     * @param matchedPositions matched positions with their distances
+     * @param result           position which will be set
+     * @return true, if the position has been estimated, false if no matched position has a mapping point
+     */
+    public boolean estimate(Map<PositionInformation, Double> matchedPositions, EstimatedPosition result) {
+        nearestPositions.clear();
+        for (Map.Entry<PositionInformation, Double> entry : matchedPositions.entrySet()) {
+            if (entry.getValue() < nearestPositions.getBound()) {
+                nearestPositions.offer(entry.getKey(), entry.getValue());
+            }
+        }
+        nearestPositions.sort();
+        boolean estimated = estimate(nearestPositions, result);
+        // the matched positions are not kept until the next estimation
+        nearestPositions.clear();
+        return estimated;
+    }
+
+    /**
+     * Estimates the position from the result of a top k matching
+     *
+     * @param nearestPositions sorted nearest positions
+     * @param result           position which will be set
+     * @return true, if the position has been estimated, false if no matched position has a mapping point
+     */
+    public boolean estimate(NearestPositions nearestPositions, EstimatedPosition result) {
+        int pointAmount = selectPoints(nearestPositions);
+        if (pointAmount == 0) {
+            return false;
+        }
+        if (Double.isInfinite(weights[0])) {
+            // an exact match outweighs all other positions
+            result.set(xs[nearestPoints[0]], ys[nearestPoints[0]], selectedZ, 0.0f);
+            return true;
+        }
+        double weightSum = 0.0;
+        double x = 0.0;
+        double y = 0.0;
+        for (int i = 0; i < pointAmount; i++) {
+            weightSum += weights[i];
+            x += weights[i] * xs[nearestPoints[i]];
+            y += weights[i] * ys[nearestPoints[i]];
+        }
+        x /= weightSum;
+        y /= weightSum;
+        double squaredRadius = 0.0;
+        for (int i = 0; i < pointAmount; i++) {
+            double dx = xs[nearestPoints[i]] - x;
+            double dy = ys[nearestPoints[i]] - y;
+            squaredRadius += weights[i] * (dx * dx + dy * dy);
+        }
+        result.set((float) x, (float) y, selectedZ, (float) Math.sqrt(squaredRadius / weightSum));
+        return true;
+    }
+
+    /**
+     * Collects the segment centers and inverse distance weights of the nearest positions on the floor of the nearest one, e.g.
+     * as measurement of a {@link ParticleFilter}
+     *
+     * @param nearestPositions sorted nearest positions
+     * @param pointXs          array for the x coordinates, needs space for the amount of weighted positions
+     * @param pointYs          array for the y coordinates
+     * @param pointWeights     array for the weights
+     * @return amount of collected points
+     */
+    public int collectPoints(NearestPositions nearestPositions, float[] pointXs, float[] pointYs, double[] pointWeights) {
+        int pointAmount = selectPoints(nearestPositions);
+        for (int i = 0; i < pointAmount; i++) {
+            pointXs[i] = xs[nearestPoints[i]];
+            pointYs[i] = ys[nearestPoints[i]];
+            pointWeights[i] = Double.isInfinite(weights[i]) ? 1.0 / MIN_DISTANCE : weights[i];
+        }
+        return pointAmount;
+    }
+
+    /**
+     * Returns the z value of the floor of the last estimated or collected points
+     *
+     * @return z value
+     */
+    public int getSelectedZ() {
+        return selectedZ;
+    }
+
+    /**
+     * Selects the nearest positions with mapping points on the floor of the nearest one and calculates their weights. An
+     * exact match is selected alone with an infinite weight.
+     */
+    private int selectPoints(NearestPositions nearestPositions) {
+        int pointAmount = 0;
+        for (int i = 0; i < nearestPositions.size() && pointAmount < nearestAmount; i++) {
+            Integer pointIndex = pointIndices.get(nearestPositions.getPosition(i).getName());
+            if (pointIndex == null || (pointAmount > 0 && zs[pointIndex] != selectedZ)) {
+                continue;
+            }
+            double distance = Math.max(MIN_DISTANCE, nearestPositions.getDistance(i));
+            selectedZ = zs[pointIndex];
+            nearestPoints[pointAmount] = pointIndex;
+            if (distance == MIN_DISTANCE && pointAmount == 0) {
+                weights[0] = Double.POSITIVE_INFINITY;
+                return 1;
+            }
+            weights[pointAmount] = power == 1.0 ? 1.0 / distance : Math.pow(distance, -power);
+            pointAmount++;
+        }
+        return pointAmount;
+    }
+
+    /**
+     * Returns the name of the persisted position of a mapping point
+     *
+     * @param mappingPoint mapping point
+     * @return position name
+     */
+    protected String getPositionName(MappingPoint mappingPoint) {
+        return mappingPoint.toString();
+    }
+}
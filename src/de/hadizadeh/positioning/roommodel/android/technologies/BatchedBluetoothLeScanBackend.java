@@ -0,0 +1,153 @@
+package de.hadizadeh.positioning.roommodel.android.technologies;
+
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanRecord;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scan backend of the btle scanner (android lollipop and above). The bluetooth controller only reports ibeacon advertisements,
+ * optionally only those with a uuid prefix, and delivers them in batches after a report delay, so the app is not woken up for
+ * every advertisement. If the controller does not support batching, the scan is restarted without a report delay.
+ */
+public class BatchedBluetoothLeScanBackend implements BluetoothLeScanBackend {
+    /**
+     * default delay after which the collected advertisements are delivered in milliseconds
+     */
+    public static final long DEFAULT_REPORT_DELAY = 1000;
+    /**
+     * manufacturer id of apple in the scan filter, the company identifier 4c00 in advertisement byte order
+     */
+    public static final int APPLE_MANUFACTURER_ID = 0x004c;
+    private static final int IBEACON_TYPE = 0x02;
+    private static final int IBEACON_LENGTH = 0x15;
+    private static final int UUID_LENGTH = 16;
+
+    private BluetoothLeScanner bluetoothLeScanner;
+    private byte[] uuidPrefix;
+    private long reportDelay;
+    private int scanMode;
+    private ScanCallback scanCallback;
+
+    /**
+     * Creates the backend which reports all ibeacons in batches with the default report delay
+     *
+     * @param bluetoothLeScanner btle scanner of the bluetooth adapter
+     */
+    public BatchedBluetoothLeScanBackend(BluetoothLeScanner bluetoothLeScanner) {
+        this(bluetoothLeScanner, null, DEFAULT_REPORT_DELAY, ScanSettings.SCAN_MODE_BALANCED);
+    }
+
+    /**
+     * Creates the backend
+     *
+     * @param bluetoothLeScanner btle scanner of the bluetooth adapter
+     * @param uuidPrefix         first bytes of the uuid of the reported ibeacons, null if all ibeacons are reported
+     * @param reportDelay        delay after which the collected advertisements are delivered in milliseconds, 0 for no batching
+     * @param scanMode           scan mode of the scan settings
+     */
+    public BatchedBluetoothLeScanBackend(BluetoothLeScanner bluetoothLeScanner, byte[] uuidPrefix, long reportDelay, int scanMode) {
+        if (uuidPrefix != null && uuidPrefix.length > UUID_LENGTH) {
+            throw new IllegalArgumentException("uuid prefix is longer than a uuid");
+        }
+        this.bluetoothLeScanner = bluetoothLeScanner;
+        this.uuidPrefix = uuidPrefix;
+        this.reportDelay = reportDelay;
+        this.scanMode = scanMode;
+    }
+
+    /**
+     * Starts scanning
+     *
+     * @param listener listener which receives the advertisements
+     */
+    @Override
+    public void start(final Listener listener) {
+        stop();
+        scanCallback = new ScanCallback() {
+            private boolean batchingFailed;
+
+            @Override
+            public void onScanResult(int callbackType, ScanResult result) {
+                deliver(listener, result, SystemClock.elapsedRealtimeNanos());
+            }
+
+            @Override
+            public void onBatchScanResults(List<ScanResult> results) {
+                long currentTime = SystemClock.elapsedRealtimeNanos();
+                for (int i = 0; i < results.size(); i++) {
+                    deliver(listener, results.get(i), currentTime);
+                }
+            }
+
+            @Override
+            public void onScanFailed(int errorCode) {
+                if (errorCode == SCAN_FAILED_FEATURE_UNSUPPORTED && reportDelay > 0 && !batchingFailed) {
+                    batchingFailed = true;
+                    bluetoothLeScanner.startScan(createFilters(), createSettings(0), this);
+                }
+            }
+        };
+        bluetoothLeScanner.startScan(createFilters(), createSettings(reportDelay), scanCallback);
+    }
+
+    /**
+     * Stops scanning
+     */
+    @Override
+    public void stop() {
+        if (scanCallback != null) {
+            bluetoothLeScanner.stopScan(scanCallback);
+            scanCallback = null;
+        }
+    }
+
+    /**
+     * Delivers the collected advertisements without waiting for the report delay
+     */
+    @Override
+    public void flush() {
+        if (scanCallback != null) {
+            bluetoothLeScanner.flushPendingScanResults(scanCallback);
+        }
+    }
+
+    /**
+     * Creates the manufacturer data filter for ibeacons: the ibeacon type and length, followed by the uuid prefix
+     */
+    private List<ScanFilter> createFilters() {
+        byte[] data = new byte[2 + UUID_LENGTH];
+        byte[] mask = new byte[2 + UUID_LENGTH];
+        data[0] = IBEACON_TYPE;
+        data[1] = IBEACON_LENGTH;
+        mask[0] = (byte) 0xff;
+        mask[1] = (byte) 0xff;
+        if (uuidPrefix != null) {
+            for (int i = 0; i < uuidPrefix.length; i++) {
+                data[2 + i] = uuidPrefix[i];
+                mask[2 + i] = (byte) 0xff;
+            }
+        }
+        List<ScanFilter> filters = new ArrayList<ScanFilter>();
+        filters.add(new ScanFilter.Builder().setManufacturerData(APPLE_MANUFACTURER_ID, data, mask).build());
+        return filters;
+    }
+
+    private ScanSettings createSettings(long reportDelay) {
+        return new ScanSettings.Builder().setScanMode(scanMode).setReportDelay(reportDelay).build();
+    }
+
+    private static void deliver(Listener listener, ScanResult result, long currentTime) {
+        ScanRecord scanRecord = result.getScanRecord();
+        if (scanRecord != null) {
+            long age = Math.max(0, (currentTime - result.getTimestampNanos()) / 1000000);
+            listener.onAdvertisement(result.getDevice(), scanRecord.getBytes(), result.getRssi(), age);
+        }
+    }
+}
@@ -3,11 +3,27 @@ package de.hadizadeh.positioning.roommodel.android.technologies;
 
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.le.ScanRecord;
+import android.os.SystemClock;
 
 /**
- * Manages bluetooth low energy devices (beacons)
+ * Manages bluetooth low energy devices (beacons). An advertisement is decoded with bit operations straight from its bytes, the
+ * company identifier and the uuid are kept as numbers and their strings are only created when they are requested. A device can
+ * be reused for further advertisements, the created strings are kept as long as their values do not change.
+ * <p>
+ * Received advertisements without an explicit timestamp are stamped with {@link SystemClock#elapsedRealtime()}, the clock of
+ * the btle technologies and of the batched scan results.
  */
 public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
+    /**
+     * company identifier of apple, the ibeacon vendor, in advertisement byte order
+     */
+    public static final int APPLE_COMPANY_ID = 0x4c00;
+    /**
+     * minimum length of an ibeacon advertisement message
+     */
+    public static final int IBEACON_ADVERTISEMENT_LENGTH = 30;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     /**
      * distance categories
      */
@@ -27,16 +43,23 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
         }
     }
 
+    private BluetoothDevice bluetoothDevice;
     private String name;
     private String address;
+    private int companyIdValue;
     private String companyId;
+    private long uuidMostSignificantBits;
+    private long uuidLeastSignificantBits;
+    private boolean hasUuidBits;
     private String uuid;
     private int rssi;
+    private double aggregatedRssi;
     private int major;
     private int minor;
     private int txPower;
     private long timeStamp;
     private String uuidText;
+    private String identificator;
     private double distance;
     private DistanceCategory distanceCategory;
 
@@ -77,6 +100,14 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
                 .shortValue(), timeStamp);
     }
 
+    /**
+     * Creates an empty btle device, which can be filled by {@link #update(BluetoothDevice, byte[], int)} or
+     * {@link #copyFrom(BluetoothLeDevice)}
+     */
+    public BluetoothLeDevice() {
+        companyIdValue = -1;
+    }
+
     /**
      * Creates a btle device
      *
@@ -85,7 +116,7 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      * @param rssi       rssi signal strength
      */
     public BluetoothLeDevice(BluetoothDevice device, byte[] scanRecord, int rssi) {
-        extractBtData(device, scanRecord, rssi);
+        extractBtData(device, scanRecord, rssi, SystemClock.elapsedRealtime());
     }
 
     /**
@@ -108,44 +139,138 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      * @param rssi       rssi signal strength
      */
     public BluetoothLeDevice(BluetoothDevice device, ScanRecord scanRecord, int rssi) {
-        extractBtData(device, scanRecord.getBytes(), rssi);
+        extractBtData(device, scanRecord.getBytes(), rssi, SystemClock.elapsedRealtime());
     }
 
     private void initialize(String name, String address, String companyId, String uuid, int rssi, int major, int minor, int txPower, long timeStamp) {
+        this.bluetoothDevice = null;
         this.name = name;
         this.address = address;
-        this.companyId = companyId;
-        this.uuid = uuid;
+        setCompanyId(companyId);
+        setUuid(uuid);
         this.rssi = rssi;
+        this.aggregatedRssi = rssi;
         this.major = major;
         this.minor = minor;
+        this.identificator = null;
         this.txPower = txPower;
         this.timeStamp = timeStamp;
-        this.uuidText = hexToAscii(uuid);
         this.distance = calculateDistance(rssi, txPower);
         distanceCategory = determineDistanceCategory(this.distance);
     }
 
-    private void extractBtData(BluetoothDevice device, byte[] scanRecord, int rssi) {
-        String uuid = "";
-        String companyId = String.format("%02x", scanRecord[5]) + String.format("%02x", scanRecord[6]);
-        String major = String.format("%02x", scanRecord[25]) + String.format("%02x", scanRecord[26]);
-        String minor = String.format("%02x", scanRecord[27]) + String.format("%02x", scanRecord[28]);
-        String txPower = String.format("%02x", scanRecord[29]);
-        for (int i = 0; i < scanRecord.length; i++) {
-            if (i >= 9 && i <= 24) {
-                uuid += String.format("%02x", scanRecord[i]);
-            }
+    /**
+     * Overwrites the device with a received advertisement
+     *
+     * @param device     device with included data
+     * @param scanRecord advertisement message
+     * @param rssi       rssi signal strength
+     */
+    public void update(BluetoothDevice device, byte[] scanRecord, int rssi) {
+        extractBtData(device, scanRecord, rssi, SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Overwrites the device with a received advertisement
+     *
+     * @param device     device with included data
+     * @param scanRecord advertisement message
+     * @param rssi       rssi signal strength
+     * @param timeStamp  timestamp of the time where the data have been received, in milliseconds of
+     *                   {@link SystemClock#elapsedRealtime()}
+     */
+    public void update(BluetoothDevice device, byte[] scanRecord, int rssi, long timeStamp) {
+        extractBtData(device, scanRecord, rssi, timeStamp);
+    }
+
+    /**
+     * Overwrites the device with the values of another device
+     *
+     * @param device device whose values will be copied
+     */
+    public void copyFrom(BluetoothLeDevice device) {
+        if (bluetoothDevice != device.bluetoothDevice || device.name != null || device.bluetoothDevice == null) {
+            name = device.name;
+        }
+        bluetoothDevice = device.bluetoothDevice;
+        address = device.address;
+        if (companyIdValue != device.companyIdValue || companyIdValue < 0 || device.companyId != null) {
+            companyId = device.companyId;
+        }
+        companyIdValue = device.companyIdValue;
+        if (!hasUuidBits || !device.hasUuidBits || uuidMostSignificantBits != device.uuidMostSignificantBits ||
+                uuidLeastSignificantBits != device.uuidLeastSignificantBits) {
+            uuid = device.uuid;
+            uuidText = device.uuidText;
+        } else {
+            uuid = device.uuid != null ? device.uuid : uuid;
+            uuidText = device.uuidText != null ? device.uuidText : uuidText;
+        }
+        hasUuidBits = device.hasUuidBits;
+        uuidMostSignificantBits = device.uuidMostSignificantBits;
+        uuidLeastSignificantBits = device.uuidLeastSignificantBits;
+        if (major != device.major || minor != device.minor || device.identificator != null) {
+            identificator = device.identificator;
+        }
+        major = device.major;
+        minor = device.minor;
+        rssi = device.rssi;
+        aggregatedRssi = device.aggregatedRssi;
+        txPower = device.txPower;
+        timeStamp = device.timeStamp;
+        distance = device.distance;
+        distanceCategory = device.distanceCategory;
+    }
+
+    private void extractBtData(BluetoothDevice device, byte[] scanRecord, int rssi, long timeStamp) {
+        if (device == null) {
+            this.name = "";
+            this.address = "";
+        } else if (device != bluetoothDevice) {
+            // the name is requested lazily, it is not needed for positioning
+            this.name = null;
+            this.address = device.getAddress();
+        }
+        this.bluetoothDevice = device;
+        int companyIdValue = readUnsignedShort(scanRecord, 5);
+        if (companyIdValue != this.companyIdValue) {
+            this.companyIdValue = companyIdValue;
+            this.companyId = null;
+        }
+        long uuidMostSignificantBits = readLong(scanRecord, 9);
+        long uuidLeastSignificantBits = readLong(scanRecord, 17);
+        if (!hasUuidBits || uuidMostSignificantBits != this.uuidMostSignificantBits || uuidLeastSignificantBits != this.uuidLeastSignificantBits) {
+            this.uuidMostSignificantBits = uuidMostSignificantBits;
+            this.uuidLeastSignificantBits = uuidLeastSignificantBits;
+            this.hasUuidBits = true;
+            this.uuid = null;
+            this.uuidText = null;
         }
+        this.rssi = rssi;
+        this.aggregatedRssi = rssi;
+        int major = readUnsignedShort(scanRecord, 25);
+        int minor = readUnsignedShort(scanRecord, 27);
+        if (major != this.major || minor != this.minor) {
+            this.major = major;
+            this.minor = minor;
+            this.identificator = null;
+        }
+        this.txPower = scanRecord[29];
+        this.timeStamp = timeStamp;
+        this.distance = calculateDistance(rssi, txPower);
+        distanceCategory = determineDistanceCategory(this.distance);
+    }
 
-        String name = "";
-        String address = "";
-        if (device != null) {
-            name = device.getName();
-            address = device.getAddress();
+    private static int readUnsignedShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 8 | bytes[offset + 1] & 0xff;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = value << 8 | bytes[i] & 0xff;
         }
-        initialize(name, address, companyId, uuid, rssi, Integer.parseInt(major, 16), Integer.parseInt(minor, 16), Short
-                .valueOf(txPower, 16).byteValue(), System.currentTimeMillis());
+        return value;
     }
 
     private double calculateDistance(int rssi, int txPower) {
@@ -170,6 +295,9 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      * @return name
      */
     public String getName() {
+        if (name == null && bluetoothDevice != null) {
+            name = bluetoothDevice.getName();
+        }
         return name;
     }
 
@@ -180,6 +308,7 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      */
     public void setName(String name) {
         this.name = name;
+        this.bluetoothDevice = null;
     }
 
     /**
@@ -206,9 +335,21 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      * @return company identifier
      */
     public String getCompanyId() {
+        if (companyId == null && companyIdValue >= 0) {
+            companyId = toHex(companyIdValue, 4);
+        }
         return companyId;
     }
 
+    /**
+     * Returns the company identifier as a number in advertisement byte order, e.g. {@link #APPLE_COMPANY_ID}
+     *
+     * @return company identifier, or -1 if it is unknown
+     */
+    public int getCompanyIdValue() {
+        return companyIdValue;
+    }
+
     /**
      * Sets the company identifier
      *
@@ -216,6 +357,7 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      */
     public void setCompanyId(String companyId) {
         this.companyId = companyId;
+        this.companyIdValue = isHex(companyId, 4) ? (int) parseHex(companyId, 0, 4) : -1;
     }
 
     /**
@@ -234,6 +376,26 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      */
     public void setRssi(int rssi) {
         this.rssi = rssi;
+        this.aggregatedRssi = rssi;
+    }
+
+    /**
+     * Returns the rssi signal strength aggregated over several samples, the rssi of the latest sample if it has not been
+     * aggregated
+     *
+     * @return aggregated rssi signal strength
+     */
+    public double getAggregatedRssi() {
+        return aggregatedRssi;
+    }
+
+    /**
+     * Sets the rssi signal strength aggregated over several samples
+     *
+     * @param aggregatedRssi aggregated rssi signal strength
+     */
+    public void setAggregatedRssi(double aggregatedRssi) {
+        this.aggregatedRssi = aggregatedRssi;
     }
 
     /**
@@ -270,6 +432,7 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      */
     public void setMajor(int major) {
         this.major = major;
+        this.identificator = null;
     }
 
     /**
@@ -288,6 +451,7 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      */
     public void setMinor(int minor) {
         this.minor = minor;
+        this.identificator = null;
     }
 
     /**
@@ -296,7 +460,34 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      * @return identification string for the beacon
      */
     public String getIdentificator() {
-        return major + "|" + minor;
+        if (identificator == null) {
+            identificator = major + "|" + minor;
+        }
+        return identificator;
+    }
+
+    /**
+     * Returns a number which identifies the beacon, major and minor in the lower 32 bits and a hash of the uuid in the upper 32
+     * bits
+     *
+     * @return packed identity
+     */
+    public long getPackedId() {
+        return packId(major, minor, uuidMostSignificantBits, uuidLeastSignificantBits);
+    }
+
+    /**
+     * Packs the identity of a beacon into a number
+     *
+     * @param major                    major value
+     * @param minor                    minor value
+     * @param uuidMostSignificantBits  most significant bits of the uuid
+     * @param uuidLeastSignificantBits least significant bits of the uuid
+     * @return packed identity
+     */
+    public static long packId(int major, int minor, long uuidMostSignificantBits, long uuidLeastSignificantBits) {
+        long uuidHash = uuidMostSignificantBits ^ uuidMostSignificantBits >>> 32 ^ uuidLeastSignificantBits ^ uuidLeastSignificantBits >>> 32;
+        return uuidHash << 32 | (major & 0xffffL) << 16 | minor & 0xffffL;
     }
 
     /**
@@ -305,16 +496,41 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      * @return uuid
      */
     public String getUuid() {
+        if (uuid == null && hasUuidBits) {
+            uuid = toHex(uuidMostSignificantBits, 16) + toHex(uuidLeastSignificantBits, 16);
+        }
         return uuid;
     }
 
+    /**
+     * Returns the most significant 64 bits of the uuid
+     *
+     * @return most significant bits, 0 if the uuid is unknown
+     */
+    public long getUuidMostSignificantBits() {
+        return uuidMostSignificantBits;
+    }
+
+    /**
+     * Returns the least significant 64 bits of the uuid
+     *
+     * @return least significant bits, 0 if the uuid is unknown
+     */
+    public long getUuidLeastSignificantBits() {
+        return uuidLeastSignificantBits;
+    }
+
     /**
      * Sets the uuid
      *
-     * @param uuid uuid
+     * @param uuid uuid as 32 hex digits
      */
     public void setUuid(String uuid) {
         this.uuid = uuid;
+        this.uuidText = null;
+        this.hasUuidBits = isHex(uuid, 32);
+        this.uuidMostSignificantBits = hasUuidBits ? parseHex(uuid, 0, 16) : 0;
+        this.uuidLeastSignificantBits = hasUuidBits ? parseHex(uuid, 16, 32) : 0;
     }
 
     /**
@@ -359,15 +575,26 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
      * @return uuid
      */
     public String getUuidText() {
+        if (uuidText == null) {
+            if (hasUuidBits) {
+                char[] text = new char[16];
+                for (int i = 0; i < 8; i++) {
+                    text[i] = (char) (uuidMostSignificantBits >>> (56 - 8 * i) & 0xff);
+                    text[i + 8] = (char) (uuidLeastSignificantBits >>> (56 - 8 * i) & 0xff);
+                }
+                uuidText = new String(text).trim();
+            } else {
+                uuidText = hexToAscii(uuid);
+            }
+        }
         return uuidText;
     }
 
     private static String hexToAscii(String hexValue) {
         if (hexValue != null && hexValue.length() > 0) {
             StringBuilder output = new StringBuilder("");
-            for (int i = 0; i < hexValue.length(); i += 2) {
-                String str = hexValue.substring(i, i + 2);
-                output.append((char) Integer.parseInt(str, 16));
+            for (int i = 0; i + 1 < hexValue.length(); i += 2) {
+                output.append((char) parseHex(hexValue, i, i + 2));
             }
             return output.toString().trim();
         } else {
@@ -375,6 +602,39 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
         }
     }
 
+    private static String toHex(long value, int digits) {
+        char[] hex = new char[digits];
+        for (int i = digits - 1; i >= 0; i--) {
+            hex[i] = HEX_DIGITS[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+        return new String(hex);
+    }
+
+    private static boolean isHex(String value, int digits) {
+        if (value == null || value.length() != digits) {
+            return false;
+        }
+        for (int i = 0; i < digits; i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHex(String hex, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException("invalid hex value " + hex);
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
     @Override
     public int compareTo(BluetoothLeDevice another) {
         if (rssi > another.rssi) {
@@ -388,16 +648,16 @@ public class BluetoothLeDevice implements Comparable<BluetoothLeDevice> {
     @Override
     public String toString() {
         return "BluetoothLeDevice{" +
-                "name='" + name + '\'' +
+                "name='" + getName() + '\'' +
                 ", address='" + address + '\'' +
-                ", companyId='" + companyId + '\'' +
-                ", uuid='" + uuid + '\'' +
+                ", companyId='" + getCompanyId() + '\'' +
+                ", uuid='" + getUuid() + '\'' +
                 ", rssi=" + rssi +
                 ", major=" + major +
                 ", minor=" + minor +
                 ", txPower=" + txPower +
                 ", timeStamp=" + timeStamp +
-                ", uuidText='" + uuidText + '\'' +
+                ", uuidText='" + getUuidText() + '\'' +
                 ", distance=" + distance +
                 ", distanceCategory=" + distanceCategory +
                 '}';
@@ -0,0 +1,520 @@
+package de.hadizadeh.positioning.roommodel.android.technologies;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread safe store for the latest received sample of every btle device. The samples are kept in reusable records, which are
+ * found by the packed identity of the device ({@link BluetoothLeDevice#getPackedId()}) in an open addressing table. Updating a
+ * known device copies the sample into its record and allocates nothing, the scan callback waits at most for the copy of a
+ * single record. Only adding and removing devices is serialized, the table and the record list are copied on these rare changes,
+ * so readers always iterate a consistent list. Removed records are pooled for new devices.
+ * <p>
+ * Every record keeps the latest samples of its device in a fixed-capacity ring buffer of timestamps and rssi values, so the
+ * samples received between two snapshots can be aggregated by a {@link RssiReducer}. The ring buffer is ordered by the
+ * timestamps, because batched scans can deliver backdated samples after newer ones, and the record describes the newest sample.
+ * <p>
+ * With a validity time, devices which have not been received within that time are removed by {@link #expire(long)}. The
+ * records are kept in a hashed timer wheel by their expiry time, an expiry only visits the slots of the elapsed ticks. Updates
+ * of a known device do not move its record in the wheel, when its slot is due, the record is moved to the slot of its new
+ * expiry time, so expiring costs O(1) amortized per received sample.
+ */
+public class BluetoothLeDeviceStore {
+    /**
+     * default amount of samples kept per device
+     */
+    public static final int DEFAULT_SAMPLE_CAPACITY = 16;
+    private static final Entry[] EMPTY_ENTRIES = new Entry[0];
+    private static final int WHEEL_SIZE = 64;
+    private static final int TICKS_PER_VALIDITY_TIME = 16;
+    private static final long UNSET_TICK = Long.MIN_VALUE;
+
+    private final int sampleCapacity;
+    private final Object structureLock = new Object();
+    private final List<Entry> pool = new ArrayList<Entry>();
+    private volatile Table table = new Table(EMPTY_ENTRIES);
+    private final Entry[] wheel = new Entry[WHEEL_SIZE];
+    private long validityTime;
+    private long tickDuration = 1;
+    private long wheelTick = UNSET_TICK;
+    private volatile int maxSize;
+    private volatile long evictedAmount;
+    private volatile long expiredAmount;
+
+    /**
+     * Creates an empty store with the default amount of samples per device
+     */
+    public BluetoothLeDeviceStore() {
+        this(0, DEFAULT_SAMPLE_CAPACITY);
+    }
+
+    /**
+     * Creates an empty store with preallocated records
+     *
+     * @param capacity       amount of devices which can be stored without allocating records
+     * @param sampleCapacity amount of samples kept per device
+     */
+    public BluetoothLeDeviceStore(int capacity, int sampleCapacity) {
+        if (sampleCapacity < 1) {
+            throw new IllegalArgumentException("sample capacity must be at least 1");
+        }
+        this.sampleCapacity = sampleCapacity;
+        for (int i = 0; i < capacity; i++) {
+            pool.add(new Entry(sampleCapacity));
+        }
+    }
+
+    /**
+     * Stores the latest sample of a device. The sample is copied, so the device can be reused by the caller.
+     *
+     * @param device received device data
+     */
+    public void put(BluetoothLeDevice device) {
+        long id = device.getPackedId();
+        Entry entry = table.get(id);
+        if (entry != null && entry.update(id, device)) {
+            return;
+        }
+        synchronized (structureLock) {
+            entry = table.get(id);
+            if (entry != null && entry.update(id, device)) {
+                return;
+            }
+            if (maxSize > 0 && table.entries.length >= maxSize) {
+                evictLeastRecentlyReceived();
+            }
+            entry = pool.isEmpty() ? new Entry(sampleCapacity) : pool.remove(pool.size() - 1);
+            entry.assign(id, device);
+            if (validityTime > 0) {
+                if (wheelTick == UNSET_TICK) {
+                    wheelTick = device.getTimeStamp() / tickDuration;
+                }
+                schedule(entry, device.getTimeStamp() + validityTime);
+            }
+            Entry[] entries = table.entries;
+            Entry[] newEntries = new Entry[entries.length + 1];
+            System.arraycopy(entries, 0, newEntries, 0, entries.length);
+            newEntries[entries.length] = entry;
+            table = new Table(newEntries);
+        }
+    }
+
+    /**
+     * Copies the latest sample of a device
+     *
+     * @param id     packed identity of the device
+     * @param result device which will be overwritten
+     * @return true, if the device is known, else the result is unchanged
+     */
+    public boolean get(long id, BluetoothLeDevice result) {
+        Entry entry = table.get(id);
+        return entry != null && entry.copyTo(id, result);
+    }
+
+    /**
+     * Removes a device
+     *
+     * @param id packed identity of the device
+     * @return true, if the device has been removed, else it was not known
+     */
+    public boolean remove(long id) {
+        synchronized (structureLock) {
+            Entry entry = table.get(id);
+            if (entry == null) {
+                return false;
+            }
+            removeEntry(entry);
+            return true;
+        }
+    }
+
+    /**
+     * Copies the latest samples of all devices into a list. The devices of the list are reused, so they must not be kept by the
+     * caller between two copies.
+     *
+     * @param devices list which will be filled, its size is set to the amount of devices
+     * @return amount of copied devices
+     */
+    public int copyDevices(List<BluetoothLeDevice> devices) {
+        Entry[] currentEntries = table.entries;
+        int size = 0;
+        for (Entry entry : currentEntries) {
+            if (size == devices.size()) {
+                devices.add(new BluetoothLeDevice());
+            }
+            if (entry.copyTo(devices.get(size))) {
+                size++;
+            }
+        }
+        while (devices.size() > size) {
+            devices.remove(devices.size() - 1);
+        }
+        return size;
+    }
+
+    /**
+     * Copies all devices which have been received since a point in time into a list, their aggregated rssi is reduced from the
+     * samples received since then. The devices of the list are reused, so they must not be kept by the caller between two
+     * copies.
+     *
+     * @param devices      list which will be filled, its size is set to the amount of devices
+     * @param minTimeStamp time of the oldest sample which will be aggregated
+     * @param reducer      reducer which aggregates the samples of a device
+     * @return amount of copied devices
+     */
+    public int copyDevices(List<BluetoothLeDevice> devices, long minTimeStamp, RssiReducer reducer) {
+        Entry[] currentEntries = table.entries;
+        int size = 0;
+        for (Entry entry : currentEntries) {
+            if (size == devices.size()) {
+                devices.add(new BluetoothLeDevice());
+            }
+            if (entry.aggregateTo(devices.get(size), minTimeStamp, reducer)) {
+                size++;
+            }
+        }
+        while (devices.size() > size) {
+            devices.remove(devices.size() - 1);
+        }
+        return size;
+    }
+
+    /**
+     * Removes all devices
+     */
+    public void clear() {
+        synchronized (structureLock) {
+            for (Entry entry : table.entries) {
+                release(entry);
+            }
+            table = new Table(EMPTY_ENTRIES);
+        }
+    }
+
+    /**
+     * Sets after which time without a received sample a device expires
+     *
+     * @param validityTime validity time in the unit of the device timestamps, 0 if devices do not expire
+     */
+    public void setValidityTime(long validityTime) {
+        synchronized (structureLock) {
+            for (Entry entry : table.entries) {
+                unschedule(entry);
+            }
+            this.validityTime = validityTime;
+            this.tickDuration = Math.max(1, validityTime / TICKS_PER_VALIDITY_TIME);
+            wheelTick = UNSET_TICK;
+            if (validityTime > 0) {
+                for (Entry entry : table.entries) {
+                    long timeStamp = entry.getTimeStamp();
+                    if (wheelTick == UNSET_TICK || timeStamp / tickDuration < wheelTick) {
+                        wheelTick = timeStamp / tickDuration;
+                    }
+                }
+                for (Entry entry : table.entries) {
+                    schedule(entry, entry.getTimeStamp() + validityTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all devices which have not been received within the validity time
+     *
+     * @param currentTime current time of the clock of the device timestamps
+     * @return amount of removed devices
+     */
+    public int expire(long currentTime) {
+        if (validityTime <= 0) {
+            return 0;
+        }
+        synchronized (structureLock) {
+            long targetTick = currentTime / tickDuration;
+            if (wheelTick == UNSET_TICK || targetTick <= wheelTick) {
+                return 0;
+            }
+            if (targetTick - wheelTick > WHEEL_SIZE) {
+                // visit every slot once
+                wheelTick = targetTick - WHEEL_SIZE;
+            }
+            int removedAmount = 0;
+            for (long tick = wheelTick + 1; tick <= targetTick; tick++) {
+                // the current tick has not elapsed completely, its slot stays due
+                wheelTick = Math.min(tick, targetTick - 1);
+                int slot = (int) (tick & (WHEEL_SIZE - 1));
+                Entry entry = wheel[slot];
+                wheel[slot] = null;
+                while (entry != null) {
+                    Entry nextEntry = entry.nextTimer;
+                    entry.scheduled = false;
+                    entry.previousTimer = null;
+                    entry.nextTimer = null;
+                    long expiryTime = entry.getTimeStamp() + validityTime;
+                    if (expiryTime < currentTime) {
+                        removeEntry(entry);
+                        removedAmount++;
+                    } else {
+                        schedule(entry, expiryTime);
+                    }
+                    entry = nextEntry;
+                }
+            }
+            expiredAmount += removedAmount;
+            return removedAmount;
+        }
+    }
+
+    /**
+     * Returns how many devices have been removed because they have not been received within the validity time
+     *
+     * @return amount of removed devices
+     */
+    public long getExpiredAmount() {
+        return expiredAmount;
+    }
+
+    /**
+     * Returns the amount of stored devices
+     *
+     * @return amount of devices
+     */
+    public int size() {
+        return table.entries.length;
+    }
+
+    /**
+     * Limits the amount of stored devices. If a new device exceeds the limit, the device which has not been received for the
+     * longest time will be removed.
+     *
+     * @param maxSize maximum amount of devices, 0 if the amount is not limited
+     */
+    public void setMaxSize(int maxSize) {
+        synchronized (structureLock) {
+            this.maxSize = maxSize;
+            while (maxSize > 0 && table.entries.length > maxSize) {
+                evictLeastRecentlyReceived();
+            }
+        }
+    }
+
+    /**
+     * Returns how many devices have been removed because the maximum amount of devices has been reached
+     *
+     * @return amount of removed devices
+     */
+    public long getEvictedAmount() {
+        return evictedAmount;
+    }
+
+    private void evictLeastRecentlyReceived() {
+        Entry leastRecentEntry = null;
+        long leastRecentTimeStamp = Long.MAX_VALUE;
+        for (Entry entry : table.entries) {
+            long timeStamp = entry.getTimeStamp();
+            if (leastRecentEntry == null || timeStamp < leastRecentTimeStamp) {
+                leastRecentEntry = entry;
+                leastRecentTimeStamp = timeStamp;
+            }
+        }
+        removeEntry(leastRecentEntry);
+        evictedAmount++;
+    }
+
+    private void removeEntry(Entry entry) {
+        Entry[] entries = table.entries;
+        Entry[] newEntries = new Entry[entries.length - 1];
+        int position = 0;
+        for (Entry currentEntry : entries) {
+            if (currentEntry != entry) {
+                newEntries[position++] = currentEntry;
+            }
+        }
+        table = new Table(newEntries);
+        release(entry);
+    }
+
+    private void release(Entry entry) {
+        unschedule(entry);
+        // readers of an outdated table skip the record until it is reused
+        entry.release();
+        pool.add(entry);
+    }
+
+    private void schedule(Entry entry, long expiryTime) {
+        long tick = Math.max(expiryTime / tickDuration, wheelTick + 1);
+        int slot = (int) (tick & (WHEEL_SIZE - 1));
+        entry.timerSlot = slot;
+        entry.scheduled = true;
+        entry.previousTimer = null;
+        entry.nextTimer = wheel[slot];
+        if (wheel[slot] != null) {
+            wheel[slot].previousTimer = entry;
+        }
+        wheel[slot] = entry;
+    }
+
+    private void unschedule(Entry entry) {
+        if (!entry.scheduled) {
+            return;
+        }
+        if (entry.previousTimer != null) {
+            entry.previousTimer.nextTimer = entry.nextTimer;
+        } else {
+            wheel[entry.timerSlot] = entry.nextTimer;
+        }
+        if (entry.nextTimer != null) {
+            entry.nextTimer.previousTimer = entry.previousTimer;
+        }
+        entry.scheduled = false;
+        entry.previousTimer = null;
+        entry.nextTimer = null;
+    }
+
+    /**
+     * Immutable open addressing table from packed identities to records, with linear probing and a load factor of at most 0.5
+     */
+    private static final class Table {
+        private final Entry[] entries;
+        private final long[] ids;
+        private final Entry[] slots;
+        private final int mask;
+
+        private Table(Entry[] entries) {
+            this.entries = entries;
+            int capacity = 4;
+            while (capacity < entries.length * 2) {
+                capacity <<= 1;
+            }
+            ids = new long[capacity];
+            slots = new Entry[capacity];
+            mask = capacity - 1;
+            for (Entry entry : entries) {
+                int slot = slot(entry.id);
+                while (slots[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                ids[slot] = entry.id;
+                slots[slot] = entry;
+            }
+        }
+
+        private Entry get(long id) {
+            int slot = slot(id);
+            while (slots[slot] != null) {
+                if (ids[slot] == id) {
+                    return slots[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private int slot(long id) {
+            long hash = id * 0x9e3779b97f4a7c15L;
+            return (int) (hash >>> 32) & mask;
+        }
+    }
+
+    /**
+     * Reusable record for the latest samples of a single device, guarded by its own monitor
+     */
+    private static final class Entry {
+        private final BluetoothLeDevice device = new BluetoothLeDevice();
+        private final long[] timeStamps;
+        private final int[] rssis;
+        private final int[] window;
+        private int latestSample;
+        private int sampleAmount;
+        private long id;
+        private boolean used;
+        // timer wheel links, guarded by the structure lock of the store
+        private Entry previousTimer;
+        private Entry nextTimer;
+        private int timerSlot;
+        private boolean scheduled;
+
+        private Entry(int sampleCapacity) {
+            timeStamps = new long[sampleCapacity];
+            rssis = new int[sampleCapacity];
+            window = new int[sampleCapacity];
+        }
+
+        private synchronized void assign(long id, BluetoothLeDevice sample) {
+            this.id = id;
+            this.used = true;
+            sampleAmount = 0;
+            addSample(sample);
+        }
+
+        private synchronized void release() {
+            used = false;
+        }
+
+        private synchronized boolean update(long id, BluetoothLeDevice sample) {
+            if (!used || this.id != id) {
+                return false;
+            }
+            addSample(sample);
+            return true;
+        }
+
+        private void addSample(BluetoothLeDevice sample) {
+            long timeStamp = sample.getTimeStamp();
+            if (sampleAmount == 0 || timeStamp >= device.getTimeStamp()) {
+                device.copyFrom(sample);
+            }
+            if (sampleAmount == timeStamps.length && timeStamp < timeStamps[(latestSample + 1) % timeStamps.length]) {
+                // older than all kept samples
+                return;
+            }
+            int keptAmount = Math.min(sampleAmount, timeStamps.length - 1);
+            latestSample = (latestSample + 1) % timeStamps.length;
+            sampleAmount = Math.min(sampleAmount + 1, timeStamps.length);
+            // insertion sort, in order samples do not move any sample
+            int position = latestSample;
+            for (int i = 0; i < keptAmount; i++) {
+                int previousSample = (position == 0 ? timeStamps.length : position) - 1;
+                if (timeStamps[previousSample] <= timeStamp) {
+                    break;
+                }
+                timeStamps[position] = timeStamps[previousSample];
+                rssis[position] = rssis[previousSample];
+                position = previousSample;
+            }
+            timeStamps[position] = timeStamp;
+            rssis[position] = sample.getRssi();
+        }
+
+        private synchronized boolean aggregateTo(BluetoothLeDevice result, long minTimeStamp, RssiReducer reducer) {
+            int amount = 0;
+            int sample = latestSample;
+            while (used && amount < sampleAmount && timeStamps[sample] >= minTimeStamp) {
+                window[amount++] = rssis[sample];
+                sample = (sample == 0 ? timeStamps.length : sample) - 1;
+            }
+            if (amount == 0) {
+                return false;
+            }
+            result.copyFrom(device);
+            result.setAggregatedRssi(reducer.reduce(window, amount));
+            return true;
+        }
+
+        private synchronized boolean copyTo(long id, BluetoothLeDevice result) {
+            return this.id == id && copyTo(result);
+        }
+
+        private synchronized boolean copyTo(BluetoothLeDevice result) {
+            if (!used) {
+                return false;
+            }
+            result.copyFrom(device);
+            return true;
+        }
+
+        private synchronized long getTimeStamp() {
+            return device.getTimeStamp();
+        }
+    }
+}
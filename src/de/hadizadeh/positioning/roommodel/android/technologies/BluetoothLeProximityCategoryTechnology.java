@@ -1,8 +1,6 @@
 package de.hadizadeh.positioning.roommodel.android.technologies;
 
 
-import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothDevice;
 import de.hadizadeh.positioning.model.SignalInformation;
 
 import java.util.HashMap;
@@ -22,17 +20,19 @@ public class BluetoothLeProximityCategoryTechnology extends BluetoothLeTechnolog
      */
     public BluetoothLeProximityCategoryTechnology(String name, List<String> allowedBtLeDevices, long validityTime) {
         super(name, allowedBtLeDevices, validityTime);
+        rssiReducer = RssiReducer.LATEST;
+        scanUuidPrefix = POSITIONING_UUID_TEXT.getBytes(US_ASCII);
+    }
 
-        leScanCallback = new BluetoothAdapter.LeScanCallback() {
-            @Override
-            public void onLeScan(BluetoothDevice device, int rssi, byte[] scanRecord) {
-                BluetoothLeDevice btLeDevice = new BluetoothLeDevice(device, scanRecord, rssi);
-                //System.out.println("DEVICE: " + btDevice.toString());
-                if ("Ind.Positioning".equals(btLeDevice.getUuidText())) {
-                    btLeDevices.put(btLeDevice.getIdentificator(), btLeDevice);
-                }
-            }
-        };
+    /**
+     * Accepts the beacons of the indoor positioning uuid
+     *
+     * @param btLeDevice received btle device
+     * @return true, if the device will be stored
+     */
+    @Override
+    protected boolean isAccepted(BluetoothLeDevice btLeDevice) {
+        return POSITIONING_UUID_TEXT.equals(btLeDevice.getUuidText());
     }
 
     /**
@@ -43,12 +43,9 @@ public class BluetoothLeProximityCategoryTechnology extends BluetoothLeTechnolog
     @Override
     public Map<String, SignalInformation> getSignalData() {
         Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
-        long currentTime = System.currentTimeMillis();
-        for (Map.Entry<String, BluetoothLeDevice> btLeDevice : btLeDevices.entrySet()) {
-            if (btLeDevice.getValue().getTimeStamp() + validityTime >= currentTime) {
-                if (btLeDevice.getValue().getDistanceCategory() == BluetoothLeDevice.DistanceCategory.IMMEDIATE) {
-                    signalData.put(btLeDevice.getValue().getIdentificator(), new SignalInformation(btLeDevice.getValue().getDistanceCategory().getValue()));
-                }
+        for (BluetoothLeDevice btLeDevice : snapshotValidBtLeDevices()) {
+            if (btLeDevice.getDistanceCategory() == BluetoothLeDevice.DistanceCategory.IMMEDIATE) {
+                signalData.put(btLeDevice.getIdentificator(), new SignalInformation(btLeDevice.getDistanceCategory().getValue()));
             }
         }
         return signalData;
@@ -1,8 +1,6 @@
 package de.hadizadeh.positioning.roommodel.android.technologies;
 
 
-import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothDevice;
 import de.hadizadeh.positioning.model.SignalInformation;
 
 import java.util.*;
@@ -21,20 +19,19 @@ public class BluetoothLeProximityTechnology extends BluetoothLeTechnology {
      */
     public BluetoothLeProximityTechnology(String name, List<String> allowedBtLeDevices, long validityTime) {
         super(name, allowedBtLeDevices, validityTime);
+        rssiReducer = RssiReducer.LATEST;
+        scanUuidPrefix = POSITIONING_UUID_TEXT.getBytes(US_ASCII);
+    }
 
-        leScanCallback = new BluetoothAdapter.LeScanCallback() {
-            @Override
-            public void onLeScan(BluetoothDevice device, int rssi, byte[] scanRecord) {
-                BluetoothLeDevice btDevice = new BluetoothLeDevice(device, scanRecord, rssi);
-                if ("Ind.Positioning".equals(btDevice.getUuidText())) {
-                    //if (rssi > -75 && "4c00".equals(btDevice.getCompanyId()) && allowedBtLeDevices.contains(btDevice.getUuid())) {
-                    //if (btDevice.getRssi() > -70) {
-                    btLeDevices.put(btDevice.getIdentificator(), btDevice);
-                    //}
-                    //}
-                }
-            }
-        };
+    /**
+     * Accepts the beacons of the indoor positioning uuid
+     *
+     * @param btLeDevice received btle device
+     * @return true, if the device will be stored
+     */
+    @Override
+    protected boolean isAccepted(BluetoothLeDevice btLeDevice) {
+        return POSITIONING_UUID_TEXT.equals(btLeDevice.getUuidText());
     }
 
     /**
@@ -46,12 +43,9 @@ public class BluetoothLeProximityTechnology extends BluetoothLeTechnology {
     public Map<String, SignalInformation> getSignalData() {
         Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
         LinkedList<BluetoothLeDevice> availableDevices = new LinkedList<BluetoothLeDevice>();
-        long currentTime = System.currentTimeMillis();
-        for (Map.Entry<String, BluetoothLeDevice> btLeDevice : btLeDevices.entrySet()) {
-            if (btLeDevice.getValue().getTimeStamp() + validityTime >= currentTime) {
-                availableDevices.add(btLeDevice.getValue());
-                //signalData.put(btLeDevice.getValue().getAddress(), new SignalInformation(btLeDevice.getValue().getRssi()));
-            }
+        for (BluetoothLeDevice btLeDevice : snapshotValidBtLeDevices()) {
+            availableDevices.add(btLeDevice);
+            //signalData.put(btLeDevice.getValue().getAddress(), new SignalInformation(btLeDevice.getValue().getRssi()));
         }
         if (availableDevices.size() > 0) {
             BluetoothLeDevice bestDevice = Collections.max(availableDevices);
@@ -0,0 +1,43 @@
+package de.hadizadeh.positioning.roommodel.android.technologies;
+
+import android.bluetooth.BluetoothDevice;
+
+/**
+ * Source of received btle advertisements. Backends may filter the advertisements in the bluetooth controller and deliver them
+ * in batches, so every advertisement is passed with its age.
+ */
+public interface BluetoothLeScanBackend {
+
+    /**
+     * Starts scanning
+     *
+     * @param listener listener which receives the advertisements
+     */
+    void start(Listener listener);
+
+    /**
+     * Stops scanning
+     */
+    void stop();
+
+    /**
+     * Delivers the advertisements which have been received but not been delivered yet, if the backend delivers batches
+     */
+    void flush();
+
+    /**
+     * Receiver of the advertisements
+     */
+    interface Listener {
+
+        /**
+         * Called for every received advertisement, advertisements of a batch are passed one after another
+         *
+         * @param device     device with included data, can be null
+         * @param scanRecord advertisement message
+         * @param rssi       rssi signal strength
+         * @param age        milliseconds since the advertisement has been received
+         */
+        void onAdvertisement(BluetoothDevice device, byte[] scanRecord, int rssi, long age);
+    }
+}
@@ -1,8 +1,8 @@
 package de.hadizadeh.positioning.roommodel.android.technologies;
 
-import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothDevice;
 import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.Fingerprint;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
 
 import java.util.HashMap;
 import java.util.List;
@@ -11,7 +11,7 @@ import java.util.Map;
 /**
  * Intuitive implementation of the fingerprinting algorithm. Using signal strength of all beacons
  */
-public class BluetoothLeStrengthTechnology extends BluetoothLeTechnology {
+public class BluetoothLeStrengthTechnology extends BluetoothLeTechnology implements FingerprintTechnology {
 
     /**
      * Creates the technology
@@ -22,36 +22,57 @@ public class BluetoothLeStrengthTechnology extends BluetoothLeTechnology {
      */
     public BluetoothLeStrengthTechnology(String name, long validityTime, List<String> allowedBtLeDevices) {
         super(name, allowedBtLeDevices, validityTime);
+    }
 
-        leScanCallback = new BluetoothAdapter.LeScanCallback() {
-            @Override
-            public void onLeScan(BluetoothDevice device, int rssi, byte[] scanRecord) {
-                BluetoothLeDevice btDevice = new BluetoothLeDevice(device, scanRecord, rssi);
-                if ("4c00".equals(btDevice.getCompanyId()) && (BluetoothLeStrengthTechnology.this.allowedBtLeDevices == null ||
-                        BluetoothLeStrengthTechnology.this.allowedBtLeDevices.contains(btDevice.getUuid()))) {
-                    if (btDevice.getRssi() > -80) {
-                        btLeDevices.put(btDevice.getIdentificator(), btDevice);
-                    }
-                }
-            }
-        };
+    /**
+     * Creates the technology
+     *
+     * @param name               name of the technology
+     * @param allowedBtLeDevices whitelist of allowed btle devices or null, if all devices are allowed
+     * @param validityTime       delta time which describes for how long a received signal will be used
+     * @param scanBackend        backend which receives the advertisements
+     */
+    public BluetoothLeStrengthTechnology(String name, long validityTime, List<String> allowedBtLeDevices, BluetoothLeScanBackend scanBackend) {
+        super(name, allowedBtLeDevices, validityTime, scanBackend);
     }
 
     /**
-     * Collects all received btle data in the defined delta time
+     * Accepts ibeacons of the whitelist with an rssi above -80
+     *
+     * @param btLeDevice received btle device
+     * @return true, if the device will be stored
+     */
+    @Override
+    protected boolean isAccepted(BluetoothLeDevice btLeDevice) {
+        return btLeDevice.getCompanyIdValue() == BluetoothLeDevice.APPLE_COMPANY_ID && (allowedBtLeDevices == null ||
+                allowedBtLeDevices.contains(btLeDevice.getUuid())) && btLeDevice.getRssi() > -80;
+    }
+
+    /**
+     * Collects all received btle data in the defined delta time, the samples of each beacon are aggregated by the rssi reducer
      *
      * @return received btle data
      */
     @Override
     public Map<String, SignalInformation> getSignalData() {
         Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
-        long currentTime = System.currentTimeMillis();
-        for (Map.Entry<String, BluetoothLeDevice> btLeDevice : btLeDevices.entrySet()) {
-            if (btLeDevice.getValue().getTimeStamp() + validityTime >= currentTime) {
-                signalData.put(btLeDevice.getValue().getIdentificator(),
-                        new SignalInformation(btLeDevice.getValue().getRssi()));
-            }
+        for (BluetoothLeDevice btLeDevice : snapshotValidBtLeDevices()) {
+            signalData.put(btLeDevice.getIdentificator(), new SignalInformation(btLeDevice.getAggregatedRssi()));
         }
         return signalData;
     }
+
+    /**
+     * Writes all received btle data in the defined delta time into a fingerprint
+     *
+     * @param fingerprint   fingerprint which will be overwritten
+     * @param keyDictionary dictionary for interning the beacon identificators
+     */
+    @Override
+    public void readFingerprint(Fingerprint fingerprint, SignalKeyDictionary keyDictionary) {
+        fingerprint.clear();
+        for (BluetoothLeDevice btLeDevice : snapshotValidBtLeDevices()) {
+            fingerprint.add(keyDictionary.intern(btLeDevice.getIdentificator()), (float) btLeDevice.getAggregatedRssi());
+        }
+    }
 }
@@ -2,38 +2,75 @@ package de.hadizadeh.positioning.roommodel.android.technologies;
 
 
 import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.ScanSettings;
+import android.os.Build;
+import android.os.SystemClock;
 import de.hadizadeh.positioning.controller.Technology;
 import de.hadizadeh.positioning.roommodel.android.BalanceCachingManager;
 
-import java.util.HashMap;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
- * Class for defining the structure for different btle technologies
+ * Class for defining the structure for different btle technologies. The advertisements are received from a scan backend, by
+ * default the batched and hardware filtered btle scanner on android lollipop and above, else the legacy scan of the adapter.
  */
-public abstract class BluetoothLeTechnology extends Technology {
+public abstract class BluetoothLeTechnology extends Technology implements BluetoothLeScanBackend.Listener {
+    /**
+     * uuid text of the beacons of the indoor positioning
+     */
+    protected static final String POSITIONING_UUID_TEXT = "Ind.Positioning";
+    /**
+     * charset of the uuid text
+     */
+    protected static final Charset US_ASCII = Charset.forName("US-ASCII");
     protected BluetoothAdapter bluetoothAdapter;
     protected int cacheSize = 5;
-    protected Map<String, BluetoothLeDevice> btLeDevices;
+    protected BluetoothLeDeviceStore btLeDevices;
+    protected List<BluetoothLeDevice> btLeDeviceSnapshot;
     protected long validityTime;
     protected List<String> allowedBtLeDevices;
     protected boolean scanning;
+    protected RssiReducer rssiReducer = RssiReducer.MEAN;
+    private final ThreadLocal<BluetoothLeDevice> scannedBtLeDevice = new ThreadLocal<BluetoothLeDevice>() {
+        @Override
+        protected BluetoothLeDevice initialValue() {
+            return new BluetoothLeDevice();
+        }
+    };
 
-    protected BluetoothAdapter.LeScanCallback leScanCallback;
+    protected BluetoothLeScanBackend scanBackend;
+    protected byte[] scanUuidPrefix;
 
     /**
-     * Creates the technology
+     * Creates the technology with the default scan backend
      *
      * @param name               name of the technology
      * @param allowedBtLeDevices whitelist of allowed btle devices or null, if all devices are allowed
      * @param validityTime       delta time which describes for how long a received signal will be used
      */
     public BluetoothLeTechnology(String name, List<String> allowedBtLeDevices, long validityTime) {
+        this(name, allowedBtLeDevices, validityTime, null);
+    }
+
+    /**
+     * Creates the technology
+     *
+     * @param name               name of the technology
+     * @param allowedBtLeDevices whitelist of allowed btle devices or null, if all devices are allowed
+     * @param validityTime       delta time which describes for how long a received signal will be used
+     * @param scanBackend        backend which receives the advertisements, null for the default backend
+     */
+    public BluetoothLeTechnology(String name, List<String> allowedBtLeDevices, long validityTime, BluetoothLeScanBackend scanBackend) {
         super(name, null);
+        this.scanBackend = scanBackend;
         this.validityTime = validityTime;
         this.allowedBtLeDevices = allowedBtLeDevices;
-        this.btLeDevices = new HashMap<String, BluetoothLeDevice>();
+        this.btLeDevices = new BluetoothLeDeviceStore();
+        this.btLeDevices.setValidityTime(validityTime);
+        this.btLeDeviceSnapshot = new ArrayList<BluetoothLeDevice>();
         this.bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
         this.bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
         setCachingManager(new BalanceCachingManager(cacheSize));
@@ -45,7 +82,62 @@ public abstract class BluetoothLeTechnology extends Technology {
     @Override
     public void startScanning() {
         super.startScanning();
-        bluetoothAdapter.startLeScan(leScanCallback);
+        if (scanBackend == null) {
+            scanBackend = createScanBackend();
+        }
+        scanning = true;
+        scanBackend.start(this);
+    }
+
+    /**
+     * Creates the default scan backend, the batched btle scanner is filtered by the scan uuid prefix
+     *
+     * @return scan backend
+     */
+    protected BluetoothLeScanBackend createScanBackend() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && bluetoothAdapter.getBluetoothLeScanner() != null) {
+            // batches must arrive well within the validity time
+            long reportDelay = Math.min(BatchedBluetoothLeScanBackend.DEFAULT_REPORT_DELAY, validityTime / 2);
+            return new BatchedBluetoothLeScanBackend(bluetoothAdapter.getBluetoothLeScanner(), scanUuidPrefix, reportDelay,
+                    ScanSettings.SCAN_MODE_BALANCED);
+        }
+        return new LegacyBluetoothLeScanBackend(bluetoothAdapter);
+    }
+
+    /**
+     * Stores a received ibeacon advertisement, if it is accepted by the technology
+     *
+     * @param device     device with included data, can be null
+     * @param scanRecord advertisement message
+     * @param rssi       rssi signal strength
+     * @param age        milliseconds since the advertisement has been received
+     */
+    @Override
+    public void onAdvertisement(BluetoothDevice device, byte[] scanRecord, int rssi, long age) {
+        if (scanRecord == null || scanRecord.length < BluetoothLeDevice.IBEACON_ADVERTISEMENT_LENGTH) {
+            return;
+        }
+        BluetoothLeDevice btLeDevice = parseBtLeDevice(device, scanRecord, rssi, age);
+        if (isAccepted(btLeDevice)) {
+            btLeDevices.put(btLeDevice);
+        }
+    }
+
+    /**
+     * Checks if a received btle device will be used by the technology, the scan backend may already have filtered it
+     *
+     * @param btLeDevice received btle device
+     * @return true, if the device will be stored
+     */
+    protected abstract boolean isAccepted(BluetoothLeDevice btLeDevice);
+
+    /**
+     * Delivers the advertisements which the scan backend has collected but not delivered yet
+     */
+    public void flushScanResults() {
+        if (scanBackend != null) {
+            scanBackend.flush();
+        }
     }
 
     /**
@@ -55,6 +147,75 @@ public abstract class BluetoothLeTechnology extends Technology {
         btLeDevices.clear();
     }
 
+    /**
+     * Limits the amount of stored btle devices. If a new device exceeds the limit, the device which has not been received for
+     * the longest time will be removed.
+     *
+     * @param maxBtLeDevices maximum amount of btle devices, 0 if the amount is not limited
+     */
+    public void setMaxBtLeDevices(int maxBtLeDevices) {
+        btLeDevices.setMaxSize(maxBtLeDevices);
+    }
+
+    /**
+     * Returns how many btle devices have been removed because the maximum amount of devices has been reached
+     *
+     * @return amount of removed btle devices
+     */
+    public long getEvictedBtLeDevices() {
+        return btLeDevices.getEvictedAmount();
+    }
+
+    /**
+     * Parses an advertisement into the reusable device of the calling scan thread, the timestamp is taken from
+     * {@link #currentTime()}. The device is overwritten by the next advertisement, it can be stored with
+     * {@link BluetoothLeDeviceStore#put(BluetoothLeDevice)}, which copies it.
+     *
+     * @param device     device with included data
+     * @param scanRecord advertisement message
+     * @param rssi       rssi signal strength
+     * @param age        milliseconds since the advertisement has been received
+     * @return parsed device
+     */
+    protected BluetoothLeDevice parseBtLeDevice(BluetoothDevice device, byte[] scanRecord, int rssi, long age) {
+        BluetoothLeDevice btLeDevice = scannedBtLeDevice.get();
+        btLeDevice.update(device, scanRecord, rssi, currentTime() - age);
+        return btLeDevice;
+    }
+
+    /**
+     * Removes the btle devices whose validity time has passed and copies all others into the reusable snapshot list, their
+     * aggregated rssi is reduced from all samples within the validity time. Must only be called from the positioning thread.
+     *
+     * @return snapshot of the valid btle devices
+     */
+    protected List<BluetoothLeDevice> snapshotValidBtLeDevices() {
+        long currentTime = currentTime();
+        btLeDevices.expire(currentTime);
+        btLeDevices.copyDevices(btLeDeviceSnapshot, currentTime - validityTime, rssiReducer);
+        return btLeDeviceSnapshot;
+    }
+
+    /**
+     * Returns the time of a monotonic clock for the timestamps of the received btle data, so adjusting the system time does not
+     * expire signals. It is the clock of the batched scan results and of {@link BluetoothLeDevice}, which also counts in deep
+     * sleep.
+     *
+     * @return time in milliseconds
+     */
+    protected long currentTime() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Sets how the rssi samples of a btle device within the validity time are aggregated
+     *
+     * @param rssiReducer reducer, {@link RssiReducer#LATEST} uses only the latest sample
+     */
+    public void setRssiReducer(RssiReducer rssiReducer) {
+        this.rssiReducer = rssiReducer;
+    }
+
     /**
      * Stops the scan process
      */
@@ -62,7 +223,9 @@ public abstract class BluetoothLeTechnology extends Technology {
     public void stopScanning() {
         super.stopScanning();
         scanning = false;
-        bluetoothAdapter.stopLeScan(leScanCallback);
+        if (scanBackend != null) {
+            scanBackend.stop();
+        }
     }
 
     /**
@@ -77,16 +240,14 @@ public abstract class BluetoothLeTechnology extends Technology {
     }
 
     /**
-     * Converts major and minor data to a single number
+     * Converts major and minor data to a single number, the minor takes the lower 6 bits or more if it is larger
      *
      * @param major major value
      * @param minor minor value
      * @return representative number
      */
     public static int majorMinorToNumber(int major, int minor) {
-        String majorBits = String.format("%3s", Integer.toBinaryString(major)).replace(' ', '0');
-        String minorBits = String.format("%6s", Integer.toBinaryString(minor)).replace(' ', '0');
-        return Integer.parseInt(majorBits + minorBits, 2);
+        return major << Math.max(6, 32 - Integer.numberOfLeadingZeros(minor)) | minor;
     }
 
     /**
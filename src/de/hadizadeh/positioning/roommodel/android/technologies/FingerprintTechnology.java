@@ -0,0 +1,18 @@
+package de.hadizadeh.positioning.roommodel.android.technologies;
+
+import de.hadizadeh.positioning.roommodel.android.Fingerprint;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+
+/**
+ * Interface for technologies which can provide their signal data as a primitive fingerprint
+ */
+public interface FingerprintTechnology {
+
+    /**
+     * Writes the current signal data into a fingerprint, without creating signal data maps
+     *
+     * @param fingerprint   fingerprint which will be overwritten
+     * @param keyDictionary dictionary for interning the signal keys
+     */
+    public void readFingerprint(Fingerprint fingerprint, SignalKeyDictionary keyDictionary);
+}
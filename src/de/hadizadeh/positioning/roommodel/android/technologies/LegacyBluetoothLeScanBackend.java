@@ -0,0 +1,57 @@
+package de.hadizadeh.positioning.roommodel.android.technologies;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+
+/**
+ * Scan backend of the bluetooth adapter for android versions before lollipop. Every advertisement is delivered immediately and
+ * is filtered in java.
+ */
+public class LegacyBluetoothLeScanBackend implements BluetoothLeScanBackend {
+    private BluetoothAdapter bluetoothAdapter;
+    private BluetoothAdapter.LeScanCallback leScanCallback;
+
+    /**
+     * Creates the backend
+     *
+     * @param bluetoothAdapter bluetooth adapter
+     */
+    public LegacyBluetoothLeScanBackend(BluetoothAdapter bluetoothAdapter) {
+        this.bluetoothAdapter = bluetoothAdapter;
+    }
+
+    /**
+     * Starts scanning
+     *
+     * @param listener listener which receives the advertisements
+     */
+    @Override
+    public void start(final Listener listener) {
+        stop();
+        leScanCallback = new BluetoothAdapter.LeScanCallback() {
+            @Override
+            public void onLeScan(BluetoothDevice device, int rssi, byte[] scanRecord) {
+                listener.onAdvertisement(device, scanRecord, rssi, 0);
+            }
+        };
+        bluetoothAdapter.startLeScan(leScanCallback);
+    }
+
+    /**
+     * Stops scanning
+     */
+    @Override
+    public void stop() {
+        if (leScanCallback != null) {
+            bluetoothAdapter.stopLeScan(leScanCallback);
+            leScanCallback = null;
+        }
+    }
+
+    /**
+     * Does nothing, advertisements are not batched
+     */
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,64 @@
+package de.hadizadeh.positioning.roommodel.android.technologies;
+
+import java.util.Arrays;
+
+/**
+ * Aggregates the rssi samples of a btle device, which have been received within the validity time
+ */
+public enum RssiReducer {
+    /**
+     * rssi of the latest sample
+     */
+    LATEST {
+        @Override
+        public double reduce(int[] rssis, int amount) {
+            return rssis[0];
+        }
+    },
+    /**
+     * mean rssi
+     */
+    MEAN {
+        @Override
+        public double reduce(int[] rssis, int amount) {
+            long sum = 0;
+            for (int i = 0; i < amount; i++) {
+                sum += rssis[i];
+            }
+            return (double) sum / amount;
+        }
+    },
+    /**
+     * median rssi, the mean of both middle samples for an even amount
+     */
+    MEDIAN {
+        @Override
+        public double reduce(int[] rssis, int amount) {
+            Arrays.sort(rssis, 0, amount);
+            int middle = amount / 2;
+            return amount % 2 == 1 ? rssis[middle] : (rssis[middle - 1] + rssis[middle]) / 2.0;
+        }
+    },
+    /**
+     * strongest rssi, robust against samples which have been attenuated by people or obstacles
+     */
+    MAX {
+        @Override
+        public double reduce(int[] rssis, int amount) {
+            int max = rssis[0];
+            for (int i = 1; i < amount; i++) {
+                max = Math.max(max, rssis[i]);
+            }
+            return max;
+        }
+    };
+
+    /**
+     * Aggregates rssi samples
+     *
+     * @param rssis  samples, the latest first, may be reordered
+     * @param amount amount of samples, at least 1
+     * @return aggregated rssi
+     */
+    public abstract double reduce(int[] rssis, int amount);
+}
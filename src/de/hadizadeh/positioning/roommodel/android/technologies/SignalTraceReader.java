@@ -0,0 +1,174 @@
+package de.hadizadeh.positioning.roommodel.android.technologies;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the signal data of a log written by {@link SignalTraceWriter}. The records of all sessions are returned in the order
+ * they have been written, the timestamps restart with every session. A truncated last record, e.g. of a recording which has
+ * not been closed, ends the iteration.
+ */
+public class SignalTraceReader implements Iterator<SignalTraceRecord>, Closeable {
+    private final DataInputStream input;
+    private final List<String> technologyNames = new ArrayList<String>();
+    private final List<Double> technologyResolutions = new ArrayList<Double>();
+    private final List<String> keys = new ArrayList<String>();
+    private long timestamp;
+    private SignalTraceRecord next;
+
+    /**
+     * Opens a log
+     *
+     * @param file log file
+     * @throws IOException if the file can not be opened or is not a signal trace
+     */
+    public SignalTraceReader(File file) throws IOException {
+        input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        if (input.read() != SignalTraceWriter.SESSION_RECORD) {
+            input.close();
+            throw new IOException("file is not a signal trace");
+        }
+        try {
+            readSession();
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks if there is another record, reads it if necessary
+     *
+     * @return true, if there is another record
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readRecord();
+            } catch (EOFException e) {
+                next = null;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return next != null;
+    }
+
+    /**
+     * Returns the next record
+     *
+     * @return next record
+     */
+    @Override
+    public SignalTraceRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SignalTraceRecord record = next;
+        next = null;
+        return record;
+    }
+
+    /**
+     * Not supported, the log is append-only
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Closes the log
+     *
+     * @throws IOException if closing has failed
+     */
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private SignalTraceRecord readRecord() throws IOException {
+        while (true) {
+            int type = input.read();
+            if (type < 0) {
+                return null;
+            }
+            if (type == SignalTraceWriter.SESSION_RECORD) {
+                readSession();
+            } else if (type == SignalTraceWriter.TECHNOLOGY_RECORD) {
+                readDefinition(technologyNames, (int) readVarLong());
+                technologyResolutions.add(input.readDouble());
+                technologyNames.add(readString());
+            } else if (type == SignalTraceWriter.KEY_RECORD) {
+                readDefinition(keys, (int) readVarLong());
+                keys.add(readString());
+            } else if (type == SignalTraceWriter.SIGNAL_RECORD) {
+                int technologyId = (int) readVarLong();
+                timestamp += unZigZag(readVarLong());
+                int size = (int) readVarLong();
+                String[] recordKeys = new String[size];
+                double[] strengths = new double[size];
+                double resolution = technologyResolutions.get(technologyId);
+                for (int i = 0; i < size; i++) {
+                    recordKeys[i] = keys.get((int) readVarLong());
+                    strengths[i] = unZigZag(readVarLong()) * resolution;
+                }
+                return new SignalTraceRecord(timestamp, technologyNames.get(technologyId), recordKeys, strengths);
+            } else {
+                throw new IOException("unknown record type " + type);
+            }
+        }
+    }
+
+    private void readSession() throws IOException {
+        if (input.readInt() != SignalTraceWriter.MAGIC) {
+            throw new IOException("file is not a signal trace");
+        }
+        long version = readVarLong();
+        if (version != SignalTraceWriter.VERSION) {
+            throw new IOException("unsupported signal trace version " + version);
+        }
+        technologyNames.clear();
+        technologyResolutions.clear();
+        keys.clear();
+        timestamp = 0;
+    }
+
+    private static void readDefinition(List<?> definitions, int id) throws IOException {
+        if (id != definitions.size()) {
+            throw new IOException("unexpected definition id " + id);
+        }
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = new byte[(int) readVarLong()];
+        input.readFully(bytes);
+        return new String(bytes, SignalTraceWriter.UTF_8);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed variable length integer");
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
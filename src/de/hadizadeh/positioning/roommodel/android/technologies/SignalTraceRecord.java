@@ -0,0 +1,91 @@
+package de.hadizadeh.positioning.roommodel.android.technologies;
+
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Signal data of one technology which has been read from a signal trace
+ */
+public class SignalTraceRecord {
+    private final long timestamp;
+    private final String technologyName;
+    private final String[] keys;
+    private final double[] strengths;
+
+    /**
+     * Creates the record
+     *
+     * @param timestamp      timestamp in nanoseconds since the start of the session
+     * @param technologyName name of the technology
+     * @param keys           keys of the signals
+     * @param strengths      dequantized strengths of the signals
+     */
+    SignalTraceRecord(long timestamp, String technologyName, String[] keys, double[] strengths) {
+        this.timestamp = timestamp;
+        this.technologyName = technologyName;
+        this.keys = keys;
+        this.strengths = strengths;
+    }
+
+    /**
+     * Returns the timestamp of a monotonic clock
+     *
+     * @return nanoseconds since the start of the session
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the name of the technology
+     *
+     * @return name of the technology
+     */
+    public String getTechnologyName() {
+        return technologyName;
+    }
+
+    /**
+     * Returns the amount of signals
+     *
+     * @return amount of signals
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the key of a signal
+     *
+     * @param index index of the signal
+     * @return key
+     */
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Returns the strength of a signal
+     *
+     * @param index index of the signal
+     * @return strength, rounded to the resolution of the technology
+     */
+    public double getStrength(int index) {
+        return strengths[index];
+    }
+
+    /**
+     * Creates the signal data like it has been returned by the technology
+     *
+     * @return signal data
+     */
+    public Map<String, SignalInformation> getSignalData() {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        for (int i = 0; i < keys.length; i++) {
+            signalData.put(keys[i], new SignalInformation(strengths[i]));
+        }
+        return signalData;
+    }
+}
@@ -0,0 +1,149 @@
+package de.hadizadeh.positioning.roommodel.android.technologies;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.controller.Matcher;
+import de.hadizadeh.positioning.controller.Technology;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Technology which wraps another technology and records every signal data it returns into a signal trace. It can be added to
+ * the positioning instead of the wrapped technology, the caching manager and the matcher are set on both. Technologies which
+ * match on their own (e.g. gps) keep their matching, their signal data is recorded before. The recorder does not keep the type
+ * of the wrapped technology, active technologies (e.g. nfc) have to be unwrapped with {@link #getTechnology()} to pass detected
+ * ids.
+ */
+public class SignalTraceRecorder extends Technology {
+    /**
+     * default resolution of the quantized strengths, quarter dB
+     */
+    public static final double DEFAULT_RESOLUTION = 0.25;
+
+    private Technology technology;
+    private SignalTraceWriter writer;
+    private int technologyId;
+    private boolean ownMatching;
+
+    /**
+     * Creates the recorder with quarter dB strengths
+     *
+     * @param technology technology whose signal data will be recorded
+     * @param writer     writer of the signal trace, can be shared by several recorders
+     */
+    public SignalTraceRecorder(Technology technology, SignalTraceWriter writer) {
+        this(technology, writer, DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Creates the recorder
+     *
+     * @param technology technology whose signal data will be recorded
+     * @param writer     writer of the signal trace, can be shared by several recorders
+     * @param resolution resolution of the quantized strengths, e.g. 0.0000001 for gps coordinates
+     */
+    public SignalTraceRecorder(Technology technology, SignalTraceWriter writer, double resolution) {
+        super(technology.getName());
+        this.technology = technology;
+        this.writer = writer;
+        this.technologyId = writer.addTechnology(technology.getName(), resolution);
+        this.ownMatching = overridesMatch(technology);
+    }
+
+    /**
+     * Returns the signal data of the wrapped technology and queues it for recording
+     *
+     * @return signal data of the wrapped technology
+     */
+    @Override
+    public Map<String, SignalInformation> getSignalData() {
+        Map<String, SignalInformation> signalData = technology.getSignalData();
+        writer.record(technologyId, signalData);
+        return signalData;
+    }
+
+    /**
+     * Matches the recorded signal data, technologies which match on their own are matched by themselves
+     *
+     * @param persistedPositions persisted fingerprints
+     * @return matched positions with their distances
+     */
+    @Override
+    public Map<PositionInformation, Double> match(List<PositionInformation> persistedPositions) {
+        if (ownMatching) {
+            writer.record(technologyId, technology.getSignalData());
+            return technology.match(persistedPositions);
+        }
+        return super.match(persistedPositions);
+    }
+
+    /**
+     * Sets the caching manager of the recorder and of the wrapped technology
+     *
+     * @param cachingManager caching manager
+     */
+    @Override
+    public void setCachingManager(CachingManager cachingManager) {
+        super.setCachingManager(cachingManager);
+        technology.setCachingManager(cachingManager);
+    }
+
+    /**
+     * Sets the matcher of the recorder and of the wrapped technology
+     *
+     * @param matcher matcher
+     */
+    @Override
+    public void setMatcher(Matcher matcher) {
+        super.setMatcher(matcher);
+        technology.setMatcher(matcher);
+    }
+
+    /**
+     * Starts scanning of the wrapped technology
+     */
+    @Override
+    public void startScanning() {
+        technology.startScanning();
+    }
+
+    /**
+     * Stops scanning of the wrapped technology
+     */
+    @Override
+    public void stopScanning() {
+        technology.stopScanning();
+    }
+
+    /**
+     * Returns the wrapped technology
+     *
+     * @return wrapped technology
+     */
+    public Technology getTechnology() {
+        return technology;
+    }
+
+    /**
+     * Unwraps a technology if it is wrapped by a recorder
+     *
+     * @param technology technology or recorder
+     * @return technology which is not a recorder
+     */
+    public static Technology unwrap(Technology technology) {
+        while (technology instanceof SignalTraceRecorder) {
+            technology = ((SignalTraceRecorder) technology).getTechnology();
+        }
+        return technology;
+    }
+
+    private static boolean overridesMatch(Technology technology) {
+        try {
+            return technology.getClass().getMethod("match", List.class).getDeclaringClass() != Technology.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package de.hadizadeh.positioning.roommodel.android.technologies;
+
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Appends signal data of several technologies to a compact binary log. Recording only interns the keys and queues the record,
+ * a background thread encodes the records and writes them through a file channel, so recording does not block the positioning
+ * loop. If the queue is full, records are dropped and counted. Closing queues an end marker behind all recorded records, so the
+ * writer thread writes the whole queue before it stops.
+ * <p>
+ * The log consists of records, each starting with its type: a session header (magic and version, resets the ids of the
+ * following records, so sessions can be appended to an existing log), a technology definition (id, strength resolution,
+ * name), a key definition (id, key) and signal data (technology id, timestamp delta to the previous signal data in
+ * nanoseconds of a monotonic clock, amount of keys, key ids and strengths quantized by the resolution of the technology).
+ * Numbers are stored as variable length integers, signed ones zigzag encoded.
+ */
+public class SignalTraceWriter implements Closeable {
+    static final int MAGIC = 0x53494754;
+    static final int VERSION = 1;
+    static final int SESSION_RECORD = 0;
+    static final int TECHNOLOGY_RECORD = 1;
+    static final int KEY_RECORD = 2;
+    static final int SIGNAL_RECORD = 3;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * default amount of records which can be queued
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long FLUSH_INTERVAL = 1000;
+    private static final Record END_RECORD = new Record(0, -1, 0);
+
+    private final FileChannel channel;
+    private final BlockingQueue<Record> queue;
+    private final SignalKeyDictionary keyDictionary = new SignalKeyDictionary();
+    private final List<String> technologyNames = new ArrayList<String>();
+    private final List<Double> technologyResolutions = new ArrayList<Double>();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Thread writerThread;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+    private volatile IOException writeException;
+    private final AtomicLong droppedAmount = new AtomicLong();
+    private int writtenKeyAmount;
+    private int writtenTechnologyAmount;
+    private long lastTimestamp;
+
+    /**
+     * Opens a log and appends a new session to it
+     *
+     * @param file log file, will be created if it does not exist
+     * @throws IOException if the file can not be opened
+     */
+    public SignalTraceWriter(File file) throws IOException {
+        this(file, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Opens a log and appends a new session to it
+     *
+     * @param file          log file, will be created if it does not exist
+     * @param queueCapacity amount of records which can be queued before records are dropped
+     * @throws IOException if the file can not be opened
+     */
+    public SignalTraceWriter(File file, int queueCapacity) throws IOException {
+        channel = new FileOutputStream(file, true).getChannel();
+        queue = new ArrayBlockingQueue<Record>(queueCapacity);
+        lastTimestamp = System.nanoTime();
+        buffer.put((byte) SESSION_RECORD);
+        buffer.putInt(MAGIC);
+        putVarLong(VERSION);
+        writerThread = new Thread("SignalTraceWriter") {
+            public void run() {
+                writeRecords();
+            }
+        };
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Registers a technology
+     *
+     * @param name       name of the technology
+     * @param resolution resolution of the quantized strengths, e.g. 0.25 for quarter dB
+     * @return id of the technology
+     */
+    public synchronized int addTechnology(String name, double resolution) {
+        if (resolution <= 0.0) {
+            throw new IllegalArgumentException("resolution must be positive");
+        }
+        technologyNames.add(name);
+        technologyResolutions.add(resolution);
+        return technologyNames.size() - 1;
+    }
+
+    /**
+     * Queues signal data for writing
+     *
+     * @param technologyId id of the technology
+     * @param signalData   signal data
+     * @return true, if the record has been queued, false if it has been dropped or the log is closed
+     */
+    public boolean record(int technologyId, Map<String, SignalInformation> signalData) {
+        if (closed) {
+            return false;
+        }
+        Record record = new Record(System.nanoTime(), technologyId, signalData.size());
+        for (Map.Entry<String, SignalInformation> entry : signalData.entrySet()) {
+            record.add(keyDictionary.intern(entry.getKey()), entry.getValue().getStrength());
+        }
+        // records can only be queued before the end marker
+        closeLock.readLock().lock();
+        try {
+            if (closed || writeException != null) {
+                return false;
+            }
+            if (!queue.offer(record)) {
+                droppedAmount.incrementAndGet();
+                return false;
+            }
+            return true;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of records which have been dropped, because the queue was full
+     *
+     * @return amount of records
+     */
+    public long getDroppedAmount() {
+        return droppedAmount.get();
+    }
+
+    /**
+     * Writes all queued records and closes the log
+     *
+     * @throws IOException if writing has failed
+     */
+    @Override
+    public void close() throws IOException {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        // the writer thread is not interrupted, an interrupt would close the channel while it is written
+        boolean interrupted = false;
+        boolean queued = false;
+        while (!queued && writerThread.isAlive()) {
+            try {
+                queued = queue.offer(END_RECORD, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        while (writerThread.isAlive()) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (writeException != null) {
+            throw writeException;
+        }
+    }
+
+    private void writeRecords() {
+        try {
+            long lastFlush = System.currentTimeMillis();
+            while (true) {
+                Record record;
+                try {
+                    record = queue.poll(FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    record = null;
+                }
+                if (record == END_RECORD) {
+                    flush();
+                    return;
+                }
+                if (record != null) {
+                    write(record);
+                }
+                if (record == null || System.currentTimeMillis() - lastFlush >= FLUSH_INTERVAL) {
+                    flush();
+                    lastFlush = System.currentTimeMillis();
+                }
+            }
+        } catch (IOException e) {
+            writeException = e;
+        }
+    }
+
+    private void write(Record record) throws IOException {
+        writeDefinitions(record);
+        ensureRemaining(1 + 5 + 10 + 5 + record.size * 10);
+        buffer.put((byte) SIGNAL_RECORD);
+        putVarLong(record.technologyId);
+        putVarLong(zigZag(record.timestamp - lastTimestamp));
+        lastTimestamp = record.timestamp;
+        putVarLong(record.size);
+        double resolution = getResolution(record.technologyId);
+        for (int i = 0; i < record.size; i++) {
+            putVarLong(record.keyIds[i]);
+            putVarLong(zigZag(Math.round(record.strengths[i] / resolution)));
+        }
+    }
+
+    private void writeDefinitions(Record record) throws IOException {
+        synchronized (this) {
+            while (writtenTechnologyAmount < technologyNames.size()) {
+                byte[] name = technologyNames.get(writtenTechnologyAmount).getBytes(UTF_8);
+                ensureRemaining(1 + 5 + 8 + 5 + name.length);
+                buffer.put((byte) TECHNOLOGY_RECORD);
+                putVarLong(writtenTechnologyAmount);
+                buffer.putDouble(technologyResolutions.get(writtenTechnologyAmount));
+                putVarLong(name.length);
+                buffer.put(name);
+                writtenTechnologyAmount++;
+            }
+        }
+        for (int i = 0; i < record.size; i++) {
+            while (writtenKeyAmount <= record.keyIds[i]) {
+                byte[] key = keyDictionary.getKey(writtenKeyAmount).getBytes(UTF_8);
+                ensureRemaining(1 + 5 + 5 + key.length);
+                buffer.put((byte) KEY_RECORD);
+                putVarLong(writtenKeyAmount);
+                putVarLong(key.length);
+                buffer.put(key);
+                writtenKeyAmount++;
+            }
+        }
+    }
+
+    private synchronized double getResolution(int technologyId) {
+        return technologyResolutions.get(technologyId);
+    }
+
+    private void ensureRemaining(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            flush();
+        }
+        if (buffer.remaining() < length) {
+            throw new IOException("record of " + length + " bytes does not fit into the buffer");
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Queued signal data with interned keys
+     */
+    private static final class Record {
+        private final long timestamp;
+        private final int technologyId;
+        private final int[] keyIds;
+        private final double[] strengths;
+        private int size;
+
+        private Record(long timestamp, int technologyId, int capacity) {
+            this.timestamp = timestamp;
+            this.technologyId = technologyId;
+            this.keyIds = new int[capacity];
+            this.strengths = new double[capacity];
+        }
+
+        private void add(int keyId, double strength) {
+            keyIds[size] = keyId;
+            strengths[size] = strength;
+            size++;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import android.net.wifi.ScanResult;
 import android.net.wifi.WifiManager;
 import de.hadizadeh.positioning.controller.Technology;
 import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.Fingerprint;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
 
 import java.util.HashMap;
 import java.util.List;
@@ -14,7 +16,7 @@ import java.util.Map;
 /**
  * Wifi fingerprinting technology
  */
-public class WifiTechnology extends Technology {
+public class WifiTechnology extends Technology implements FingerprintTechnology {
     private WifiManager wifiManager;
 
     /**
@@ -44,4 +46,20 @@ public class WifiTechnology extends Technology {
         }
         return signalData;
     }
+
+    /**
+     * Writes the current wifi signal data into a fingerprint
+     *
+     * @param fingerprint   fingerprint which will be overwritten
+     * @param keyDictionary dictionary for interning the bssids
+     */
+    @Override
+    public void readFingerprint(Fingerprint fingerprint, SignalKeyDictionary keyDictionary) {
+        fingerprint.clear();
+        wifiManager.startScan();
+        List<ScanResult> scanResults = wifiManager.getScanResults();
+        for (final ScanResult scanResult : scanResults) {
+            fingerprint.add(keyDictionary.intern(scanResult.BSSID), scanResult.level);
+        }
+    }
 }
@@ -5,6 +5,7 @@ import de.hadizadeh.positioning.roommodel.android.BalanceCachingManager;
 import junit.framework.TestCase;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class BalanceCachingManagerTest extends TestCase {
@@ -31,4 +32,68 @@ public class BalanceCachingManagerTest extends TestCase {
         assertEquals(15.5, interpolatedData.get("c").getStrength());
         assertEquals(15.5, interpolatedData.get("d").getStrength());
     }
-}
\ No newline at end of file
+
+    public void testInterpolateSlidingWindow() throws Exception {
+        BalanceCachingManager slidingCachingManager = new BalanceCachingManager(3);
+        for (int i = 0; i < 10; i++) {
+            Map<String, SignalInformation> data = new HashMap<String, SignalInformation>();
+            data.put("a", new SignalInformation(i));
+            if (i < 5) {
+                data.put("b", new SignalInformation(-i));
+            }
+            slidingCachingManager.addData(data);
+            Map<String, SignalInformation> interpolatedData = slidingCachingManager.interpolateData();
+            int first = Math.max(0, i - 2);
+            assertEquals((first + i) / 2.0, interpolatedData.get("a").getStrength());
+            if (i < 7) {
+                assertEquals(-(first + Math.min(i, 4)) / 2.0, interpolatedData.get("b").getStrength());
+            } else {
+                assertFalse(interpolatedData.containsKey("b"));
+            }
+        }
+    }
+
+    public void testMaxKeys() throws Exception {
+        BalanceCachingManager boundedCachingManager = new BalanceCachingManager(5, 2);
+        for (int i = 0; i < 5; i++) {
+            Map<String, SignalInformation> data = new LinkedHashMap<String, SignalInformation>();
+            data.put("fixed", new SignalInformation(-50));
+            data.put("transient" + i, new SignalInformation(-90));
+            boundedCachingManager.addData(data);
+            boundedCachingManager.interpolateData();
+        }
+        Map<String, SignalInformation> interpolatedData = boundedCachingManager.interpolateData();
+        assertEquals(2, interpolatedData.size());
+        assertEquals(-50.0, interpolatedData.get("fixed").getStrength());
+        assertTrue(interpolatedData.containsKey("transient4"));
+        assertEquals(4, boundedCachingManager.getEvictedKeyAmount());
+    }
+
+    public void testMaxKeysEvictsLeastRecentlyReceivedKey() throws Exception {
+        BalanceCachingManager boundedCachingManager = new BalanceCachingManager(3, 2);
+        Map<String, SignalInformation> data = new LinkedHashMap<String, SignalInformation>();
+        data.put("live", new SignalInformation(-40));
+        data.put("old", new SignalInformation(-80));
+        boundedCachingManager.addData(data);
+        boundedCachingManager.interpolateData();
+        data = new LinkedHashMap<String, SignalInformation>();
+        data.put("old", new SignalInformation(-80));
+        boundedCachingManager.addData(data);
+        boundedCachingManager.interpolateData();
+        data = new LinkedHashMap<String, SignalInformation>();
+        data.put("live", new SignalInformation(-60));
+        boundedCachingManager.addData(data);
+        boundedCachingManager.interpolateData();
+
+        // the first signal data leave the window, old has been received before live and is evicted by the new key
+        data = new LinkedHashMap<String, SignalInformation>();
+        data.put("new", new SignalInformation(-70));
+        boundedCachingManager.addData(data);
+        Map<String, SignalInformation> interpolatedData = boundedCachingManager.interpolateData();
+        assertEquals(2, interpolatedData.size());
+        assertFalse(interpolatedData.containsKey("old"));
+        assertEquals(-60.0, interpolatedData.get("live").getStrength());
+        assertEquals(-70.0, interpolatedData.get("new").getStrength());
+        assertEquals(1, boundedCachingManager.getEvictedKeyAmount());
+    }
+}
@@ -0,0 +1,72 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.DecayCachingManager;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class DecayCachingManagerTest extends TestCase {
+
+    private long time;
+    private DecayCachingManager decayCachingManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        time = 0;
+        decayCachingManager = new DecayCachingManager(new SignalKeyDictionary(), 1000, 4000) {
+            @Override
+            protected long currentTime() {
+                return time;
+            }
+        };
+    }
+
+    public void testInterpolateData() throws Exception {
+        Map<String, SignalInformation> data = new HashMap<String, SignalInformation>();
+        data.put("a", new SignalInformation(-60));
+        data.put("b", new SignalInformation(-80));
+        decayCachingManager.addData(data);
+        assertEquals(-60.0, decayCachingManager.interpolateData().get("a").getStrength());
+
+        time = 1000;
+        data = new HashMap<String, SignalInformation>();
+        data.put("a", new SignalInformation(-40));
+        decayCachingManager.addData(data);
+        Map<String, SignalInformation> interpolatedData = decayCachingManager.interpolateData();
+        assertEquals(-50.0, interpolatedData.get("a").getStrength(), 0.0001);
+        assertEquals(-80.0, interpolatedData.get("b").getStrength(), 0.0001);
+
+        time = 3000;
+        data = new HashMap<String, SignalInformation>();
+        data.put("a", new SignalInformation(-90));
+        decayCachingManager.addData(data);
+        assertEquals(-80.0, decayCachingManager.interpolateData().get("a").getStrength(), 0.0001);
+
+        time = 4500;
+        interpolatedData = decayCachingManager.interpolateData();
+        assertTrue(interpolatedData.containsKey("a"));
+        assertFalse(interpolatedData.containsKey("b"));
+        assertEquals(1, decayCachingManager.getKeyAmount());
+    }
+
+    public void testSamplesWithinSameMillisecond() throws Exception {
+        addSample("a", -60);
+        addSample("a", -80);
+        assertEquals(-70.0, decayCachingManager.interpolateData().get("a").getStrength(), 0.0001);
+
+        time = 1000;
+        addSample("a", -40);
+        assertEquals(-55.0, decayCachingManager.interpolateData().get("a").getStrength(), 0.0001);
+        addSample("a", -60);
+        assertEquals(-60.0, decayCachingManager.interpolateData().get("a").getStrength(), 0.0001);
+    }
+
+    private void addSample(String key, double strength) {
+        Map<String, SignalInformation> data = new HashMap<String, SignalInformation>();
+        data.put(key, new SignalInformation(strength));
+        decayCachingManager.addData(data);
+    }
+}
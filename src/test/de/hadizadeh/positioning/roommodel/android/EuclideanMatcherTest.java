@@ -0,0 +1,173 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.EuclideanMatcher;
+import de.hadizadeh.positioning.roommodel.android.Fingerprint;
+import de.hadizadeh.positioning.roommodel.android.FingerprintIndex;
+import de.hadizadeh.positioning.roommodel.android.LshMatcher;
+import de.hadizadeh.positioning.roommodel.android.NearestPositions;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EuclideanMatcherTest extends TestCase {
+
+    private Random random;
+    private EuclideanMatcher euclideanMatcher;
+    private List<PositionInformation> persistedPositions;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        random = new Random(42);
+        euclideanMatcher = new EuclideanMatcher(new SignalKeyDictionary(), -100.0f, 5);
+        euclideanMatcher.setRebuildRatio(1000.0);
+        persistedPositions = new ArrayList<PositionInformation>();
+        for (int i = 0; i < 500; i++) {
+            persistedPositions.add(new PositionInformation(i + ".", createSignalData()));
+        }
+    }
+
+    public void testTree() throws Exception {
+        euclideanMatcher.prepare(persistedPositions);
+        for (int run = 0; run < 20; run++) {
+            assertNearest(createSignalData());
+        }
+        assertEquals(0, euclideanMatcher.getPendingAmount());
+    }
+
+    public void testPendingPositions() throws Exception {
+        assertNearest(createSignalData());
+        assertEquals(persistedPositions.size(), euclideanMatcher.getPendingAmount());
+
+        euclideanMatcher.prepare(persistedPositions);
+        persistedPositions.subList(0, 100).clear();
+        for (int i = 0; i < 20; i++) {
+            persistedPositions.add(new PositionInformation("new" + i + ".", createSignalData()));
+        }
+        for (int run = 0; run < 20; run++) {
+            assertNearest(createSignalData());
+        }
+        assertEquals(20, euclideanMatcher.getPendingAmount());
+    }
+
+    public void testCoalescedRebuilds() throws Exception {
+        final CountDownLatch firstBuild = new CountDownLatch(1);
+        final AtomicInteger buildAmount = new AtomicInteger();
+        euclideanMatcher = new EuclideanMatcher(new SignalKeyDictionary(), -100.0f, 5) {
+            @Override
+            protected FingerprintIndex createIndex(PositionInformation[] positions, Fingerprint[] fingerprints) {
+                if (buildAmount.incrementAndGet() == 1) {
+                    try {
+                        firstBuild.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.createIndex(positions, fingerprints);
+            }
+        };
+        assertNearest(createSignalData());
+        assertTrue(euclideanMatcher.isRebuilding());
+        for (int i = 0; i < 5; i++) {
+            persistedPositions.add(new PositionInformation("new" + i + ".", createSignalData()));
+            assertNearest(createSignalData());
+        }
+        firstBuild.countDown();
+        for (int wait = 0; wait < 1000 && euclideanMatcher.isRebuilding(); wait++) {
+            Thread.sleep(10);
+        }
+        assertFalse(euclideanMatcher.isRebuilding());
+        assertEquals(2, buildAmount.get());
+        assertNearest(createSignalData());
+        assertEquals(0, euclideanMatcher.getPendingAmount());
+    }
+
+    public void testNearestNeighbour() throws Exception {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        signalData.put("key0", new SignalInformation(-50));
+        List<PositionInformation> positions = new ArrayList<PositionInformation>();
+        positions.add(new PositionInformation("1.", signalData));
+        Map<PositionInformation, Double> results = euclideanMatcher.nearestNeighbour(new CachingManager(), createSignalData("key1", -60), positions, false);
+        assertEquals(1, results.size());
+        assertEquals(Math.sqrt(50 * 50 + 40 * 40), results.get(positions.get(0)), 1e-9);
+    }
+
+    public void testLsh() throws Exception {
+        LshMatcher lshMatcher = new LshMatcher(new SignalKeyDictionary(), -100.0f, 5, 8, 2, 120.0);
+        lshMatcher.prepare(persistedPositions);
+        euclideanMatcher.prepare(persistedPositions);
+        int found = 0;
+        for (int run = 0; run < 20; run++) {
+            Map<String, SignalInformation> fingerPrint = createSignalData();
+            NearestPositions exactPositions = euclideanMatcher.nearestNeighbours(new CachingManager(), fingerPrint, persistedPositions, 5);
+            NearestPositions approximatePositions = lshMatcher.nearestNeighbours(new CachingManager(), fingerPrint, persistedPositions, 5);
+            assertEquals(5, approximatePositions.size());
+            for (int i = 0; i < approximatePositions.size(); i++) {
+                assertEquals(distance(fingerPrint, approximatePositions.getPosition(i).getSignalInformation()), approximatePositions.getDistance(i), 1e-6);
+                assertTrue(approximatePositions.getDistance(i) >= exactPositions.getDistance(i) - 1e-6);
+                for (int k = 0; k < exactPositions.size(); k++) {
+                    if (exactPositions.getPosition(k) == approximatePositions.getPosition(i)) {
+                        found++;
+                    }
+                }
+            }
+        }
+        assertTrue(found >= 50);
+    }
+
+    private void assertNearest(Map<String, SignalInformation> fingerPrint) {
+        NearestPositions nearestPositions = euclideanMatcher.nearestNeighbours(new CachingManager(), fingerPrint, persistedPositions, 5);
+        List<Double> distances = new ArrayList<Double>();
+        for (PositionInformation position : persistedPositions) {
+            distances.add(distance(fingerPrint, position.getSignalInformation()));
+        }
+        Collections.sort(distances);
+        assertEquals(5, nearestPositions.size());
+        for (int i = 0; i < nearestPositions.size(); i++) {
+            assertEquals(distances.get(i), nearestPositions.getDistance(i), 1e-6);
+            assertEquals(distance(fingerPrint, nearestPositions.getPosition(i).getSignalInformation()), nearestPositions.getDistance(i), 1e-6);
+            assertTrue(persistedPositions.contains(nearestPositions.getPosition(i)));
+        }
+    }
+
+    private static double distance(Map<String, SignalInformation> first, Map<String, SignalInformation> second) {
+        double squaredDistance = 0.0;
+        for (int key = 0; key < 30; key++) {
+            double difference = strength(first, "key" + key) - strength(second, "key" + key);
+            squaredDistance += difference * difference;
+        }
+        return Math.sqrt(squaredDistance);
+    }
+
+    private static double strength(Map<String, SignalInformation> signalData, String key) {
+        SignalInformation signalInformation = signalData.get(key);
+        return signalInformation != null ? signalInformation.getStrength() : -100.0;
+    }
+
+    private Map<String, SignalInformation> createSignalData() {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        for (int key = 0; key < 30; key++) {
+            if (random.nextInt(3) == 0) {
+                signalData.put("key" + key, new SignalInformation(-40 - random.nextInt(50)));
+            }
+        }
+        return signalData;
+    }
+
+    private static Map<String, SignalInformation> createSignalData(String key, int strength) {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        signalData.put(key, new SignalInformation(strength));
+        return signalData;
+    }
+}
@@ -0,0 +1,73 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.Fingerprint;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class FingerprintTest extends TestCase {
+
+    private SignalKeyDictionary keyDictionary;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        keyDictionary = new SignalKeyDictionary();
+    }
+
+    public void testIntern() throws Exception {
+        assertEquals(0, keyDictionary.intern("A"));
+        assertEquals(1, keyDictionary.intern("B"));
+        assertEquals(0, keyDictionary.intern("A"));
+        assertEquals(-1, keyDictionary.getId("C"));
+        assertEquals("B", keyDictionary.getKey(1));
+        assertEquals(2, keyDictionary.size());
+    }
+
+    public void testSignalData() throws Exception {
+        keyDictionary.intern("C");
+        keyDictionary.intern("B");
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        signalData.put("A", new SignalInformation(-60));
+        signalData.put("B", new SignalInformation(-50));
+        signalData.put("C", new SignalInformation(-70));
+
+        Fingerprint fingerprint = Fingerprint.fromSignalData(signalData, keyDictionary);
+        assertEquals(3, fingerprint.size());
+        for (int i = 0; i < fingerprint.size(); i++) {
+            assertEquals(i, fingerprint.getKeyId(i));
+        }
+        assertEquals(-70.0f, fingerprint.getStrength(0));
+        assertEquals(-60.0f, fingerprint.getStrengthOfKey(keyDictionary.getId("A"), -100.0f));
+        assertEquals(-100.0f, fingerprint.getStrengthOfKey(keyDictionary.intern("D"), -100.0f));
+
+        Map<String, SignalInformation> convertedSignalData = fingerprint.toSignalData(keyDictionary);
+        assertEquals(3, convertedSignalData.size());
+        assertEquals(-50.0, convertedSignalData.get("B").getStrength());
+    }
+
+    public void testLiveSignalData() throws Exception {
+        keyDictionary.intern("B");
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        signalData.put("A", new SignalInformation(-60));
+        signalData.put("B", new SignalInformation(-50));
+        signalData.put("C", new SignalInformation(-70));
+
+        Fingerprint fingerprint = new Fingerprint();
+        fingerprint.setLiveSignalData(signalData, keyDictionary);
+        assertEquals(1, keyDictionary.size());
+        assertEquals(3, fingerprint.size());
+        assertTrue(fingerprint.getKeyId(0) < 0);
+        assertTrue(fingerprint.getKeyId(1) < 0);
+        assertEquals(-50.0f, fingerprint.getStrengthOfKey(0, -100.0f));
+
+        // unknown keys count as missing in persisted fingerprints, like newly interned keys
+        Fingerprint internedFingerprint = Fingerprint.fromSignalData(signalData, keyDictionary);
+        Fingerprint persistedFingerprint = new Fingerprint();
+        persistedFingerprint.add(0, -60.0f);
+        assertEquals(internedFingerprint.squaredDistance(persistedFingerprint, -100.0f), fingerprint.squaredDistance(persistedFingerprint, -100.0f));
+        assertEquals(1, fingerprint.toSignalData(keyDictionary).size());
+    }
+}
@@ -0,0 +1,120 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.controller.Matcher;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.EuclideanMatcher;
+import de.hadizadeh.positioning.roommodel.android.FloorMatcher;
+import de.hadizadeh.positioning.roommodel.android.OrderMatcher;
+import de.hadizadeh.positioning.roommodel.android.OrderRankIndex;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class FloorMatcherTest extends TestCase {
+
+    private Random random;
+    private FloorMatcher floorMatcher;
+    private List<PositionInformation> persistedPositions;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        random = new Random(42);
+        SignalKeyDictionary keyDictionary = new SignalKeyDictionary();
+        floorMatcher = new FloorMatcher(new EuclideanMatcher(keyDictionary, -100.0f, 100), 3, keyDictionary, -100.0f);
+        floorMatcher.setFloorMargin(1.0);
+        persistedPositions = new ArrayList<PositionInformation>();
+        for (int floor = 0; floor < 7; floor++) {
+            for (int i = 0; i < 20; i++) {
+                String name = floor + "_" + i;
+                persistedPositions.add(new PositionInformation(name, createSignalData(floor)));
+                floorMatcher.setFloor(name, floor);
+            }
+        }
+    }
+
+    public void testClassifyFloor() throws Exception {
+        for (int floor = 0; floor < 7; floor++) {
+            assertEquals(floor, floorMatcher.classifyFloor(createSignalData(floor), persistedPositions));
+        }
+    }
+
+    public void testNearestNeighbour() throws Exception {
+        persistedPositions.add(new PositionInformation("unknown", createSignalData(3)));
+        Map<PositionInformation, Double> results = floorMatcher.nearestNeighbour(new CachingManager(), createSignalData(5), persistedPositions, false);
+        assertEquals(21, results.size());
+        for (PositionInformation position : results.keySet()) {
+            assertTrue(position.getName().startsWith("5_") || position.getName().equals("unknown"));
+        }
+
+        floorMatcher.setMaxFloors(7);
+        floorMatcher.setFloorMargin(Double.MAX_VALUE);
+        results = floorMatcher.nearestNeighbour(new CachingManager(), createSignalData(5), persistedPositions, false);
+        assertEquals(100, results.size());
+    }
+
+    public void testMultipleFloorsDoNotRebuildIndex() throws Exception {
+        persistedPositions.add(new PositionInformation("unknown", createSignalData(3)));
+        SignalKeyDictionary keyDictionary = new SignalKeyDictionary();
+        OrderMatcher orderMatcher = new OrderMatcher(keyDictionary);
+        EuclideanMatcher euclideanMatcher = new EuclideanMatcher(keyDictionary, -100.0f, 200);
+        FloorMatcher orderFloorMatcher = createMultipleFloorMatcher(orderMatcher, keyDictionary);
+        FloorMatcher euclideanFloorMatcher = createMultipleFloorMatcher(euclideanMatcher, keyDictionary);
+        OrderRankIndex index = orderMatcher.prepare(persistedPositions);
+        euclideanMatcher.prepare(persistedPositions);
+        for (int run = 0; run < 2; run++) {
+            for (int floor = 0; floor < 7; floor++) {
+                Map<PositionInformation, Double> results = orderFloorMatcher.nearestNeighbour(new CachingManager(), createSignalData(floor), persistedPositions, false);
+                // two floors and the position with an unknown floor
+                assertEquals(41, results.size());
+                assertTrue(results.containsKey(persistedPositions.get(persistedPositions.size() - 1)));
+                for (PositionInformation position : results.keySet()) {
+                    assertTrue(position.getName().startsWith(floor + "_") || position.getName().equals("unknown")
+                            || Math.abs(Integer.parseInt(position.getName().split("_")[0]) - floor) == 1);
+                }
+                assertEquals(41, euclideanFloorMatcher.nearestNeighbour(new CachingManager(), createSignalData(floor), persistedPositions, false).size());
+                assertEquals(0, euclideanMatcher.getPendingAmount());
+                assertFalse(euclideanMatcher.isRebuilding());
+            }
+        }
+        assertSame(index, orderMatcher.prepare(persistedPositions));
+    }
+
+    public void testWithoutFloors() throws Exception {
+        FloorMatcher matcher = new FloorMatcher(new EuclideanMatcher(new SignalKeyDictionary(), -100.0f, 200), 3);
+        assertEquals(-1, matcher.classifyFloor(createSignalData(0), persistedPositions));
+        assertEquals(140, matcher.nearestNeighbour(new CachingManager(), createSignalData(0), persistedPositions, false).size());
+    }
+
+    private FloorMatcher createMultipleFloorMatcher(Matcher matcher, SignalKeyDictionary keyDictionary) {
+        FloorMatcher multipleFloorMatcher = new FloorMatcher(matcher, 3, keyDictionary, -100.0f);
+        multipleFloorMatcher.setFloorMargin(Double.MAX_VALUE);
+        for (PositionInformation position : persistedPositions) {
+            if (!position.getName().equals("unknown")) {
+                multipleFloorMatcher.setFloor(position.getName(), Integer.parseInt(position.getName().split("_")[0]));
+            }
+        }
+        return multipleFloorMatcher;
+    }
+
+    /**
+     * Every floor receives its own access points strongly and the ones of the neighbouring floors weakly
+     */
+    private Map<String, SignalInformation> createSignalData(int floor) {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        for (int key = 0; key < 5; key++) {
+            signalData.put("floor" + floor + "key" + key, new SignalInformation(-50 - random.nextInt(20)));
+            if (floor > 0) {
+                signalData.put("floor" + (floor - 1) + "key" + key, new SignalInformation(-80 - random.nextInt(10)));
+            }
+            signalData.put("floor" + (floor + 1) + "key" + key, new SignalInformation(-80 - random.nextInt(10)));
+        }
+        return signalData;
+    }
+}
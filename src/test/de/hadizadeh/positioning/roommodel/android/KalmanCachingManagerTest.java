@@ -0,0 +1,112 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.Fingerprint;
+import de.hadizadeh.positioning.roommodel.android.KalmanCachingManager;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class KalmanCachingManagerTest extends TestCase {
+
+    private long time;
+    private KalmanCachingManager kalmanCachingManager;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        time = 0;
+        kalmanCachingManager = new KalmanCachingManager(new SignalKeyDictionary(), 4.0, 4.0, 2000) {
+            @Override
+            protected long currentTime() {
+                return time;
+            }
+        };
+    }
+
+    public void testConvergence() throws Exception {
+        addSample("a", -50);
+        for (int i = 1; i <= 50; i++) {
+            time = i * 100;
+            addSample("a", -70);
+        }
+        assertEquals(-70.0, kalmanCachingManager.interpolateData().get("a").getStrength(), 0.01);
+    }
+
+    public void testFirstSample() throws Exception {
+        addSample("a", -60);
+        assertEquals(-60.0, kalmanCachingManager.interpolateData().get("a").getStrength());
+        // the variance of the first sample is the measurement noise, so a second sample at the same time is weighted equally
+        addSample("a", -80);
+        assertEquals(-70.0, kalmanCachingManager.interpolateData().get("a").getStrength(), 0.0001);
+    }
+
+    public void testProcessNoise() throws Exception {
+        addSample("a", -60);
+        time = 1000;
+        // predicted variance 4 + 4 * 1 s, gain 8 / 12
+        addSample("a", -80);
+        assertEquals(-73.3333, kalmanCachingManager.interpolateData().get("a").getStrength(), 0.0001);
+    }
+
+    public void testExpiry() throws Exception {
+        addSample("a", -60);
+        time = 1500;
+        addSample("b", -70);
+        time = 2500;
+        Map<String, SignalInformation> interpolatedData = kalmanCachingManager.interpolateData();
+        assertFalse(interpolatedData.containsKey("a"));
+        assertTrue(interpolatedData.containsKey("b"));
+        assertEquals(1, kalmanCachingManager.getKeyAmount());
+        assertEquals(1, kalmanCachingManager.getExpiredKeyAmount());
+    }
+
+    public void testSlotReuse() throws Exception {
+        final SignalKeyDictionary keyDictionary = new SignalKeyDictionary();
+        int knownKeyId = keyDictionary.intern("known");
+        final int[] capacity = new int[1];
+        kalmanCachingManager = new KalmanCachingManager(keyDictionary, 4.0, 4.0, 2000) {
+            @Override
+            protected long currentTime() {
+                return time;
+            }
+
+            @Override
+            protected void ensureCapacity(int newCapacity) {
+                super.ensureCapacity(newCapacity);
+                capacity[0] = newCapacity;
+            }
+        };
+        kalmanCachingManager.setMaxKeys(4);
+        for (int i = 0; i < 1000; i++) {
+            time = i;
+            addSample("known", -50);
+            addSample("live" + i, -60);
+        }
+        assertEquals(16, capacity[0]);
+        assertEquals(1, keyDictionary.size());
+        assertEquals(4, kalmanCachingManager.getKeyAmount());
+
+        Fingerprint fingerprint = new Fingerprint();
+        kalmanCachingManager.interpolateData(fingerprint);
+        assertEquals(4, fingerprint.size());
+        assertEquals(-50.0f, fingerprint.getStrengthOfKey(knownKeyId, -100.0f));
+        // live keys which are not interned get negative ids
+        assertTrue(fingerprint.getKeyId(2) < 0);
+
+        // an expired key gets a fresh state in a reused slot
+        time = 5000;
+        assertEquals(0, kalmanCachingManager.interpolateData().size());
+        addSample("known", -80);
+        assertEquals(1, kalmanCachingManager.interpolateData().size());
+        assertEquals(-80.0, kalmanCachingManager.interpolateData().get("known").getStrength());
+        assertEquals(16, capacity[0]);
+    }
+
+    private void addSample(String key, double strength) {
+        Map<String, SignalInformation> data = new HashMap<String, SignalInformation>();
+        data.put(key, new SignalInformation(strength));
+        kalmanCachingManager.addData(data);
+    }
+}
@@ -0,0 +1,119 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.Fingerprint;
+import de.hadizadeh.positioning.roommodel.android.LshIndex;
+import de.hadizadeh.positioning.roommodel.android.NearestPositions;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import junit.framework.TestCase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class LshIndexTest extends TestCase {
+    private static final int POSITION_AMOUNT = 1000;
+    private static final int KEY_AMOUNT = 20;
+    private static final double VENUE_LENGTH = 100.0;
+
+    private Random random;
+    private SignalKeyDictionary keyDictionary;
+    private double[] keyXs;
+    private double[] keyYs;
+    private PositionInformation[] positions;
+    private Fingerprint[] fingerprints;
+    private LshIndex lshIndex;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        random = new Random(42);
+        keyDictionary = new SignalKeyDictionary();
+        keyXs = new double[KEY_AMOUNT];
+        keyYs = new double[KEY_AMOUNT];
+        for (int key = 0; key < KEY_AMOUNT; key++) {
+            keyXs[key] = VENUE_LENGTH * random.nextDouble();
+            keyYs[key] = VENUE_LENGTH * random.nextDouble();
+        }
+        positions = new PositionInformation[POSITION_AMOUNT];
+        fingerprints = new Fingerprint[POSITION_AMOUNT];
+        for (int i = 0; i < POSITION_AMOUNT; i++) {
+            positions[i] = new PositionInformation(i + ".", createSignalData());
+            fingerprints[i] = Fingerprint.fromSignalData(positions[i].getSignalInformation(), keyDictionary);
+        }
+        lshIndex = new LshIndex(positions, fingerprints, -100.0f, 16, 4, 40.0, 42);
+    }
+
+    public void testRecall() throws Exception {
+        int found = 0;
+        int total = 0;
+        int calculations = 0;
+        for (int run = 0; run < 100; run++) {
+            Fingerprint fingerprint = Fingerprint.fromSignalData(createSignalData(), keyDictionary);
+            NearestPositions exactPositions = new NearestPositions(5);
+            for (int i = 0; i < POSITION_AMOUNT; i++) {
+                exactPositions.offer(positions[i], Math.sqrt(fingerprint.squaredDistance(fingerprints[i], -100.0f)));
+            }
+            exactPositions.sort();
+            NearestPositions nearestPositions = new NearestPositions(5);
+            calculations += lshIndex.search(fingerprint, nearestPositions, null, null);
+            nearestPositions.sort();
+            for (int k = 0; k < exactPositions.size(); k++) {
+                for (int j = 0; j < nearestPositions.size(); j++) {
+                    if (nearestPositions.getPosition(j) == exactPositions.getPosition(k)) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+            total += exactPositions.size();
+        }
+        assertTrue(found >= total * 0.9);
+        // the buckets contain less than half of the fingerprints on average
+        assertTrue(calculations < 100 * POSITION_AMOUNT / 2);
+    }
+
+    public void testIndexedFingerprintIsFound() throws Exception {
+        for (int i = 0; i < POSITION_AMOUNT; i += 100) {
+            NearestPositions nearestPositions = new NearestPositions(1);
+            lshIndex.search(fingerprints[i], nearestPositions, null, null);
+            assertSame(positions[i], nearestPositions.getPosition(0));
+            assertEquals(0.0, nearestPositions.getDistance(0), 0.0);
+        }
+        assertEquals(0, lshIndex.getProbedSearchAmount());
+    }
+
+    public void testProbingIsLimited() throws Exception {
+        Set<PositionInformation> noPositions = Collections.newSetFromMap(new IdentityHashMap<PositionInformation, Boolean>());
+        NearestPositions nearestPositions = new NearestPositions(5);
+        assertEquals(0, lshIndex.search(fingerprints[0], nearestPositions, noPositions, null));
+        assertEquals(0, nearestPositions.size());
+        assertEquals(1, lshIndex.getProbedSearchAmount());
+        assertEquals(1, lshIndex.getMissedSearchAmount());
+
+        // a candidate next to the live fingerprint is found in a neighbouring bucket or not at all
+        Set<PositionInformation> candidates = Collections.newSetFromMap(new IdentityHashMap<PositionInformation, Boolean>());
+        candidates.add(positions[1]);
+        nearestPositions = new NearestPositions(5);
+        int calculations = lshIndex.search(fingerprints[0], nearestPositions, candidates, null);
+        assertTrue(calculations <= 1);
+        assertEquals(calculations, nearestPositions.size());
+    }
+
+    private Map<String, SignalInformation> createSignalData() {
+        double x = VENUE_LENGTH * random.nextDouble();
+        double y = VENUE_LENGTH * random.nextDouble();
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        for (int key = 0; key < KEY_AMOUNT; key++) {
+            double distance = Math.hypot(keyXs[key] - x, keyYs[key] - y);
+            double strength = -40 - 25 * Math.log10(1 + distance) + 3 * random.nextGaussian();
+            if (strength > -95) {
+                signalData.put("key" + key, new SignalInformation(Math.round(strength)));
+            }
+        }
+        return signalData;
+    }
+}
@@ -3,14 +3,18 @@ package test.de.hadizadeh.positioning.roommodel.android;
 import de.hadizadeh.positioning.controller.CachingManager;
 import de.hadizadeh.positioning.model.PositionInformation;
 import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.NearestPositions;
 import de.hadizadeh.positioning.roommodel.android.OrderMatcher;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
 import junit.framework.TestCase;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -96,4 +100,86 @@ public class OrderMatcherTest extends TestCase {
             }
         }
     }
-}
\ No newline at end of file
+
+    public void testRankIndexRebuild() throws Exception {
+        CachingManager cachingManager = new CachingManager();
+        List<PositionInformation> persistedPositions = new ArrayList<PositionInformation>();
+
+        Map<String, SignalInformation> signalInformation = new HashMap<String, SignalInformation>();
+        signalInformation.put("A", new SignalInformation(-60));
+        signalInformation.put("B", new SignalInformation(-50));
+        persistedPositions.add(new PositionInformation("1.", signalInformation));
+
+        Map<String, SignalInformation> fingerPrint = new HashMap<String, SignalInformation>();
+        fingerPrint.put("A", new SignalInformation(-60));
+        fingerPrint.put("B", new SignalInformation(-50));
+        assertEquals(1, orderMatcher.nearestNeighbour(cachingManager, fingerPrint, persistedPositions, false).size());
+
+        signalInformation = new HashMap<String, SignalInformation>();
+        signalInformation.put("A", new SignalInformation(-50));
+        signalInformation.put("B", new SignalInformation(-60));
+        persistedPositions.add(new PositionInformation("2.", signalInformation));
+        Map<PositionInformation, Double> orderedFingerprints = orderMatcher.nearestNeighbour(cachingManager, fingerPrint, persistedPositions, false);
+        assertEquals(2, orderedFingerprints.size());
+        for (Map.Entry<PositionInformation, Double> orderedFingerprint : orderedFingerprints.entrySet()) {
+            if ("1.".equals(orderedFingerprint.getKey().getName())) {
+                assertEquals(0.0, orderedFingerprint.getValue());
+            } else {
+                assertEquals(2.0, orderedFingerprint.getValue());
+            }
+        }
+    }
+
+    public void testInvalidate() throws Exception {
+        CachingManager cachingManager = new CachingManager();
+        List<PositionInformation> persistedPositions = new ArrayList<PositionInformation>();
+        Map<String, SignalInformation> signalInformation = new HashMap<String, SignalInformation>();
+        signalInformation.put("A", new SignalInformation(-60));
+        signalInformation.put("B", new SignalInformation(-50));
+        persistedPositions.add(new PositionInformation("1.", signalInformation));
+
+        Map<String, SignalInformation> fingerPrint = new HashMap<String, SignalInformation>();
+        fingerPrint.put("A", new SignalInformation(-60));
+        fingerPrint.put("B", new SignalInformation(-50));
+        assertEquals(0.0, orderMatcher.nearestNeighbour(cachingManager, fingerPrint, persistedPositions, false).values().iterator().next());
+
+        signalInformation = new HashMap<String, SignalInformation>();
+        signalInformation.put("A", new SignalInformation(-50));
+        signalInformation.put("B", new SignalInformation(-60));
+        persistedPositions.set(0, new PositionInformation("1.", signalInformation));
+        orderMatcher.invalidate();
+        assertEquals(2.0, orderMatcher.nearestNeighbour(cachingManager, fingerPrint, persistedPositions, false).values().iterator().next());
+    }
+
+    public void testNearestNeighbours() throws Exception {
+        Random random = new Random(42);
+        List<PositionInformation> persistedPositions = new ArrayList<PositionInformation>();
+        for (int i = 0; i < 300; i++) {
+            persistedPositions.add(new PositionInformation(i + ".", createSignalData(random)));
+        }
+        for (OrderMatcher.OrderDistance orderDistance : OrderMatcher.OrderDistance.values()) {
+            OrderMatcher matcher = new OrderMatcher(new SignalKeyDictionary(), orderDistance);
+            Map<String, SignalInformation> fingerPrint = createSignalData(random);
+            Map<PositionInformation, Double> allResults = matcher.nearestNeighbour(new CachingManager(), fingerPrint, persistedPositions, false);
+            List<Double> allDistances = new ArrayList<Double>(allResults.values());
+            Collections.sort(allDistances);
+
+            NearestPositions nearestPositions = matcher.nearestNeighbours(new CachingManager(), fingerPrint, persistedPositions, 5);
+            assertEquals(5, nearestPositions.size());
+            for (int i = 0; i < nearestPositions.size(); i++) {
+                assertEquals(allDistances.get(i), nearestPositions.getDistance(i));
+                assertEquals(allResults.get(nearestPositions.getPosition(i)), nearestPositions.getDistance(i));
+            }
+        }
+    }
+
+    private static Map<String, SignalInformation> createSignalData(Random random) {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        for (int key = 0; key < 12; key++) {
+            if (random.nextInt(4) > 0) {
+                signalData.put("key" + key, new SignalInformation(-40 - random.nextInt(30)));
+            }
+        }
+        return signalData;
+    }
+}
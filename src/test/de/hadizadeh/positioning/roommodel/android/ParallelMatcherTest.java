@@ -0,0 +1,94 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.controller.Matcher;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.OrderMatcher;
+import de.hadizadeh.positioning.roommodel.android.ParallelMatcher;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelMatcherTest extends TestCase {
+
+    private ForkJoinPool pool;
+    private List<PositionInformation> persistedPositions;
+    private Map<String, SignalInformation> fingerPrint;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        pool = new ForkJoinPool(4);
+        Random random = new Random(42);
+        persistedPositions = new ArrayList<PositionInformation>();
+        for (int i = 0; i < 1000; i++) {
+            persistedPositions.add(new PositionInformation(i + ".", createSignalData(random)));
+        }
+        fingerPrint = createSignalData(random);
+    }
+
+    public void tearDown() throws Exception {
+        pool.shutdown();
+        super.tearDown();
+    }
+
+    public void testOrderMatcher() throws Exception {
+        for (OrderMatcher.OrderDistance orderDistance : OrderMatcher.OrderDistance.values()) {
+            OrderMatcher sequentialMatcher = new OrderMatcher(new SignalKeyDictionary(), orderDistance);
+            sequentialMatcher.setParallelThreshold(0);
+            OrderMatcher parallelMatcher = new OrderMatcher(new SignalKeyDictionary(), orderDistance);
+            parallelMatcher.setPool(pool);
+            parallelMatcher.setParallelThreshold(10);
+            assertEquals(sequentialMatcher.nearestNeighbour(new CachingManager(), fingerPrint, persistedPositions, false),
+                    parallelMatcher.nearestNeighbour(new CachingManager(), fingerPrint, persistedPositions, false));
+        }
+    }
+
+    public void testWrappedMatcher() throws Exception {
+        Matcher matcher = new DifferenceMatcher();
+        ParallelMatcher parallelMatcher = new ParallelMatcher(matcher, pool, 10);
+        Map<PositionInformation, Double> expected = matcher.nearestNeighbour(new CachingManager(), fingerPrint, persistedPositions, false);
+        Map<PositionInformation, Double> results = parallelMatcher.nearestNeighbour(new CachingManager(), fingerPrint, persistedPositions, false);
+        assertEquals(persistedPositions.size(), results.size());
+        assertEquals(expected, results);
+    }
+
+    private static Map<String, SignalInformation> createSignalData(Random random) {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        for (int key = 0; key < 20; key++) {
+            if (random.nextInt(4) > 0) {
+                signalData.put("key" + key, new SignalInformation(-40 - random.nextInt(50)));
+            }
+        }
+        return signalData;
+    }
+
+    /**
+     * Stateless matcher which sums the absolute strength differences of the common keys
+     */
+    private static class DifferenceMatcher extends Matcher {
+        @Override
+        public Map<PositionInformation, Double> nearestNeighbour(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, boolean ignoreDisabledAPs) {
+            cachingManager.addData(fingerPrint);
+            Map<String, SignalInformation> interpolatedFingerPrint = cachingManager.interpolateData();
+            Map<PositionInformation, Double> results = new HashMap<PositionInformation, Double>();
+            for (PositionInformation positionInformation : persistedPositions) {
+                double distance = 0.0;
+                for (Map.Entry<String, SignalInformation> signalElement : interpolatedFingerPrint.entrySet()) {
+                    SignalInformation persistedSignal = positionInformation.getSignalInformation().get(signalElement.getKey());
+                    if (persistedSignal != null) {
+                        distance += Math.abs(persistedSignal.getStrength() - signalElement.getValue().getStrength());
+                    }
+                }
+                results.put(positionInformation, distance);
+            }
+            return results;
+        }
+    }
+}
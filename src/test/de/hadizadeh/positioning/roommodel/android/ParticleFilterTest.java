@@ -0,0 +1,80 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.roommodel.android.EstimatedPosition;
+import de.hadizadeh.positioning.roommodel.android.ParticleFilter;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class ParticleFilterTest extends TestCase {
+
+    private static final int ROWS = 10;
+    private static final int COLUMNS = 20;
+
+    private ParticleFilter particleFilter;
+
+    /**
+     * Two rooms, separated by a wall in column 10 with a door in row 0
+     */
+    public void setUp() throws Exception {
+        super.setUp();
+        boolean[] walkable = new boolean[ROWS * COLUMNS];
+        Arrays.fill(walkable, true);
+        for (int row = 1; row < ROWS; row++) {
+            walkable[row * COLUMNS + 10] = false;
+        }
+        particleFilter = new ParticleFilter(ROWS, COLUMNS, walkable, 2000, new Random(42));
+    }
+
+    public void testWallsAreNotCrossed() throws Exception {
+        boolean[] walkable = new boolean[ROWS * COLUMNS];
+        Arrays.fill(walkable, true);
+        for (int row = 0; row < ROWS; row++) {
+            walkable[row * COLUMNS + 10] = false;
+        }
+        ParticleFilter closedFilter = new ParticleFilter(ROWS, COLUMNS, walkable, 2000, new Random(42));
+        closedFilter.reset(5.5f, 5.5f, 0.1f);
+        for (int cycle = 0; cycle < 50; cycle++) {
+            closedFilter.predict(1.0f, 0.3f);
+            for (int i = 0; i < closedFilter.getParticleAmount(); i++) {
+                assertTrue(closedFilter.isWalkable(closedFilter.getX(i), closedFilter.getY(i)));
+                assertTrue(closedFilter.getX(i) < 10.0f);
+            }
+        }
+    }
+
+    public void testTracking() throws Exception {
+        EstimatedPosition estimatedPosition = new EstimatedPosition();
+        float[] pointXs = new float[]{3.5f, 4.5f};
+        float[] pointYs = new float[]{6.5f, 6.5f};
+        double[] pointWeights = new double[]{1.0, 1.0};
+        for (int cycle = 0; cycle < 10; cycle++) {
+            particleFilter.predict(0.0f, 0.0f);
+            particleFilter.update(pointXs, pointYs, pointWeights, 2);
+        }
+        particleFilter.estimate(estimatedPosition, 0);
+        assertEquals(4.0f, estimatedPosition.getX(), 0.3f);
+        assertEquals(6.5f, estimatedPosition.getY(), 0.3f);
+        assertTrue(estimatedPosition.getRadius() < 1.5f);
+
+        // a measurement behind the wall is only reached through the door
+        pointXs[0] = 12.5f;
+        pointXs[1] = 12.5f;
+        particleFilter.predict(0.0f, 0.0f);
+        particleFilter.update(pointXs, pointYs, pointWeights, 2);
+        particleFilter.estimate(estimatedPosition, 0);
+        assertTrue(estimatedPosition.getX() < 10.0f);
+    }
+
+    public void testResample() throws Exception {
+        particleFilter.update(new float[]{2.5f}, new float[]{2.5f}, new double[]{1.0}, 1);
+        particleFilter.resample();
+        double weightSum = 0.0;
+        for (int i = 0; i < particleFilter.getParticleAmount(); i++) {
+            assertEquals(1.0 / particleFilter.getParticleAmount(), particleFilter.getWeight(i), 1e-12);
+            weightSum += particleFilter.getWeight(i);
+        }
+        assertEquals(1.0, weightSum, 1e-9);
+    }
+}
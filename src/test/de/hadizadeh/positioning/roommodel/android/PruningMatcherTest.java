@@ -0,0 +1,80 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.EuclideanMatcher;
+import de.hadizadeh.positioning.roommodel.android.OrderMatcher;
+import de.hadizadeh.positioning.roommodel.android.OrderRankIndex;
+import de.hadizadeh.positioning.roommodel.android.PruningMatcher;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyIndex;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PruningMatcherTest extends TestCase {
+
+    private SignalKeyDictionary keyDictionary;
+    private List<PositionInformation> persistedPositions;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        keyDictionary = new SignalKeyDictionary();
+        persistedPositions = new ArrayList<PositionInformation>();
+        for (int i = 0; i < 5; i++) {
+            persistedPositions.add(new PositionInformation(i + ".", createSignalData(i)));
+        }
+    }
+
+    public void testOrderIndexIsNotRebuilt() throws Exception {
+        OrderMatcher orderMatcher = new OrderMatcher(keyDictionary);
+        PruningMatcher pruningMatcher = new PruningMatcher(orderMatcher, new SignalKeyIndex(keyDictionary), 1, 1);
+        OrderRankIndex index = orderMatcher.prepare(persistedPositions);
+        for (int run = 0; run < 3; run++) {
+            for (int i = 0; i < persistedPositions.size(); i++) {
+                Map<PositionInformation, Double> results = pruningMatcher.nearestNeighbour(new CachingManager(), createSignalData(i), persistedPositions, false);
+                assertEquals(1, results.size());
+                assertTrue(results.containsKey(persistedPositions.get(i)));
+            }
+        }
+        assertSame(index, orderMatcher.prepare(persistedPositions));
+    }
+
+    public void testEuclideanIndexIsNotRebuilt() throws Exception {
+        EuclideanMatcher euclideanMatcher = new EuclideanMatcher(keyDictionary, -100.0f, 10);
+        PruningMatcher pruningMatcher = new PruningMatcher(euclideanMatcher, new SignalKeyIndex(keyDictionary), 1, 1);
+        euclideanMatcher.prepare(persistedPositions);
+        for (int run = 0; run < 3; run++) {
+            for (int i = 0; i < persistedPositions.size(); i++) {
+                Map<PositionInformation, Double> results = pruningMatcher.nearestNeighbour(new CachingManager(), createSignalData(i), persistedPositions, false);
+                assertEquals(1, results.size());
+                assertTrue(results.containsKey(persistedPositions.get(i)));
+                assertEquals(0, euclideanMatcher.getPendingAmount());
+                assertFalse(euclideanMatcher.isRebuilding());
+            }
+        }
+    }
+
+    public void testWithoutCandidates() throws Exception {
+        OrderMatcher orderMatcher = new OrderMatcher(keyDictionary);
+        PruningMatcher pruningMatcher = new PruningMatcher(orderMatcher, new SignalKeyIndex(keyDictionary), 1, 1);
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        signalData.put("unknown", new SignalInformation(-40));
+        signalData.put("shared", new SignalInformation(-80));
+        assertEquals(5, pruningMatcher.nearestNeighbour(new CachingManager(), signalData, persistedPositions, false).size());
+    }
+
+    /**
+     * Every position receives its own key strongly and a shared key weakly
+     */
+    private static Map<String, SignalInformation> createSignalData(int position) {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        signalData.put("key" + position, new SignalInformation(-40));
+        signalData.put("shared", new SignalInformation(-80));
+        return signalData;
+    }
+}
@@ -0,0 +1,105 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.roommodel.android.Fingerprint;
+import de.hadizadeh.positioning.roommodel.android.RankDistance;
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class RankDistanceTest extends TestCase {
+
+    private RankDistance rankDistance;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        rankDistance = new RankDistance();
+    }
+
+    public void testDistances() throws Exception {
+        Fingerprint live = new Fingerprint();
+        live.add(0, -60);
+        live.add(1, -50);
+        live.add(2, -70);
+        rankDistance.setLiveFingerprint(live);
+
+        Fingerprint persisted = new Fingerprint();
+        persisted.add(0, -61);
+        persisted.add(1, -49);
+        persisted.add(2, -80);
+        assertEquals(0.0, rankDistance.footrule(persisted));
+        assertEquals(0.0, rankDistance.kendallTau(persisted));
+
+        persisted.clear();
+        persisted.add(0, -50);
+        persisted.add(1, -70);
+        persisted.add(2, -60);
+        assertEquals(4.0, rankDistance.footrule(persisted));
+        assertEquals(2.0, rankDistance.kendallTau(persisted));
+
+        persisted.clear();
+        persisted.add(0, -60);
+        persisted.add(1, -60);
+        assertEquals(1.0, rankDistance.footrule(persisted));
+        assertEquals(0.5, rankDistance.kendallTau(persisted));
+    }
+
+    public void testBruteForce() throws Exception {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            int keyAmount = 1 + random.nextInt(30);
+            Fingerprint live = new Fingerprint();
+            Fingerprint persisted = new Fingerprint();
+            float[] liveStrengths = new float[keyAmount];
+            float[] persistedStrengths = new float[keyAmount];
+            for (int key = 0; key < keyAmount; key++) {
+                liveStrengths[key] = -40 - random.nextInt(10);
+                live.add(key, liveStrengths[key]);
+                persistedStrengths[key] = Float.NEGATIVE_INFINITY;
+                if (random.nextInt(5) > 0) {
+                    persistedStrengths[key] = -40 - random.nextInt(10);
+                    persisted.add(key, persistedStrengths[key]);
+                }
+            }
+            rankDistance.setLiveFingerprint(live);
+            assertEquals(bruteForceFootrule(liveStrengths, persistedStrengths), rankDistance.footrule(persisted), 1e-9);
+            assertEquals(bruteForceKendallTau(liveStrengths, persistedStrengths), rankDistance.kendallTau(persisted), 1e-9);
+        }
+    }
+
+    private static double bruteForceFootrule(float[] liveStrengths, float[] persistedStrengths) {
+        double distance = 0.0;
+        for (int i = 0; i < liveStrengths.length; i++) {
+            distance += Math.abs(averageRank(liveStrengths, i) - averageRank(persistedStrengths, i));
+        }
+        return distance;
+    }
+
+    private static double averageRank(float[] strengths, int index) {
+        int lower = 0;
+        int equal = 0;
+        for (float strength : strengths) {
+            if (strength < strengths[index]) {
+                lower++;
+            } else if (strength == strengths[index]) {
+                equal++;
+            }
+        }
+        return lower + (equal - 1) / 2.0;
+    }
+
+    private static double bruteForceKendallTau(float[] liveStrengths, float[] persistedStrengths) {
+        double distance = 0.0;
+        for (int i = 0; i < liveStrengths.length; i++) {
+            for (int j = i + 1; j < liveStrengths.length; j++) {
+                int liveOrder = Float.compare(liveStrengths[i], liveStrengths[j]);
+                int persistedOrder = Float.compare(persistedStrengths[i], persistedStrengths[j]);
+                if (liveOrder * persistedOrder < 0) {
+                    distance += 1.0;
+                } else if ((liveOrder == 0) != (persistedOrder == 0)) {
+                    distance += 0.5;
+                }
+            }
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,37 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.RobustCachingManager;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RobustCachingManagerTest extends TestCase {
+
+    private static final double[] SAMPLES = new double[]{-60, -61, -5, -62, -59, -120, -60};
+
+    public void testMedian() throws Exception {
+        RobustCachingManager robustCachingManager = new RobustCachingManager(new SignalKeyDictionary(), 5,
+                RobustCachingManager.Aggregation.MEDIAN, 0.0, 0);
+        addSamples(robustCachingManager);
+        // window: -5, -62, -59, -120, -60
+        assertEquals(-60.0, robustCachingManager.interpolateData().get("a").getStrength());
+    }
+
+    public void testTrimmedMean() throws Exception {
+        RobustCachingManager robustCachingManager = new RobustCachingManager(new SignalKeyDictionary(), 5,
+                RobustCachingManager.Aggregation.TRIMMED_MEAN, 0.2, 0);
+        addSamples(robustCachingManager);
+        assertEquals(-60.333, robustCachingManager.interpolateData().get("a").getStrength(), 0.001);
+    }
+
+    private void addSamples(RobustCachingManager robustCachingManager) {
+        for (double sample : SAMPLES) {
+            Map<String, SignalInformation> data = new HashMap<String, SignalInformation>();
+            data.put("a", new SignalInformation(sample));
+            robustCachingManager.addData(data);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyDictionary;
+import de.hadizadeh.positioning.roommodel.android.SignalKeyIndex;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SignalKeyIndexTest extends TestCase {
+
+    private SignalKeyIndex signalKeyIndex;
+    private List<PositionInformation> persistedPositions;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        signalKeyIndex = new SignalKeyIndex(new SignalKeyDictionary());
+        persistedPositions = new ArrayList<PositionInformation>();
+        persistedPositions.add(new PositionInformation("1.", createSignalData("A", -50, "B", -60, "C", -70)));
+        persistedPositions.add(new PositionInformation("2.", createSignalData("C", -50, "D", -60)));
+        persistedPositions.add(new PositionInformation("3.", createSignalData("E", -50, "F", -60)));
+    }
+
+    public void testFindCandidates() throws Exception {
+        signalKeyIndex.synchronize(persistedPositions);
+        assertEquals(3, signalKeyIndex.size());
+        assertEquals(2, signalKeyIndex.getPositionAmount("C"));
+
+        List<PositionInformation> candidates = new ArrayList<PositionInformation>();
+        Map<String, SignalInformation> liveSignalData = createSignalData("A", -80, "C", -40, "D", -45);
+        assertEquals(2, signalKeyIndex.findCandidates(liveSignalData, 2, 1, candidates));
+        assertSame(persistedPositions.get(0), candidates.get(0));
+        assertSame(persistedPositions.get(1), candidates.get(1));
+
+        assertEquals(1, signalKeyIndex.findCandidates(liveSignalData, 2, 2, candidates));
+        assertSame(persistedPositions.get(1), candidates.get(0));
+
+        assertEquals(0, signalKeyIndex.findCandidates(createSignalData("X", -40, "Y", -50), 2, 1, candidates));
+    }
+
+    public void testSynchronize() throws Exception {
+        signalKeyIndex.synchronize(persistedPositions);
+        List<PositionInformation> candidates = new ArrayList<PositionInformation>();
+        Map<String, SignalInformation> liveSignalData = createSignalData("C", -40, "E", -50);
+
+        persistedPositions.remove(1);
+        persistedPositions.add(new PositionInformation("4.", createSignalData("E", -40)));
+        // the list and its size have not changed, so the replacement is only detected after an invalidation
+        signalKeyIndex.synchronize(persistedPositions);
+        assertEquals(2, signalKeyIndex.getPositionAmount("C"));
+        signalKeyIndex.invalidate();
+        signalKeyIndex.synchronize(persistedPositions);
+        assertEquals(3, signalKeyIndex.size());
+        assertEquals(1, signalKeyIndex.getPositionAmount("C"));
+        assertEquals(3, signalKeyIndex.findCandidates(liveSignalData, 2, 1, candidates));
+
+        assertTrue(signalKeyIndex.remove(persistedPositions.get(0)));
+        assertFalse(signalKeyIndex.remove(persistedPositions.get(0)));
+        assertEquals(2, signalKeyIndex.findCandidates(liveSignalData, 2, 1, candidates));
+        for (PositionInformation candidate : candidates) {
+            assertNotSame(persistedPositions.get(0), candidate);
+        }
+    }
+
+    private static Map<String, SignalInformation> createSignalData(Object... keysAndStrengths) {
+        Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+        for (int i = 0; i < keysAndStrengths.length; i += 2) {
+            signalData.put((String) keysAndStrengths[i], new SignalInformation((Integer) keysAndStrengths[i + 1]));
+        }
+        return signalData;
+    }
+}
@@ -0,0 +1,82 @@
+package test.de.hadizadeh.positioning.roommodel.android;
+
+import de.hadizadeh.positioning.model.MappingPoint;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.EstimatedPosition;
+import de.hadizadeh.positioning.roommodel.android.WeightedPositionEstimator;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class WeightedPositionEstimatorTest extends TestCase {
+
+    private WeightedPositionEstimator estimator;
+    private Map<String, PositionInformation> positions;
+    private EstimatedPosition estimatedPosition;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        List<MappingPoint> mappingPoints = new ArrayList<MappingPoint>();
+        positions = new HashMap<String, PositionInformation>();
+        mappingPoints.add(new MappingPoint(0, 0, 0));
+        mappingPoints.add(new MappingPoint(2, 0, 0));
+        mappingPoints.add(new MappingPoint(0, 2, 0));
+        mappingPoints.add(new MappingPoint(2, 2, 3));
+        for (MappingPoint mappingPoint : mappingPoints) {
+            String name = positionName(mappingPoint);
+            positions.put(name, new PositionInformation(name, new HashMap<String, SignalInformation>()));
+        }
+        estimator = new WeightedPositionEstimator(mappingPoints, 3, 1.0) {
+            @Override
+            protected String getPositionName(MappingPoint mappingPoint) {
+                return positionName(mappingPoint);
+            }
+        };
+        estimatedPosition = new EstimatedPosition();
+    }
+
+    public void testEstimate() throws Exception {
+        Map<PositionInformation, Double> matchedPositions = new HashMap<PositionInformation, Double>();
+        matchedPositions.put(positions.get("0_0_0"), 1.0);
+        matchedPositions.put(positions.get("2_0_0"), 1.0);
+        assertTrue(estimator.estimate(matchedPositions, estimatedPosition));
+        assertEquals(1.5f, estimatedPosition.getX(), 1e-6f);
+        assertEquals(0.5f, estimatedPosition.getY(), 1e-6f);
+        assertEquals(0, estimatedPosition.getZ());
+        assertEquals(1.0f, estimatedPosition.getRadius(), 1e-6f);
+
+        matchedPositions.put(positions.get("0_2_0"), 2.0);
+        assertTrue(estimator.estimate(matchedPositions, estimatedPosition));
+        assertEquals((0.5f + 2.5f + 0.25f) / 2.5f, estimatedPosition.getX(), 1e-6f);
+        assertEquals((0.5f + 0.5f + 1.25f) / 2.5f, estimatedPosition.getY(), 1e-6f);
+    }
+
+    public void testOtherFloorAndExactMatch() throws Exception {
+        Map<PositionInformation, Double> matchedPositions = new HashMap<PositionInformation, Double>();
+        matchedPositions.put(positions.get("2_2_3"), 1.0);
+        matchedPositions.put(positions.get("0_0_0"), 2.0);
+        assertTrue(estimator.estimate(matchedPositions, estimatedPosition));
+        assertEquals(2.5f, estimatedPosition.getX(), 1e-6f);
+        assertEquals(2.5f, estimatedPosition.getY(), 1e-6f);
+        assertEquals(3, estimatedPosition.getZ());
+        assertEquals(0.0f, estimatedPosition.getRadius(), 1e-6f);
+
+        matchedPositions.put(positions.get("2_0_0"), 0.0);
+        assertTrue(estimator.estimate(matchedPositions, estimatedPosition));
+        assertEquals(2.5f, estimatedPosition.getX(), 1e-6f);
+        assertEquals(0.5f, estimatedPosition.getY(), 1e-6f);
+        assertEquals(0.0f, estimatedPosition.getRadius(), 1e-6f);
+
+        matchedPositions.clear();
+        matchedPositions.put(new PositionInformation("unknown", new HashMap<String, SignalInformation>()), 1.0);
+        assertFalse(estimator.estimate(matchedPositions, estimatedPosition));
+    }
+
+    private static String positionName(MappingPoint mappingPoint) {
+        return mappingPoint.getX() + "_" + mappingPoint.getY() + "_" + mappingPoint.getZ();
+    }
+}
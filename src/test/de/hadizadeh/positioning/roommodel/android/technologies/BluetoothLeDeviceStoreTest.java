@@ -0,0 +1,214 @@
+package test.de.hadizadeh.positioning.roommodel.android.technologies;
+
+import de.hadizadeh.positioning.roommodel.android.technologies.BluetoothLeDevice;
+import de.hadizadeh.positioning.roommodel.android.technologies.BluetoothLeDeviceStore;
+import de.hadizadeh.positioning.roommodel.android.technologies.RssiReducer;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BluetoothLeDeviceStoreTest extends TestCase {
+
+    private BluetoothLeDeviceStore bluetoothLeDeviceStore;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        bluetoothLeDeviceStore = new BluetoothLeDeviceStore();
+    }
+
+    public void testPut() throws Exception {
+        bluetoothLeDeviceStore.put(createDevice(1, 1, -60, 100));
+        bluetoothLeDeviceStore.put(createDevice(1, 2, -70, 200));
+        bluetoothLeDeviceStore.put(createDevice(1, 1, -65, 300));
+        assertEquals(2, bluetoothLeDeviceStore.size());
+        BluetoothLeDevice device = new BluetoothLeDevice();
+        assertTrue(bluetoothLeDeviceStore.get(id(1, 1), device));
+        assertEquals(-65, device.getRssi());
+
+        bluetoothLeDeviceStore.setMaxSize(2);
+        bluetoothLeDeviceStore.put(createDevice(1, 3, -80, 400));
+        assertFalse(bluetoothLeDeviceStore.get(id(1, 2), device));
+        assertEquals(2, bluetoothLeDeviceStore.size());
+        assertEquals(1, bluetoothLeDeviceStore.getEvictedAmount());
+
+        assertTrue(bluetoothLeDeviceStore.remove(id(1, 1)));
+        List<BluetoothLeDevice> devices = new ArrayList<BluetoothLeDevice>();
+        assertEquals(1, bluetoothLeDeviceStore.copyDevices(devices));
+        assertEquals(3, devices.get(0).getMinor());
+    }
+
+    public void testConcurrentAccess() throws Exception {
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 100000; i++) {
+                        int minor = i % 50;
+                        bluetoothLeDeviceStore.put(createDevice(1, minor, -60, i));
+                    }
+                } catch (Throwable throwable) {
+                    error.set(throwable);
+                }
+            }
+        });
+        writer.start();
+        List<BluetoothLeDevice> devices = new ArrayList<BluetoothLeDevice>();
+        while (writer.isAlive()) {
+            bluetoothLeDeviceStore.copyDevices(devices);
+            for (BluetoothLeDevice device : devices) {
+                assertNotNull(device);
+                assertEquals(1, device.getMajor());
+                assertEquals(device.getTimeStamp() % 50, device.getMinor());
+            }
+        }
+        writer.join();
+        assertNull(error.get());
+        assertEquals(50, bluetoothLeDeviceStore.size());
+    }
+
+    public void testReuseRecords() throws Exception {
+        BluetoothLeDevice sample = new BluetoothLeDevice();
+        byte[] scanRecord = new byte[] {2, 1, 6, 26, -1, 76, 0, 2, 21, 73, 110, 100, 46, 80, 111, 115, 105, 116, 105, 111, 110, 105, 110, 103, 32, 0, 1, 0, 12, -73, 11, 9, 112, 66, 101, 97, 99, 111, 110, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        sample.update(null, scanRecord, -60);
+        bluetoothLeDeviceStore.put(sample);
+        sample.update(null, scanRecord, -70);
+        bluetoothLeDeviceStore.put(sample);
+        scanRecord[12] = 0;
+        sample.update(null, scanRecord, -80);
+        bluetoothLeDeviceStore.put(sample);
+        assertEquals(2, bluetoothLeDeviceStore.size());
+
+        List<BluetoothLeDevice> devices = new ArrayList<BluetoothLeDevice>();
+        bluetoothLeDeviceStore.copyDevices(devices);
+        BluetoothLeDevice firstDevice = devices.get(0);
+        String identificator = firstDevice.getIdentificator();
+        assertEquals("1|12", identificator);
+        assertEquals(-70, firstDevice.getRssi());
+        assertEquals(-80, devices.get(1).getRssi());
+        assertEquals("Ind.Positioning", firstDevice.getUuidText());
+        assertEquals("Ind\u0000Positioning", devices.get(1).getUuidText());
+
+        bluetoothLeDeviceStore.copyDevices(devices);
+        assertSame(firstDevice, devices.get(0));
+        assertSame(identificator, devices.get(0).getIdentificator());
+
+        assertTrue(bluetoothLeDeviceStore.remove(sample.getPackedId()));
+        assertEquals(1, bluetoothLeDeviceStore.copyDevices(devices));
+        assertEquals(1, devices.size());
+        bluetoothLeDeviceStore.put(createDevice(2, 5, -50, 100));
+        assertEquals(2, bluetoothLeDeviceStore.copyDevices(devices));
+        assertEquals("2|5", devices.get(1).getIdentificator());
+    }
+
+    public void testAggregateSamples() throws Exception {
+        bluetoothLeDeviceStore = new BluetoothLeDeviceStore(1, 4);
+        int[] rssis = {-90, -60, -70, -80, -62, -75};
+        for (int i = 0; i < rssis.length; i++) {
+            bluetoothLeDeviceStore.put(createDevice(1, 1, rssis[i], 100 * i));
+        }
+        bluetoothLeDeviceStore.put(createDevice(1, 2, -50, 0));
+        List<BluetoothLeDevice> devices = new ArrayList<BluetoothLeDevice>();
+
+        // only the latest 4 samples are kept
+        assertEquals(2, bluetoothLeDeviceStore.copyDevices(devices, 0, RssiReducer.MEAN));
+        assertEquals(-71.75, devices.get(0).getAggregatedRssi(), 0.0);
+        assertEquals(-75, devices.get(0).getRssi());
+        assertEquals(-50.0, devices.get(1).getAggregatedRssi(), 0.0);
+
+        assertEquals(1, bluetoothLeDeviceStore.copyDevices(devices, 300, RssiReducer.MEDIAN));
+        assertEquals(-75.0, devices.get(0).getAggregatedRssi(), 0.0);
+        assertEquals(1, bluetoothLeDeviceStore.copyDevices(devices, 300, RssiReducer.MAX));
+        assertEquals(-62.0, devices.get(0).getAggregatedRssi(), 0.0);
+        assertEquals(1, bluetoothLeDeviceStore.copyDevices(devices, 400, RssiReducer.MEDIAN));
+        assertEquals(-68.5, devices.get(0).getAggregatedRssi(), 0.0);
+        assertEquals(1, bluetoothLeDeviceStore.copyDevices(devices, 500, RssiReducer.LATEST));
+        assertEquals(-75.0, devices.get(0).getAggregatedRssi(), 0.0);
+        assertEquals(0, bluetoothLeDeviceStore.copyDevices(devices, 600, RssiReducer.MEAN));
+        assertTrue(devices.isEmpty());
+    }
+
+    public void testAggregateBackdatedSamples() throws Exception {
+        bluetoothLeDeviceStore = new BluetoothLeDeviceStore(1, 4);
+        bluetoothLeDeviceStore.put(createDevice(1, 1, -60, 500));
+        bluetoothLeDeviceStore.put(createDevice(1, 1, -90, 0));
+        bluetoothLeDeviceStore.put(createDevice(1, 1, -70, 400));
+        List<BluetoothLeDevice> devices = new ArrayList<BluetoothLeDevice>();
+
+        assertEquals(1, bluetoothLeDeviceStore.copyDevices(devices, 300, RssiReducer.MEAN));
+        assertEquals(-65.0, devices.get(0).getAggregatedRssi(), 0.0);
+        assertEquals(-60, devices.get(0).getRssi());
+        assertEquals(500, devices.get(0).getTimeStamp());
+        assertEquals(1, bluetoothLeDeviceStore.copyDevices(devices, 0, RssiReducer.LATEST));
+        assertEquals(-60.0, devices.get(0).getAggregatedRssi(), 0.0);
+
+        // the oldest samples are replaced, samples older than all kept samples are ignored
+        bluetoothLeDeviceStore.put(createDevice(1, 1, -80, 100));
+        bluetoothLeDeviceStore.put(createDevice(1, 1, -50, 200));
+        bluetoothLeDeviceStore.put(createDevice(1, 1, -40, 50));
+        assertEquals(1, bluetoothLeDeviceStore.copyDevices(devices, 0, RssiReducer.MEAN));
+        assertEquals(-65.0, devices.get(0).getAggregatedRssi(), 0.0);
+        assertEquals(1, bluetoothLeDeviceStore.copyDevices(devices, 150, RssiReducer.MEDIAN));
+        assertEquals(-60.0, devices.get(0).getAggregatedRssi(), 0.0);
+        assertEquals(500, devices.get(0).getTimeStamp());
+    }
+
+    public void testExpire() throws Exception {
+        bluetoothLeDeviceStore.setValidityTime(1000);
+        bluetoothLeDeviceStore.put(createDevice(1, 1, -60, 10000));
+        bluetoothLeDeviceStore.put(createDevice(1, 2, -60, 10500));
+        assertEquals(0, bluetoothLeDeviceStore.expire(10900));
+        bluetoothLeDeviceStore.put(createDevice(1, 1, -60, 10900));
+        assertEquals(0, bluetoothLeDeviceStore.expire(11400));
+        assertEquals(1, bluetoothLeDeviceStore.expire(11600));
+        BluetoothLeDevice device = new BluetoothLeDevice();
+        assertFalse(bluetoothLeDeviceStore.get(id(1, 2), device));
+        assertTrue(bluetoothLeDeviceStore.get(id(1, 1), device));
+
+        // a gap longer than the wheel visits every slot once
+        bluetoothLeDeviceStore.put(createDevice(1, 3, -60, 11600));
+        assertEquals(2, bluetoothLeDeviceStore.expire(100000));
+        assertEquals(0, bluetoothLeDeviceStore.size());
+        assertEquals(3, bluetoothLeDeviceStore.getExpiredAmount());
+        bluetoothLeDeviceStore.put(createDevice(1, 4, -60, 100000));
+        assertEquals(1, bluetoothLeDeviceStore.size());
+    }
+
+    public void testExpireRandomly() throws Exception {
+        Random random = new Random(42);
+        long validityTime = 700;
+        bluetoothLeDeviceStore.setValidityTime(validityTime);
+        long[] lastReceived = new long[40];
+        Arrays.fill(lastReceived, -1);
+        long time = 5000;
+        BluetoothLeDevice device = new BluetoothLeDevice();
+        for (int step = 0; step < 20000; step++) {
+            time += random.nextInt(random.nextInt(50) == 0 ? 5000 : 40);
+            if (random.nextInt(4) == 0) {
+                bluetoothLeDeviceStore.expire(time);
+                for (int minor = 0; minor < lastReceived.length; minor++) {
+                    if (lastReceived[minor] >= 0 && lastReceived[minor] + validityTime < time) {
+                        lastReceived[minor] = -1;
+                    }
+                    assertEquals(lastReceived[minor] >= 0, bluetoothLeDeviceStore.get(id(1, minor), device));
+                }
+            } else {
+                int minor = random.nextInt(lastReceived.length);
+                bluetoothLeDeviceStore.put(createDevice(1, minor, -60, time));
+                lastReceived[minor] = time;
+            }
+        }
+    }
+
+    private static long id(int major, int minor) {
+        return BluetoothLeDevice.packId(major, minor, 0, 0);
+    }
+
+    private static BluetoothLeDevice createDevice(int major, int minor, int rssi, long timeStamp) {
+        return new BluetoothLeDevice(null, null, "4c00", null, rssi, major, minor, -59, timeStamp);
+    }
+}
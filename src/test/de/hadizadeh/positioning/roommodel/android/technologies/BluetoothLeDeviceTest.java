@@ -1,6 +1,7 @@
 package test.de.hadizadeh.positioning.roommodel.android.technologies;
 
 import android.bluetooth.BluetoothDevice;
+import android.os.SystemClock;
 import de.hadizadeh.positioning.roommodel.android.technologies.BluetoothLeDevice;
 import junit.framework.TestCase;
 
@@ -27,7 +28,7 @@ public class BluetoothLeDeviceTest extends TestCase {
     }
 
     public void testGetTimeStamp() throws Exception {
-        assertTrue(bluetoothLeDevice.getTimeStamp() < System.currentTimeMillis() + 1000 && bluetoothLeDevice.getTimeStamp() > System.currentTimeMillis() - 1000);
+        assertTrue(bluetoothLeDevice.getTimeStamp() < SystemClock.elapsedRealtime() + 1000 && bluetoothLeDevice.getTimeStamp() > SystemClock.elapsedRealtime() - 1000);
     }
 
     public void testGetMajor() throws Exception {
@@ -61,4 +62,20 @@ public class BluetoothLeDeviceTest extends TestCase {
     public void testGetUuidText() throws Exception {
         assertEquals("Ind.Positioning", bluetoothLeDevice.getUuidText());
     }
-}
\ No newline at end of file
+
+    public void testGetCompanyIdValue() throws Exception {
+        assertEquals(BluetoothLeDevice.APPLE_COMPANY_ID, bluetoothLeDevice.getCompanyIdValue());
+    }
+
+    public void testGetUuidBits() throws Exception {
+        assertEquals(0x496e642e506f7369L, bluetoothLeDevice.getUuidMostSignificantBits());
+        assertEquals(0x74696f6e696e6720L, bluetoothLeDevice.getUuidLeastSignificantBits());
+    }
+
+    public void testSetUuid() throws Exception {
+        bluetoothLeDevice.setUuid("f7826da64fa24e988024bc5b71e0893e");
+        assertEquals(0xf7826da64fa24e98L, bluetoothLeDevice.getUuidMostSignificantBits());
+        assertEquals(0x8024bc5b71e0893eL, bluetoothLeDevice.getUuidLeastSignificantBits());
+        assertEquals("f7826da64fa24e988024bc5b71e0893e", bluetoothLeDevice.getUuid());
+    }
+}
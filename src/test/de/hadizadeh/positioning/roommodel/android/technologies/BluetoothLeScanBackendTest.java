@@ -0,0 +1,119 @@
+package test.de.hadizadeh.positioning.roommodel.android.technologies;
+
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.technologies.BluetoothLeDevice;
+import de.hadizadeh.positioning.roommodel.android.technologies.BluetoothLeScanBackend;
+import de.hadizadeh.positioning.roommodel.android.technologies.BluetoothLeStrengthTechnology;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class BluetoothLeScanBackendTest extends TestCase {
+    private static final long VALIDITY_TIME = 10000;
+
+    private FakeBluetoothLeScanBackend scanBackend;
+    private BluetoothLeStrengthTechnology bluetoothLeStrengthTechnology;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        scanBackend = new FakeBluetoothLeScanBackend();
+        bluetoothLeStrengthTechnology = new BluetoothLeStrengthTechnology("BLUETOOTH_LE", VALIDITY_TIME, null, scanBackend);
+    }
+
+    public void testStartStop() throws Exception {
+        bluetoothLeStrengthTechnology.startScanning();
+        assertSame(bluetoothLeStrengthTechnology, scanBackend.listener);
+        bluetoothLeStrengthTechnology.flushScanResults();
+        assertEquals(1, scanBackend.flushAmount);
+        bluetoothLeStrengthTechnology.stopScanning();
+        assertNull(scanBackend.listener);
+    }
+
+    public void testBatch() throws Exception {
+        bluetoothLeStrengthTechnology.startScanning();
+        byte[] otherCompany = createScanRecord(1, 14);
+        otherCompany[5] = 0x59;
+        byte[] shortRecord = new byte[20];
+        System.arraycopy(createScanRecord(1, 15), 0, shortRecord, 0, shortRecord.length);
+
+        scanBackend.add(createScanRecord(1, 12), -60, 0);
+        scanBackend.add(createScanRecord(1, 12), -70, 500);
+        scanBackend.add(createScanRecord(1, 13), -90, 0);
+        scanBackend.add(otherCompany, -60, 0);
+        scanBackend.add(shortRecord, -60, 0);
+        scanBackend.add(createScanRecord(1, 16), -60, 2 * VALIDITY_TIME);
+        scanBackend.deliver();
+
+        Map<String, SignalInformation> signalData = bluetoothLeStrengthTechnology.getSignalData();
+        assertEquals(1, signalData.size());
+        assertEquals(-65.0, signalData.get(identificator(1, 12)).getStrength(), 0.001);
+    }
+
+    public void testAge() throws Exception {
+        bluetoothLeStrengthTechnology.startScanning();
+        scanBackend.add(createScanRecord(1, 12), -60, VALIDITY_TIME / 2);
+        scanBackend.add(createScanRecord(1, 13), -60, VALIDITY_TIME + 1000);
+        scanBackend.deliver();
+
+        Map<String, SignalInformation> signalData = bluetoothLeStrengthTechnology.getSignalData();
+        assertEquals(1, signalData.size());
+        assertTrue(signalData.containsKey(identificator(1, 12)));
+    }
+
+    private static String identificator(int major, int minor) {
+        return new BluetoothLeDevice(null, createScanRecord(major, minor), -60).getIdentificator();
+    }
+
+    private static byte[] createScanRecord(int major, int minor) {
+        byte[] scanRecord = new byte[] {2, 1, 6, 26, -1, 76, 0, 2, 21, 73, 110, 100, 46, 80, 111, 115, 105, 116, 105, 111, 110, 105, 110, 103, 32, 0, 1, 0, 12, -73, 11, 9, 112, 66, 101, 97, 99, 111, 110, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        scanRecord[25] = (byte) (major >> 8);
+        scanRecord[26] = (byte) major;
+        scanRecord[27] = (byte) (minor >> 8);
+        scanRecord[28] = (byte) minor;
+        return scanRecord;
+    }
+
+    /**
+     * Backend which delivers the added advertisements as one batch, like the batched btle scanner after its report delay
+     */
+    private static class FakeBluetoothLeScanBackend implements BluetoothLeScanBackend {
+        private Listener listener;
+        private int flushAmount;
+        private List<byte[]> scanRecords = new ArrayList<byte[]>();
+        private List<Integer> rssis = new ArrayList<Integer>();
+        private List<Long> ages = new ArrayList<Long>();
+
+        @Override
+        public void start(Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void stop() {
+            listener = null;
+        }
+
+        @Override
+        public void flush() {
+            flushAmount++;
+            deliver();
+        }
+
+        private void add(byte[] scanRecord, int rssi, long age) {
+            scanRecords.add(scanRecord);
+            rssis.add(rssi);
+            ages.add(age);
+        }
+
+        private void deliver() {
+            for (int i = 0; i < scanRecords.size(); i++) {
+                listener.onAdvertisement(null, scanRecords.get(i), rssis.get(i), ages.get(i));
+            }
+            scanRecords.clear();
+            rssis.clear();
+            ages.clear();
+        }
+    }
+}
@@ -17,5 +17,7 @@ public class BluetoothLeTechnologyTest extends TestCase {
 
     public void testMajorMinorToNumber() throws Exception {
         assertEquals(74, BluetoothLeTechnology.majorMinorToNumber(1, 10));
+        assertEquals(228, BluetoothLeTechnology.majorMinorToNumber(1, 100));
+        assertEquals(5, BluetoothLeTechnology.majorMinorToNumber(0, 5));
     }
 }
\ No newline at end of file
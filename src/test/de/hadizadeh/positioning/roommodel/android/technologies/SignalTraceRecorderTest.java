@@ -0,0 +1,208 @@
+package test.de.hadizadeh.positioning.roommodel.android.technologies;
+
+import de.hadizadeh.positioning.controller.CachingManager;
+import de.hadizadeh.positioning.controller.Matcher;
+import de.hadizadeh.positioning.controller.Technology;
+import de.hadizadeh.positioning.model.PositionInformation;
+import de.hadizadeh.positioning.model.SignalInformation;
+import de.hadizadeh.positioning.roommodel.android.technologies.SignalTraceReader;
+import de.hadizadeh.positioning.roommodel.android.technologies.SignalTraceRecord;
+import de.hadizadeh.positioning.roommodel.android.technologies.SignalTraceRecorder;
+import de.hadizadeh.positioning.roommodel.android.technologies.SignalTraceWriter;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SignalTraceRecorderTest extends TestCase {
+
+    private File file;
+
+    public void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile("signalTrace", ".bin");
+        file.delete();
+    }
+
+    public void tearDown() throws Exception {
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testRecordAndRead() throws Exception {
+        FakeTechnology wifi = new FakeTechnology("WIFI");
+        FakeTechnology gps = new FakeTechnology("GPS");
+        SignalTraceWriter writer = new SignalTraceWriter(file);
+        SignalTraceRecorder wifiRecorder = new SignalTraceRecorder(wifi, writer);
+        SignalTraceRecorder gpsRecorder = new SignalTraceRecorder(gps, writer, 0.0000001);
+        for (int i = 0; i < 100; i++) {
+            wifi.signalData.clear();
+            wifi.signalData.put("ap" + (i % 7), new SignalInformation(-40.3 - i % 50));
+            wifi.signalData.put("ap" + (i % 5 + 10), new SignalInformation(-90.0));
+            assertEquals(wifi.signalData, wifiRecorder.getSignalData());
+            gps.signalData.put("lat", new SignalInformation(52.4583123 + i * 0.00001));
+            gpsRecorder.getSignalData();
+        }
+        writer.close();
+        assertEquals(0, writer.getDroppedAmount());
+
+        SignalTraceReader reader = new SignalTraceReader(file);
+        long timestamp = -1;
+        for (int i = 0; i < 100; i++) {
+            SignalTraceRecord record = reader.next();
+            assertEquals("WIFI", record.getTechnologyName());
+            assertTrue(record.getTimestamp() >= timestamp);
+            timestamp = record.getTimestamp();
+            Map<String, SignalInformation> signalData = record.getSignalData();
+            assertEquals(2, record.size());
+            assertEquals(-40.25 - i % 50, signalData.get("ap" + (i % 7)).getStrength(), 0.0);
+            assertEquals(-90.0, signalData.get("ap" + (i % 5 + 10)).getStrength(), 0.0);
+
+            record = reader.next();
+            assertEquals("GPS", record.getTechnologyName());
+            assertEquals(52.4583123 + i * 0.00001, record.getStrength(0), 0.0000001);
+        }
+        assertFalse(reader.hasNext());
+        reader.close();
+    }
+
+    public void testAppendSessions() throws Exception {
+        for (int session = 0; session < 2; session++) {
+            FakeTechnology technology = new FakeTechnology("BLE" + session);
+            technology.signalData.put("beacon" + session, new SignalInformation(-70 - session));
+            SignalTraceWriter writer = new SignalTraceWriter(file);
+            new SignalTraceRecorder(technology, writer).getSignalData();
+            writer.close();
+        }
+        SignalTraceReader reader = new SignalTraceReader(file);
+        for (int session = 0; session < 2; session++) {
+            SignalTraceRecord record = reader.next();
+            assertEquals("BLE" + session, record.getTechnologyName());
+            assertEquals("beacon" + session, record.getKey(0));
+            assertEquals(-70.0 - session, record.getStrength(0), 0.0);
+        }
+        assertFalse(reader.hasNext());
+        reader.close();
+    }
+
+    public void testCloseWithFullQueue() throws Exception {
+        for (int run = 0; run < 20; run++) {
+            file.delete();
+            FakeTechnology technology = new FakeTechnology("WIFI");
+            // large records, so the writer thread writes to the file while it drains the queue
+            for (int i = 0; i < 500; i++) {
+                technology.signalData.put("ap" + i, new SignalInformation(-60));
+            }
+            SignalTraceWriter writer = new SignalTraceWriter(file, 64);
+            SignalTraceRecorder recorder = new SignalTraceRecorder(technology, writer);
+            // the writer thread waits for the monitor of the writer before writing the technology definition
+            synchronized (writer) {
+                for (int i = 0; i < 100; i++) {
+                    recorder.getSignalData();
+                }
+            }
+            writer.close();
+            assertEquals(100, writer.getDroppedAmount() + countRecords());
+            // records after closing are neither written nor counted as dropped
+            long droppedAmount = writer.getDroppedAmount();
+            recorder.getSignalData();
+            assertEquals(droppedAmount, writer.getDroppedAmount());
+            assertEquals(100, droppedAmount + countRecords());
+        }
+    }
+
+    public void testMatch() throws Exception {
+        List<PositionInformation> persistedPositions = new ArrayList<PositionInformation>();
+        persistedPositions.add(new PositionInformation("1.", new HashMap<String, SignalInformation>()));
+        OwnMatchingTechnology gps = new OwnMatchingTechnology("GPS");
+        gps.signalData.put("lat", new SignalInformation(52.0));
+        FakeTechnology wifi = new FakeTechnology("WIFI");
+        wifi.signalData.put("ap", new SignalInformation(-60));
+        SignalTraceWriter writer = new SignalTraceWriter(file);
+        SignalTraceRecorder gpsRecorder = new SignalTraceRecorder(gps, writer);
+        SignalTraceRecorder wifiRecorder = new SignalTraceRecorder(wifi, writer);
+        final List<Map<String, SignalInformation>> matchedSignalData = new ArrayList<Map<String, SignalInformation>>();
+        wifiRecorder.setMatcher(new Matcher() {
+            @Override
+            public Map<PositionInformation, Double> nearestNeighbour(CachingManager cachingManager, Map<String, SignalInformation> fingerPrint, List<PositionInformation> persistedPositions, boolean ignoreDisabledAPs) {
+                matchedSignalData.add(fingerPrint);
+                return Collections.singletonMap(persistedPositions.get(0), 1.0);
+            }
+        });
+
+        // the technology keeps its own matching
+        assertEquals(Collections.singletonMap(persistedPositions.get(0), 0.0), gpsRecorder.match(persistedPositions));
+        assertEquals(1, gps.matchAmount);
+        // other technologies match the recorded signal data with the matcher
+        assertEquals(Collections.singletonMap(persistedPositions.get(0), 1.0), wifiRecorder.match(persistedPositions));
+        assertEquals(Collections.singletonList(wifi.signalData), matchedSignalData);
+        writer.close();
+
+        SignalTraceReader reader = new SignalTraceReader(file);
+        SignalTraceRecord record = reader.next();
+        assertEquals("GPS", record.getTechnologyName());
+        assertEquals("lat", record.getKey(0));
+        record = reader.next();
+        assertEquals("WIFI", record.getTechnologyName());
+        assertEquals(-60.0, record.getStrength(0), 0.0);
+        assertFalse(reader.hasNext());
+        reader.close();
+        assertSame(gps, SignalTraceRecorder.unwrap(gpsRecorder));
+    }
+
+    public void testInvalidFile() throws Exception {
+        FileOutputStream output = new FileOutputStream(file);
+        output.write("no trace".getBytes("UTF-8"));
+        output.close();
+        try {
+            new SignalTraceReader(file);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private int countRecords() throws IOException {
+        SignalTraceReader reader = new SignalTraceReader(file);
+        int amount = 0;
+        while (reader.hasNext()) {
+            reader.next();
+            amount++;
+        }
+        reader.close();
+        return amount;
+    }
+
+    private static class FakeTechnology extends Technology {
+        protected Map<String, SignalInformation> signalData = new HashMap<String, SignalInformation>();
+
+        public FakeTechnology(String name) {
+            super(name);
+        }
+
+        @Override
+        public Map<String, SignalInformation> getSignalData() {
+            return new HashMap<String, SignalInformation>(signalData);
+        }
+    }
+
+    private static class OwnMatchingTechnology extends FakeTechnology {
+        private int matchAmount;
+
+        public OwnMatchingTechnology(String name) {
+            super(name);
+        }
+
+        @Override
+        public Map<PositionInformation, Double> match(List<PositionInformation> persistedPositions) {
+            matchAmount++;
+            return Collections.singletonMap(persistedPositions.get(0), 0.0);
+        }
+    }
+}